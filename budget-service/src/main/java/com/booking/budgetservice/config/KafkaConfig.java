@@ -1,25 +1,37 @@
 package com.booking.budgetservice.config;
 
+import com.booking.budgetservice.event.ExpenseEvent;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Kafka configuration for the Budget Service.
- * Sets up Kafka producer and topics for budget alerts.
+ * Sets up Kafka producer and topics for budget alerts, and the consumer for expense events.
  */
 @Configuration
+@EnableKafka
 public class KafkaConfig {
 
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
@@ -28,6 +40,18 @@ public class KafkaConfig {
     @Value("${spring.kafka.topic.budget-alerts:budget-alerts}")
     private String budgetAlertsTopic;
 
+    @Value("${spring.kafka.consumer.group-id:budget-service-group}")
+    private String groupId;
+
+    @Value("${app.spend-projection.consumer-concurrency:3}")
+    private int expenseConsumerConcurrency;
+
+    @Value("${app.spend-projection.max-poll-records:500}")
+    private int expenseMaxPollRecords;
+
+    @Value("${app.kafka.transaction-id-prefix:budget-service-tx-}")
+    private String transactionIdPrefix;
+
     /**
      * Configure Kafka producer properties.
      *
@@ -48,22 +72,29 @@ public class KafkaConfig {
 
     /**
      * Create Kafka producer factory.
+     * Producers are transactional so the expense consumer can commit alerts together
+     * with its offsets; the prefix must be unique per running instance.
      *
      * @return ProducerFactory for Kafka
      */
     @Bean
     public ProducerFactory<String, Object> producerFactory() {
-        return new DefaultKafkaProducerFactory<>(producerConfigs());
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(producerConfigs());
+        factory.setTransactionIdPrefix(transactionIdPrefix);
+        return factory;
     }
 
     /**
      * Create Kafka template for sending messages.
+     * Sends inside a listener transaction join it; sends from request threads are not transactional.
      *
      * @return KafkaTemplate
      */
     @Bean
     public KafkaTemplate<String, Object> kafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory());
+        template.setAllowNonTransactional(true);
+        return template;
     }
 
     /**
@@ -78,4 +109,74 @@ public class KafkaConfig {
                 .replicas(1)
                 .build();
     }
-}
\ No newline at end of file
+
+    /**
+     * Configure Kafka consumer properties for expense events.
+     * Type headers from the Expense Service are ignored and mapped onto the local event class.
+     *
+     * @return Map of consumer properties
+     */
+    @Bean
+    public Map<String, Object> expenseEventConsumerConfigs() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, JsonDeserializer.class);
+        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, ExpenseEvent.class.getName());
+        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
+        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.booking.*");
+        // Offsets are committed with the listener transaction; the seek on assignment decides where to start
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, expenseMaxPollRecords);
+        return props;
+    }
+
+    /**
+     * Create Kafka consumer factory for expense events.
+     *
+     * @return ConsumerFactory for Kafka
+     */
+    @Bean
+    public ConsumerFactory<String, ExpenseEvent> expenseEventConsumerFactory() {
+        return new DefaultKafkaConsumerFactory<>(expenseEventConsumerConfigs());
+    }
+
+    /**
+     * Create Kafka listener container factory for expense events.
+     * Each batch runs in a Kafka transaction that also commits the consumed offsets.
+     * The transaction manager is not a bean so it does not replace the JPA transaction manager.
+     *
+     * @return ConcurrentKafkaListenerContainerFactory
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ExpenseEvent> expenseEventListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ExpenseEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(expenseEventConsumerFactory());
+        factory.setConcurrency(expenseConsumerConcurrency);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setKafkaAwareTransactionManager(
+                expenseTransactionManager(producerFactory()));
+        return factory;
+    }
+
+    /**
+     * Create the transaction manager of the expense consumer's batches.
+     * A KafkaTransactionManager leaves transaction synchronization off by default; it is
+     * switched on so the consumer can tie work to the outcome of its batch: alerts are
+     * sent just before the commit, the projection and alert states are only updated after it.
+     *
+     * @param producerFactory the transactional producer factory
+     * @return KafkaTransactionManager
+     */
+    public static KafkaTransactionManager<String, Object> expenseTransactionManager(
+            ProducerFactory<String, Object> producerFactory) {
+        KafkaTransactionManager<String, Object> transactionManager = new KafkaTransactionManager<>(producerFactory);
+        transactionManager.setTransactionSynchronization(AbstractPlatformTransactionManager.SYNCHRONIZATION_ALWAYS);
+        return transactionManager;
+    }
+}
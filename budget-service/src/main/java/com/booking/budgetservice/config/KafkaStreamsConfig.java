@@ -0,0 +1,103 @@
+package com.booking.budgetservice.config;
+
+import com.booking.budgetservice.service.streams.SpendAggregationTopology;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+import org.springframework.kafka.config.TopicBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka Streams configuration for the Budget Service.
+ * Enabled with {@code app.kafka-streams.enabled=true}; it then replaces the expense
+ * event consumer and spend projection as the source of spend totals and alerts.
+ * Scale out by starting more instances with the same application ID, they split
+ * the input partitions and answer queries for keys they do not own by forwarding.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(name = "app.kafka-streams.enabled", havingValue = "true")
+public class KafkaStreamsConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${app.kafka-streams.application-id:budget-service-spend}")
+    private String applicationId;
+
+    @Value("${app.kafka-streams.state-dir:/tmp/kafka-streams}")
+    private String stateDir;
+
+    @Value("${app.kafka-streams.advertised-host:localhost}:${server.port:8082}")
+    private String applicationServer;
+
+    @Value("${app.kafka-streams.num-stream-threads:3}")
+    private int numStreamThreads;
+
+    @Value("${spring.kafka.topic.expenses:expenses-topic}")
+    private String expensesTopic;
+
+    @Value("${spring.kafka.topic.budgets-changelog:budgets-changelog}")
+    private String budgetsChangelogTopic;
+
+    @Value("${spring.kafka.topic.budget-alerts:budget-alerts}")
+    private String budgetAlertsTopic;
+
+    /**
+     * Configure Kafka Streams properties.
+     *
+     * @return KafkaStreamsConfiguration
+     */
+    @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
+    public KafkaStreamsConfiguration kafkaStreamsConfig() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, applicationId);
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(StreamsConfig.STATE_DIR_CONFIG, stateDir);
+        // Lets other instances discover which host owns a key for interactive queries
+        props.put(StreamsConfig.APPLICATION_SERVER_CONFIG, applicationServer);
+        props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, numStreamThreads);
+        props.put(StreamsConfig.PROCESSING_GUARANTEE_CONFIG, StreamsConfig.EXACTLY_ONCE_V2);
+        props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+        return new KafkaStreamsConfiguration(props);
+    }
+
+    /**
+     * Register the spend aggregation topology with the streams builder.
+     *
+     * @param streamsBuilder the builder provided by Spring
+     * @return the same builder marker so the topology is built at startup
+     */
+    @Bean
+    public Object spendAggregationTopology(StreamsBuilder streamsBuilder) {
+        SpendAggregationTopology.build(streamsBuilder, expensesTopic, budgetsChangelogTopic, budgetAlertsTopic);
+        return streamsBuilder;
+    }
+
+    /**
+     * Create the compacted budgets changelog topic if it doesn't exist.
+     * It must have as many partitions as the expenses topic to be joinable.
+     *
+     * @return NewTopic for the budgets changelog
+     */
+    @Bean
+    public NewTopic budgetsChangelogTopic() {
+        return TopicBuilder.name(budgetsChangelogTopic)
+                .partitions(3)
+                .replicas(1)
+                .config(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT)
+                .build();
+    }
+}
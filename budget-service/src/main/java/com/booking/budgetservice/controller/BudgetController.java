@@ -1,18 +1,35 @@
 package com.booking.budgetservice.controller;
 
 import com.booking.budgetservice.dto.ApiResponse;
+import com.booking.budgetservice.dto.BudgetAlertRuleDTO;
 import com.booking.budgetservice.dto.BudgetDTO;
+import com.booking.budgetservice.dto.BudgetSimulationRequest;
 import com.booking.budgetservice.dto.BudgetStatusDTO;
+import com.booking.budgetservice.dto.BulkBudgetStatusRequest;
+import com.booking.budgetservice.dto.SimulatedMonthDTO;
+import com.booking.budgetservice.exception.SpendStoreUnavailableException;
 import com.booking.budgetservice.service.BudgetService;
+import com.booking.budgetservice.service.BudgetStatusStreamService;
+import com.booking.budgetservice.service.rules.AlertRuleService;
+import com.booking.budgetservice.service.simulation.BudgetSimulator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -27,6 +44,18 @@ public class BudgetController {
     @Autowired
     private BudgetService budgetService;
 
+    @Autowired
+    private BudgetStatusStreamService budgetStatusStreamService;
+
+    @Autowired
+    private AlertRuleService alertRuleService;
+
+    @Autowired
+    private BudgetSimulator budgetSimulator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Create a new budget.
      *
@@ -50,6 +79,10 @@ public class BudgetController {
             );
             
             return ResponseEntity.created(location).body(response);
+        } catch (SpendStoreUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     new ApiResponse<>("ERROR", e.getMessage(), null)
@@ -78,6 +111,10 @@ public class BudgetController {
             );
             
             return ResponseEntity.ok(response);
+        } catch (SpendStoreUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     new ApiResponse<>("ERROR", e.getMessage(), null)
@@ -190,19 +227,77 @@ public class BudgetController {
     }
 
     /**
-     * Get budget status for a user in a specific month.
+     * Get the alert rules of a budget. An empty list means the default rules apply.
+     *
+     * @param id the budget ID
+     * @return ResponseEntity with the alert rules
+     */
+    @GetMapping("/{id}/alert-rules")
+    public ResponseEntity<ApiResponse<List<BudgetAlertRuleDTO>>> getAlertRules(@PathVariable Long id) {
+        try {
+            List<BudgetAlertRuleDTO> rules = alertRuleService.getRules(id);
+            
+            ApiResponse<List<BudgetAlertRuleDTO>> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Alert rules retrieved successfully",
+                    rules
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Replace the alert rules of a budget. An empty list restores the default rules.
+     *
+     * @param id the budget ID
+     * @param rules the new alert rules
+     * @return ResponseEntity with the saved alert rules
+     */
+    @PutMapping("/{id}/alert-rules")
+    public ResponseEntity<ApiResponse<List<BudgetAlertRuleDTO>>> replaceAlertRules(
+            @PathVariable Long id,
+            @Valid @RequestBody List<BudgetAlertRuleDTO> rules) {
+        try {
+            List<BudgetAlertRuleDTO> saved = alertRuleService.replaceRules(id, rules);
+            
+            ApiResponse<List<BudgetAlertRuleDTO>> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Alert rules updated successfully",
+                    saved
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Get budget status for a user in a specific month, optionally as it was at the end
+     * of a past day.
      *
      * @param userId the user ID
      * @param month the month in format yyyy-MM
+     * @param asOf the day in format yyyy-MM-dd, or null for the current status
      * @return ResponseEntity with budget status
      */
     @GetMapping("/status/user/{userId}/month/{month}")
     public ResponseEntity<ApiResponse<List<BudgetStatusDTO>>> getBudgetStatus(
             @PathVariable Long userId,
-            @PathVariable String month) {
+            @PathVariable String month,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate asOf) {
         try {
             YearMonth yearMonth = YearMonth.parse(month, DateTimeFormatter.ofPattern("yyyy-MM"));
-            List<BudgetStatusDTO> budgetStatus = budgetService.getBudgetStatus(userId, yearMonth);
+            List<BudgetStatusDTO> budgetStatus = asOf == null
+                    ? budgetService.getBudgetStatus(userId, yearMonth)
+                    : budgetService.getBudgetStatus(userId, yearMonth, asOf);
             
             ApiResponse<List<BudgetStatusDTO>> response = new ApiResponse<>(
                     "SUCCESS",
@@ -211,6 +306,88 @@ public class BudgetController {
             );
             
             return ResponseEntity.ok(response);
+        } catch (SpendStoreUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Stream budget status changes for a user in a specific month as server-sent events.
+     * The full status is sent on connect as a "status" event; afterwards "status" events
+     * carry only the categories that changed and "removed" events the categories whose
+     * budget was deleted. Removed categories of household budgets are prefixed with the
+     * household ID, e.g. "7/FOOD".
+     *
+     * @param userId the user ID
+     * @param month the month in format yyyy-MM
+     * @return the event stream
+     */
+    @GetMapping(value = "/status/user/{userId}/month/{month}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBudgetStatus(
+            @PathVariable Long userId,
+            @PathVariable String month) {
+        YearMonth yearMonth = YearMonth.parse(month, DateTimeFormatter.ofPattern("yyyy-MM"));
+        return budgetStatusStreamService.subscribe(userId, yearMonth);
+    }
+
+    /**
+     * Get budget status for many users over a range of months.
+     * Results are streamed as newline-delimited JSON, one user-month per line,
+     * so large batches are never buffered in memory.
+     *
+     * @param request the users and month range
+     * @return ResponseEntity streaming the budget status
+     */
+    @PostMapping(value = "/status/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> getBulkBudgetStatus(
+            @Valid @RequestBody BulkBudgetStatusRequest request) {
+        StreamingResponseBody body = outputStream -> {
+            OutputStream out = new BufferedOutputStream(outputStream);
+            budgetService.streamBudgetStatus(request.userIds(), request.fromMonth(), request.toMonth(), status -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(status));
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        };
+        
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Simulate hypothetical budgets against a user's spending, without saving them.
+     *
+     * @param request the user, month range and hypothetical budgets
+     * @return ResponseEntity with the simulated status per month
+     */
+    @PostMapping("/simulate")
+    public ResponseEntity<ApiResponse<List<SimulatedMonthDTO>>> simulateBudgets(
+            @Valid @RequestBody BudgetSimulationRequest request) {
+        try {
+            List<SimulatedMonthDTO> simulation = budgetSimulator.simulate(request);
+            
+            ApiResponse<List<SimulatedMonthDTO>> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Budget simulation completed successfully",
+                    simulation
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (SpendStoreUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(
                     new ApiResponse<>("ERROR", e.getMessage(), null)
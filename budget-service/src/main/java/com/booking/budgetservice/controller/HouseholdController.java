@@ -0,0 +1,131 @@
+package com.booking.budgetservice.controller;
+
+import com.booking.budgetservice.dto.ApiResponse;
+import com.booking.budgetservice.dto.HouseholdDTO;
+import com.booking.budgetservice.service.household.HouseholdService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+/**
+ * REST controller for households, whose members share budgets.
+ * A shared budget is created through the budget API with the household ID set.
+ */
+@RestController
+@RequestMapping("/api/households")
+public class HouseholdController {
+
+    @Autowired
+    private HouseholdService householdService;
+
+    /**
+     * Create a new household.
+     *
+     * @param householdDTO the household data with its initial members
+     * @return ResponseEntity with the created household
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<HouseholdDTO>> createHousehold(@Valid @RequestBody HouseholdDTO householdDTO) {
+        try {
+            HouseholdDTO createdHousehold = householdService.createHousehold(householdDTO);
+            
+            URI location = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .path("/{id}")
+                    .buildAndExpand(createdHousehold.id())
+                    .toUri();
+            
+            ApiResponse<HouseholdDTO> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Household created successfully",
+                    createdHousehold
+            );
+            
+            return ResponseEntity.created(location).body(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Get a household by ID.
+     *
+     * @param id the household ID
+     * @return ResponseEntity with the household
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<HouseholdDTO>> getHousehold(@PathVariable Long id) {
+        try {
+            HouseholdDTO household = householdService.getHousehold(id);
+            
+            ApiResponse<HouseholdDTO> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Household retrieved successfully",
+                    household
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Add a user to a household.
+     *
+     * @param id the household ID
+     * @param userId the user ID
+     * @return ResponseEntity with the household
+     */
+    @PutMapping("/{id}/members/{userId}")
+    public ResponseEntity<ApiResponse<HouseholdDTO>> addMember(@PathVariable Long id, @PathVariable Long userId) {
+        try {
+            HouseholdDTO household = householdService.addMember(id, userId);
+            
+            ApiResponse<HouseholdDTO> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Member added successfully",
+                    household
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Remove a user from a household.
+     *
+     * @param id the household ID
+     * @param userId the user ID
+     * @return ResponseEntity with the household
+     */
+    @DeleteMapping("/{id}/members/{userId}")
+    public ResponseEntity<ApiResponse<HouseholdDTO>> removeMember(@PathVariable Long id, @PathVariable Long userId) {
+        try {
+            HouseholdDTO household = householdService.removeMember(id, userId);
+            
+            ApiResponse<HouseholdDTO> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Member removed successfully",
+                    household
+            );
+            
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.booking.budgetservice.controller;
+
+import com.booking.budgetservice.dto.ApiResponse;
+import com.booking.budgetservice.dto.ProjectionRebuildStatusDTO;
+import com.booking.budgetservice.service.projection.ProjectionRebuildService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Operator endpoint for rebuilding the spend projection from the expenses topic.
+ * Not routed through the API gateway.
+ */
+@RestController
+@RequestMapping("/internal/projection/rebuild")
+@ConditionalOnProperty(name = "app.kafka-streams.enabled", havingValue = "false", matchIfMissing = true)
+public class InternalProjectionController {
+
+    @Autowired
+    private ProjectionRebuildService projectionRebuildService;
+
+    /**
+     * Start a rebuild in the background. An interrupted rebuild is resumed unless restart is set.
+     *
+     * @param restart true to start over instead of resuming
+     * @return ResponseEntity with the rebuild progress
+     */
+    @PostMapping
+    public ResponseEntity<ApiResponse<ProjectionRebuildStatusDTO>> startRebuild(
+            @RequestParam(defaultValue = "false") boolean restart) {
+        if (!projectionRebuildService.start(restart)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ApiResponse<>(
+                    "ERROR", "A rebuild is already running", projectionRebuildService.getStatus()));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(new ApiResponse<>(
+                "SUCCESS", "Rebuild started", projectionRebuildService.getStatus()));
+    }
+
+    /**
+     * Get the progress of the running or last rebuild.
+     *
+     * @return ResponseEntity with the rebuild progress
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<ProjectionRebuildStatusDTO>> getRebuildStatus() {
+        return ResponseEntity.ok(new ApiResponse<>(
+                "SUCCESS", "Rebuild status retrieved successfully", projectionRebuildService.getStatus()));
+    }
+}
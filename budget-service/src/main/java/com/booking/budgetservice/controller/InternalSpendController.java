@@ -0,0 +1,49 @@
+package com.booking.budgetservice.controller;
+
+import com.booking.budgetservice.service.streams.SpendStoreReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Instance-to-instance endpoint for interactive queries against the local spend store.
+ * Not routed through the API gateway.
+ */
+@RestController
+@RequestMapping("/internal/spend")
+@ConditionalOnProperty(name = "app.kafka-streams.enabled", havingValue = "true")
+public class InternalSpendController {
+
+    @Autowired
+    private SpendStoreReader spendStoreReader;
+
+    /**
+     * Get the locally stored spend total for a key.
+     *
+     * @param key the spend key in the form userId|category|yyyy-MM
+     * @return ResponseEntity with the total in minor units
+     */
+    @GetMapping("/{key}")
+    public ResponseEntity<Long> getLocalSpent(@PathVariable String key) {
+        return ResponseEntity.ok(spendStoreReader.getLocalSpent(key));
+    }
+
+    /**
+     * Get the locally stored spend totals for several keys at once.
+     *
+     * @param keys the spend keys in the form userId|category|yyyy-MM
+     * @return ResponseEntity with the totals in minor units, in the order of the keys
+     */
+    @PostMapping
+    public ResponseEntity<List<Long>> getLocalSpent(@RequestBody List<String> keys) {
+        return ResponseEntity.ok(spendStoreReader.getLocalSpent(keys));
+    }
+}
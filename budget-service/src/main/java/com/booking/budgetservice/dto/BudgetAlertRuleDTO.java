@@ -0,0 +1,32 @@
+package com.booking.budgetservice.dto;
+
+import com.booking.budgetservice.model.AlertRuleType;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+
+import java.math.BigDecimal;
+
+/**
+ * Data Transfer Object for a budget alert rule.
+ * The threshold is a percentage for PERCENT_USED and PROJECTED_OVERRUN, an amount otherwise.
+ */
+public record BudgetAlertRuleDTO(
+    Long id,
+
+    @NotNull
+    AlertRuleType ruleType,
+
+    @NotNull
+    @PositiveOrZero
+    BigDecimal threshold
+) {
+    // Compact canonical constructor for validation
+    public BudgetAlertRuleDTO {
+        if (ruleType == null) {
+            throw new IllegalArgumentException("Rule type cannot be null");
+        }
+        if (threshold == null || threshold.signum() < 0) {
+            throw new IllegalArgumentException("Threshold cannot be null or negative");
+        }
+    }
+}
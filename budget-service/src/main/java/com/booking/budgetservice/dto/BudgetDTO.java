@@ -8,6 +8,10 @@ import java.time.YearMonth;
 
 /**
  * Data Transfer Object for Budget entity.
+ * A budget with a parent is rolled up into the parent's status. A budget marked to carry
+ * forward is recreated for the next month, optionally increased by its unspent amount.
+ * A budget with a household ID is shared by the household's members; the user ID is the
+ * member creating it.
  */
 public record BudgetDTO(
     Long id,
@@ -23,7 +27,15 @@ public record BudgetDTO(
     BigDecimal amount,
     
     @NotNull
-    YearMonth month
+    YearMonth month,
+
+    Long parentId,
+
+    Boolean carryForward,
+
+    Boolean rolloverUnspent,
+
+    Long householdId
 ) {
     // Compact canonical constructor for validation
     public BudgetDTO {
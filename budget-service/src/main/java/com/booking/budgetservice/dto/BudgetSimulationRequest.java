@@ -0,0 +1,59 @@
+package com.booking.budgetservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Request to simulate hypothetical budgets of a user over a range of months.
+ */
+public record BudgetSimulationRequest(
+    @NotNull
+    Long userId,
+
+    @NotNull
+    YearMonth fromMonth,
+
+    @NotNull
+    YearMonth toMonth,
+
+    @NotEmpty
+    @Valid
+    List<SimulatedBudgetDTO> budgets
+) {
+    public static final int MAX_BUDGETS = 100;
+    public static final int MAX_MONTHS = 36;
+
+    // Compact canonical constructor for validation
+    public BudgetSimulationRequest {
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID cannot be null");
+        }
+        if (fromMonth == null || toMonth == null) {
+            throw new IllegalArgumentException("Month range cannot be null");
+        }
+        if (toMonth.isBefore(fromMonth)) {
+            throw new IllegalArgumentException("End month must not be before start month");
+        }
+        if (fromMonth.plusMonths(MAX_MONTHS).isBefore(toMonth.plusMonths(1))) {
+            throw new IllegalArgumentException("At most " + MAX_MONTHS + " months can be simulated at once");
+        }
+        if (budgets == null || budgets.isEmpty()) {
+            throw new IllegalArgumentException("Budgets cannot be null or empty");
+        }
+        if (budgets.size() > MAX_BUDGETS) {
+            throw new IllegalArgumentException("At most " + MAX_BUDGETS + " budgets can be simulated at once");
+        }
+        Set<String> categories = new HashSet<>();
+        for (SimulatedBudgetDTO budget : budgets) {
+            if (!categories.add(budget.category())) {
+                throw new IllegalArgumentException("Duplicate budget for category " + budget.category());
+            }
+        }
+    }
+}
@@ -5,13 +5,18 @@ import java.math.BigDecimal;
 /**
  * Data Transfer Object for Budget Status information.
  * Represents the comparison between budget and actual expenses.
+ * The expense amount of a budget with child budgets is the sum of its children, that of
+ * a budget shared by a household the sum of its members.
  */
 public record BudgetStatusDTO(
     String category,
     BigDecimal budgetAmount,
     BigDecimal expenseAmount,
     BigDecimal remainingAmount,
-    boolean isOverspent
+    boolean isOverspent,
+    Long budgetId,
+    Long parentId,
+    Long householdId
 ) {
     // Compact canonical constructor for validation
     public BudgetStatusDTO {
@@ -0,0 +1,43 @@
+package com.booking.budgetservice.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Request for the budget status of many users over a range of months.
+ */
+public record BulkBudgetStatusRequest(
+    @NotEmpty
+    List<Long> userIds,
+    
+    @NotNull
+    YearMonth fromMonth,
+    
+    @NotNull
+    YearMonth toMonth
+) {
+    public static final int MAX_USERS = 10_000;
+    public static final int MAX_MONTHS = 36;
+
+    // Compact canonical constructor for validation
+    public BulkBudgetStatusRequest {
+        if (userIds == null || userIds.isEmpty()) {
+            throw new IllegalArgumentException("User IDs cannot be null or empty");
+        }
+        if (userIds.size() > MAX_USERS) {
+            throw new IllegalArgumentException("At most " + MAX_USERS + " users can be requested at once");
+        }
+        if (fromMonth == null || toMonth == null) {
+            throw new IllegalArgumentException("Month range cannot be null");
+        }
+        if (toMonth.isBefore(fromMonth)) {
+            throw new IllegalArgumentException("End month must not be before start month");
+        }
+        if (fromMonth.plusMonths(MAX_MONTHS).isBefore(toMonth.plusMonths(1))) {
+            throw new IllegalArgumentException("At most " + MAX_MONTHS + " months can be requested at once");
+        }
+    }
+}
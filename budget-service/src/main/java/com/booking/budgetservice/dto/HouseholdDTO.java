@@ -0,0 +1,25 @@
+package com.booking.budgetservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object for a household and its members.
+ */
+public record HouseholdDTO(
+    Long id,
+
+    @NotNull
+    String name,
+
+    List<Long> memberIds
+) {
+    // Compact canonical constructor for validation
+    public HouseholdDTO {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Name cannot be null or empty");
+        }
+        memberIds = memberIds == null ? List.of() : List.copyOf(memberIds);
+    }
+}
@@ -0,0 +1,16 @@
+package com.booking.budgetservice.dto;
+
+import java.time.Instant;
+
+/**
+ * Progress of a spend projection rebuild.
+ */
+public record ProjectionRebuildStatusDTO(
+    String state,
+    Instant startedAt,
+    long replayedEvents,
+    long totalEvents,
+    long eventsPerSecond,
+    String error
+) {
+}
@@ -0,0 +1,28 @@
+package com.booking.budgetservice.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+
+/**
+ * A hypothetical budget of a simulation, applied to every month of the simulated range.
+ */
+public record SimulatedBudgetDTO(
+    @NotNull
+    String category,
+
+    @NotNull
+    @Positive
+    BigDecimal amount
+) {
+    // Compact canonical constructor for validation
+    public SimulatedBudgetDTO {
+        if (category == null || category.trim().isEmpty()) {
+            throw new IllegalArgumentException("Category cannot be null or empty");
+        }
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+    }
+}
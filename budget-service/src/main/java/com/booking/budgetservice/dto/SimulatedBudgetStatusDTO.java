@@ -0,0 +1,20 @@
+package com.booking.budgetservice.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Simulated status of a hypothetical budget in one month. The projected amount is the
+ * expense amount for past months, the forecast month-end spending for the current month
+ * and the recent monthly average for future months.
+ */
+public record SimulatedBudgetStatusDTO(
+    String category,
+    BigDecimal budgetAmount,
+    BigDecimal expenseAmount,
+    BigDecimal projectedAmount,
+    BigDecimal remainingAmount,
+    BigDecimal projectedRemainingAmount,
+    boolean isOverspent,
+    boolean isProjectedOverspent
+) {
+}
@@ -0,0 +1,13 @@
+package com.booking.budgetservice.dto;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Simulated status of all hypothetical budgets in one month.
+ */
+public record SimulatedMonthDTO(
+    YearMonth month,
+    List<SimulatedBudgetStatusDTO> statuses
+) {
+}
@@ -0,0 +1,14 @@
+package com.booking.budgetservice.dto;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Budget status of one user in one month, as returned by the bulk status API.
+ */
+public record UserBudgetStatusDTO(
+    Long userId,
+    YearMonth month,
+    List<BudgetStatusDTO> statuses
+) {
+}
@@ -15,7 +15,7 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class BudgetAlertEvent {
     
     private String eventId;
@@ -26,6 +26,7 @@ public class BudgetAlertEvent {
     private BigDecimal budgetLimit;
     private BigDecimal currentSpending;
     private BigDecimal thresholdPercentage;
+    private BigDecimal projectedSpending; // month-end projection, only set on projected overrun alerts
     private String alertMessage;
     private LocalDateTime timestamp;
     
@@ -0,0 +1,25 @@
+package com.booking.budgetservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Current state of a budget, published to the compacted budgets changelog keyed by
+ * {@code userId|category|yyyy-MM}. A deleted budget is published as a tombstone.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BudgetChangeEvent {
+
+    private Long budgetId;
+    private Long userId;
+    private String category;
+    private String month; // yyyy-MM
+    private BigDecimal amount;
+}
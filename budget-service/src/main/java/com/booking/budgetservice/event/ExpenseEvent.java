@@ -0,0 +1,38 @@
+package com.booking.budgetservice.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Event object for expense changes received from the Expense Service via Kafka.
+ * Categories are kept as plain strings to match the category names used by budgets.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ExpenseEvent {
+
+    public static final String CREATED = "CREATED";
+    public static final String UPDATED = "UPDATED";
+    public static final String DELETED = "DELETED";
+
+    private String eventId;
+    private String eventType; // CREATED, UPDATED, DELETED
+    private Long expenseId;
+    private String userId;
+    private BigDecimal amount;
+    private String category;
+    private LocalDate date;
+    private String description;
+
+    // Values before the change, only present on UPDATED events
+    private BigDecimal previousAmount;
+    private String previousCategory;
+    private LocalDate previousDate;
+}
@@ -42,6 +42,17 @@ public class GlobalExceptionHandler {
         return errorResponseEntity(ex.getMessage(), HttpStatus.NOT_FOUND);
     }
 
+    /**
+     * Handle SpendStoreUnavailableException.
+     *
+     * @param ex the exception
+     * @return ResponseEntity with error details
+     */
+    @ExceptionHandler(SpendStoreUnavailableException.class)
+    public ResponseEntity<ApiResponse<?>> handleSpendStoreUnavailableException(SpendStoreUnavailableException ex) {
+        return errorResponseEntity(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /**
      * Handle IllegalArgumentException.
      *
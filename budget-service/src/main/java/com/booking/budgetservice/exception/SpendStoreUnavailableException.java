@@ -0,0 +1,20 @@
+package com.booking.budgetservice.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Exception thrown when spend totals cannot be read for the moment, e.g. while the
+ * Kafka Streams instances rebalance. The request can be retried.
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class SpendStoreUnavailableException extends RuntimeException {
+
+    public SpendStoreUnavailableException(String message) {
+        super(message);
+    }
+
+    public SpendStoreUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
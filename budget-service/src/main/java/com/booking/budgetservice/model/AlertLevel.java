@@ -0,0 +1,46 @@
+package com.booking.budgetservice.model;
+
+/**
+ * Budget alert levels in escalation order. A budget only moves up this ladder
+ * within a month and amount; each step up is alerted once, by every fired rule above
+ * the previous level, and spending falling back and crossing again does not alert it again.
+ */
+public enum AlertLevel {
+    NONE,
+    WARNING,
+    CRITICAL,
+    OVERSPENT;
+
+    // Thresholds in basis points of the budget amount
+    public static final long WARNING_THRESHOLD_BPS = 8_000L;
+    public static final long CRITICAL_THRESHOLD_BPS = 9_500L;
+
+    /**
+     * Map spending against a limit to the alert level it corresponds to.
+     *
+     * @param spentMinorUnits the spending in minor units
+     * @param limitMinorUnits the budget limit in minor units, must be positive
+     * @return the alert level
+     */
+    public static AlertLevel forSpending(long spentMinorUnits, long limitMinorUnits) {
+        if (spentMinorUnits > limitMinorUnits) {
+            return OVERSPENT;
+        }
+        long usedBps = Money.basisPointsOf(spentMinorUnits, limitMinorUnits);
+        if (usedBps >= CRITICAL_THRESHOLD_BPS) {
+            return CRITICAL;
+        }
+        if (usedBps >= WARNING_THRESHOLD_BPS) {
+            return WARNING;
+        }
+        return NONE;
+    }
+
+    /**
+     * @param other the level to compare with
+     * @return true if this level is more severe than the other
+     */
+    public boolean isHigherThan(AlertLevel other) {
+        return compareTo(other) > 0;
+    }
+}
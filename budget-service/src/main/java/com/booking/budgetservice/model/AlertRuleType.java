@@ -0,0 +1,28 @@
+package com.booking.budgetservice.model;
+
+/**
+ * Conditions a budget alert rule can watch. Percentages are of the budget amount,
+ * amounts are in the budget's currency.
+ */
+public enum AlertRuleType {
+
+    /**
+     * Spending reached a percentage of the budget.
+     */
+    PERCENT_USED,
+
+    /**
+     * The remaining amount fell below an amount; 0 alerts on overspending.
+     */
+    REMAINING_BELOW,
+
+    /**
+     * Spending is projected to reach a percentage of the budget by month end.
+     */
+    PROJECTED_OVERRUN,
+
+    /**
+     * A single expense reached an amount.
+     */
+    SINGLE_EXPENSE
+}
@@ -14,9 +14,15 @@ import java.time.YearMonth;
 
 /**
  * Entity representing a user's budget for a specific month and category.
+ * A budget with a household is shared by its members and charged with their combined
+ * spending; its user is the member who created it.
  */
 @Entity
-@Table(name = "budgets")
+@Table(name = "budgets", indexes = {
+        @Index(name = "idx_budgets_month_user", columnList = "month, user_id"),
+        @Index(name = "idx_budgets_parent", columnList = "parent_id"),
+        @Index(name = "idx_budgets_household_month", columnList = "household_id, month")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -40,6 +46,36 @@ public class Budget {
     @NotNull
     private YearMonth month;
 
+    /**
+     * The household sharing this budget, or null for a personal budget.
+     */
+    @Column(name = "household_id")
+    private Long householdId;
+
+    /**
+     * The group budget this budget belongs to, or null for a top-level budget.
+     */
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    /**
+     * Whether the budget is recreated for the next month by the month rollover.
+     */
+    @Column(name = "carry_forward")
+    private Boolean carryForward;
+
+    /**
+     * Whether the unspent amount is added to the budget carried into the next month.
+     */
+    @Column(name = "rollover_unspent")
+    private Boolean rolloverUnspent;
+
+    /**
+     * The part of the amount carried over unspent from the previous month.
+     */
+    @Column(name = "rollover_amount")
+    private BigDecimal rolloverAmount;
+
     @Column(name = "created_at")
     private LocalDate createdAt;
 
@@ -50,10 +86,17 @@ public class Budget {
     protected void onCreate() {
         createdAt = LocalDate.now();
         updatedAt = LocalDate.now();
+        CategoryDictionary.register(category);
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDate.now();
+        CategoryDictionary.register(category);
+    }
+
+    @PostLoad
+    protected void onLoad() {
+        CategoryDictionary.register(category);
     }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * A user-defined alert condition of a budget. Budgets without rules use
+ * {@link com.booking.budgetservice.service.rules.AlertRules#defaults}.
+ */
+@Entity
+@Table(name = "budget_alert_rules", indexes = @Index(name = "idx_budget_alert_rules_budget", columnList = "budget_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BudgetAlertRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "budget_id", nullable = false)
+    private Long budgetId;
+
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rule_type", nullable = false)
+    private AlertRuleType ruleType;
+
+    // A percentage for PERCENT_USED and PROJECTED_OVERRUN, an amount otherwise
+    @NotNull
+    @Column(nullable = false)
+    private BigDecimal threshold;
+}
@@ -0,0 +1,62 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Highest alert level already emitted for a budget. The month and amount the level
+ * was reached for are kept so a changed budget or a new month starts from {@link AlertLevel#NONE}.
+ */
+@Entity
+@Table(name = "budget_alert_states")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BudgetAlertState {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "budget_id", nullable = false, unique = true)
+    private Long budgetId;
+
+    @Column(nullable = false, length = 7)
+    private YearMonth month;
+
+    @Column(name = "budget_amount", nullable = false)
+    private BigDecimal budgetAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private AlertLevel level;
+
+    // Whether a projected overrun was already reported for this month and amount
+    @Column(name = "projected_overrun_alerted")
+    private Boolean projectedOverrunAlerted;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * @param budget the budget as it is now
+     * @return true if this state was recorded for the same month and amount
+     */
+    public boolean appliesTo(Budget budget) {
+        return month.equals(budget.getMonth()) && budgetAmount.compareTo(budget.getAmount()) == 0;
+    }
+}
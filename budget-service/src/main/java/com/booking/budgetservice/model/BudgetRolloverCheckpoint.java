@@ -0,0 +1,43 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+/**
+ * Progress of the month rollover that carries budgets forward into a month. The last
+ * source budget processed is advanced in the same transaction as the inserted budgets,
+ * so an interrupted rollover resumes after the last committed batch.
+ */
+@Entity
+@Table(name = "budget_rollover_checkpoints")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BudgetRolloverCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The month budgets are carried into
+    @Column(nullable = false, unique = true, length = 7)
+    private YearMonth month;
+
+    @Column(name = "last_user_id", nullable = false)
+    private long lastUserId;
+
+    @Column(name = "last_budget_id", nullable = false)
+    private long lastBudgetId;
+
+    @Column(nullable = false)
+    private long carried;
+
+    @Column(nullable = false)
+    private boolean completed;
+}
@@ -0,0 +1,62 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Append-only record of the state of a budget from a point in time on. A version is
+ * written for every create, update and delete, and replaced by the next version of the
+ * same budget; versions are never changed once written.
+ */
+@Entity
+@Table(name = "budget_versions", indexes = {
+        @Index(name = "idx_budget_versions_user_month", columnList = "user_id, month"),
+        @Index(name = "idx_budget_versions_budget", columnList = "budget_id, valid_from")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BudgetVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "budget_id", nullable = false)
+    private Long budgetId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "household_id")
+    private Long householdId;
+
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    @Column(nullable = false, length = 7)
+    private YearMonth month;
+
+    /**
+     * Whether the budget was deleted at this point.
+     */
+    @Column(nullable = false)
+    private boolean deleted;
+
+    @Column(name = "valid_from", nullable = false)
+    private LocalDateTime validFrom;
+}
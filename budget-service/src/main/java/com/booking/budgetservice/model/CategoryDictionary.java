@@ -0,0 +1,95 @@
+package com.booking.budgetservice.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide dictionary of category names to compact int IDs.
+ * <p>
+ * The categories of the Expense Service are registered first, in the order of its
+ * {@code Category} enum, so they always get IDs 0 to 14. Other names are registered only
+ * for budgets, whose categories are bounded by what users have stored. Names from
+ * requests and events are only looked up, so arbitrary input never grows the dictionary.
+ * IDs are only used in memory and never stored, so they need not be stable between restarts.
+ */
+public final class CategoryDictionary {
+
+    /**
+     * Category names sent by the Expense Service, in the order of its enum.
+     */
+    public static final String[] EXPENSE_CATEGORIES = {
+            "FOOD", "TRANSPORTATION", "HOUSING", "UTILITIES", "ENTERTAINMENT",
+            "HEALTHCARE", "SHOPPING", "EDUCATION", "PERSONAL_CARE", "TRAVEL",
+            "DEBT_PAYMENTS", "SAVINGS", "INVESTMENTS", "GIFTS_DONATIONS", "OTHER"
+    };
+
+    /**
+     * Returned by {@link #idOf(String)} for a category that is not registered.
+     */
+    public static final int NOT_FOUND = -1;
+
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+
+    // Indexed by ID; replaced, never modified, when it grows
+    private static volatile String[] names = new String[32];
+    private static int size;
+
+    static {
+        for (String category : EXPENSE_CATEGORIES) {
+            register(category);
+        }
+    }
+
+    private CategoryDictionary() {
+    }
+
+    /**
+     * Get the ID of a registered category.
+     *
+     * @param name the category name
+     * @return the category ID, or {@link #NOT_FOUND} if it is not registered
+     */
+    public static int idOf(String name) {
+        Integer id = name == null ? null : IDS.get(name);
+        return id != null ? id : NOT_FOUND;
+    }
+
+    /**
+     * Get the ID of a category, registering it if it is new. Only for the categories of
+     * the Expense Service and of stored budgets; never call it with request input.
+     *
+     * @param name the category name
+     * @return the category ID
+     */
+    public static int register(String name) {
+        Integer id = IDS.get(name);
+        if (id != null) {
+            return id;
+        }
+        synchronized (CategoryDictionary.class) {
+            id = IDS.get(name);
+            if (id != null) {
+                return id;
+            }
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = name;
+            // Publish the name before the ID, so a reader holding the ID always finds it
+            names = current;
+            IDS.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Get the name of a category ID.
+     *
+     * @param id the category ID, as returned by {@link #idOf(String)} or {@link #register(String)}
+     * @return the category name
+     */
+    public static String nameOf(int id) {
+        return names[id];
+    }
+}
@@ -0,0 +1,50 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+/**
+ * Learned spending pattern of a user in one category, as saved by the spend forecaster
+ * at the start of each month: the cumulative share of monthly spending by day of month
+ * and the expenses that recur every month.
+ */
+@Entity
+@Table(name = "forecast_profiles",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "category"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ForecastProfileEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String category;
+
+    // Month the profile was rolled over to
+    @Column(nullable = false, length = 7)
+    private YearMonth month;
+
+    // Comma-separated cumulative shares in basis points for 31 month positions, empty if not learned yet
+    @Column(name = "day_shares", columnDefinition = "text")
+    private String dayShares;
+
+    // Recurring expenses expected in the month, as signature:amount:day entries separated by ';'
+    @Column(name = "expected_items", columnDefinition = "text")
+    private String expectedItems;
+
+    // Expenses of the month before, used to detect recurrence at the next rollover
+    @Column(name = "previous_items", columnDefinition = "text")
+    private String previousItems;
+}
@@ -0,0 +1,39 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Membership of a user in a household. A user belongs to at most one household.
+ */
+@Entity
+@Table(name = "household_members", indexes = @Index(name = "idx_household_members_household", columnList = "household_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HouseholdMember {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "household_id", nullable = false)
+    private Long householdId;
+
+    @Column(name = "user_id", nullable = false, unique = true)
+    private Long userId;
+
+    @Column(name = "joined_at")
+    private LocalDate joinedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        joinedAt = LocalDate.now();
+    }
+}
@@ -0,0 +1,106 @@
+package com.booking.budgetservice.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Fixed-point monetary amount stored as a scaled {@code long} of minor units
+ * (e.g. cents). Budgets and expenses carry no currency, so neither does this type:
+ * amounts are taken to be in the currency of the user's profile in user-service, and
+ * the amounts of one budget, including a household's shared budget, in one currency.
+ * Nothing here converts between currencies.
+ * <p>
+ * Entities and DTOs keep {@link BigDecimal} for persistence and the REST API;
+ * aggregation and comparison hot paths work on the raw minor units through the
+ * static helpers here so that summing and threshold checks never allocate.
+ * Conversions in both directions are exact: a {@link BigDecimal} with more
+ * fractional digits than {@link #SCALE} is rejected rather than rounded.
+ */
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    /**
+     * Number of fractional digits represented by one minor unit.
+     */
+    public static final int SCALE = 2;
+
+    /**
+     * One hundred percent expressed in basis points.
+     */
+    public static final long BASIS_POINTS = 10_000L;
+
+    /**
+     * Create a Money value from a decimal amount.
+     *
+     * @param amount the decimal amount
+     * @return the Money value
+     * @throws ArithmeticException if the amount has more than {@link #SCALE} fractional digits
+     */
+    public static Money of(BigDecimal amount) {
+        return new Money(toMinorUnits(amount));
+    }
+
+    /**
+     * Exactly convert a decimal amount to minor units.
+     *
+     * @param amount the decimal amount, {@code null} is treated as zero
+     * @return the amount in minor units
+     * @throws ArithmeticException if the amount cannot be represented exactly
+     */
+    public static long toMinorUnits(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.movePointRight(SCALE).longValueExact();
+    }
+
+    /**
+     * Convert minor units back to a decimal amount with {@link #SCALE} fractional digits.
+     *
+     * @param minorUnits the amount in minor units
+     * @return the decimal amount
+     */
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * Ratio of {@code spent} to {@code limit} in basis points, rounded down, so a
+     * threshold is only reached once spending actually reaches it: 79.99% used is
+     * 7999 and stays below an 80% threshold.
+     *
+     * @param spentMinorUnits the spent amount in minor units
+     * @param limitMinorUnits the limit in minor units, must be positive
+     * @return the used share in basis points (10000 = 100%)
+     */
+    public static long basisPointsOf(long spentMinorUnits, long limitMinorUnits) {
+        if (limitMinorUnits <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        return Math.multiplyExact(spentMinorUnits, BASIS_POINTS) / limitMinorUnits;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return toBigDecimal(minorUnits);
+    }
+
+    public Money plus(Money other) {
+        return new Money(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+}
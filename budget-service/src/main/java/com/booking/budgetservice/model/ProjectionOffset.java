@@ -0,0 +1,34 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Next offset to consume for a partition of the expenses topic, written in the
+ * same transaction as the projection rows it covers.
+ */
+@Entity
+@Table(name = "projection_offsets",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"topic", "kafka_partition"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProjectionOffset {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String topic;
+
+    @Column(name = "kafka_partition", nullable = false)
+    private int kafkaPartition;
+
+    @Column(name = "next_offset", nullable = false)
+    private long nextOffset;
+}
@@ -0,0 +1,45 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+/**
+ * End-of-day spending totals of a user in one category over one month, as recorded by
+ * the daily spend snapshot.
+ */
+@Entity
+@Table(name = "spend_history",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "category", "month"}),
+        indexes = @Index(name = "idx_spend_history_month", columnList = "month"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpendHistoryEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false, length = 7)
+    private YearMonth month;
+
+    // Run-length encoded totals in minor units by day of month, see DailyTotals
+    @Column(name = "daily_totals", nullable = false, columnDefinition = "text")
+    private String dailyTotals;
+
+    // Days of the month covered by the totals; later days repeat the last total
+    @Column(name = "recorded_days", nullable = false)
+    private int recordedDays;
+}
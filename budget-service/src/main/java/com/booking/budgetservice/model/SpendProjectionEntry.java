@@ -0,0 +1,44 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+
+/**
+ * Checkpointed total of a user's spending in one category and month,
+ * as last flushed from the in-memory spend projection.
+ */
+@Entity
+@Table(name = "spend_projection",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "category", "month"}),
+        indexes = @Index(name = "idx_spend_projection_partition", columnList = "kafka_partition"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpendProjectionEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false, length = 7)
+    private YearMonth month;
+
+    @Column(name = "amount_minor_units", nullable = false)
+    private long amountMinorUnits;
+
+    // Source partition of the expenses topic, so a partition's state can be reloaded on assignment
+    @Column(name = "kafka_partition", nullable = false)
+    private int kafkaPartition;
+}
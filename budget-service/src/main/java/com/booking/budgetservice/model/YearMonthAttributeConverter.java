@@ -0,0 +1,24 @@
+package com.booking.budgetservice.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.time.YearMonth;
+
+/**
+ * Stores {@link YearMonth} values as sortable {@code yyyy-MM} strings so they can
+ * be compared, indexed and written from native SQL.
+ */
+@Converter(autoApply = true)
+public class YearMonthAttributeConverter implements AttributeConverter<YearMonth, String> {
+
+    @Override
+    public String convertToDatabaseColumn(YearMonth attribute) {
+        return attribute == null ? null : attribute.toString();
+    }
+
+    @Override
+    public YearMonth convertToEntityAttribute(String dbData) {
+        return dbData == null ? null : YearMonth.parse(dbData);
+    }
+}
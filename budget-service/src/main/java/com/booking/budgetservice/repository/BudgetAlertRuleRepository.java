@@ -0,0 +1,33 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.BudgetAlertRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for budget alert rules.
+ */
+@Repository
+public interface BudgetAlertRuleRepository extends JpaRepository<BudgetAlertRule, Long> {
+
+    /**
+     * Find the alert rules of a budget.
+     *
+     * @param budgetId the budget ID
+     * @return list of rules
+     */
+    List<BudgetAlertRule> findByBudgetIdOrderById(Long budgetId);
+
+    /**
+     * Delete the alert rules of a budget.
+     *
+     * @param budgetId the budget ID
+     */
+    @Modifying
+    @Query("DELETE FROM BudgetAlertRule r WHERE r.budgetId = ?1")
+    void deleteByBudgetId(Long budgetId);
+}
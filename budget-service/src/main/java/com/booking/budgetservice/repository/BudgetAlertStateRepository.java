@@ -0,0 +1,44 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.BudgetAlertState;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for BudgetAlertState entity.
+ */
+@Repository
+public interface BudgetAlertStateRepository extends JpaRepository<BudgetAlertState, Long> {
+
+    /**
+     * Find the alert state of a budget, locking the row for the rest of the transaction.
+     *
+     * @param budgetId the budget ID
+     * @return the alert state if one was recorded
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<BudgetAlertState> findByBudgetId(Long budgetId);
+
+    /**
+     * Read the alert state of a budget without locking it.
+     *
+     * @param budgetId the budget ID
+     * @return the alert state if one was recorded
+     */
+    Optional<BudgetAlertState> readByBudgetId(Long budgetId);
+
+    /**
+     * Delete the alert state of a budget.
+     *
+     * @param budgetId the budget ID
+     */
+    @Modifying
+    @Query("DELETE FROM BudgetAlertState s WHERE s.budgetId = ?1")
+    void deleteByBudgetId(Long budgetId);
+}
@@ -2,10 +2,12 @@ package com.booking.budgetservice.repository;
 
 import com.booking.budgetservice.model.Budget;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.YearMonth;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -32,14 +34,32 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
     List<Budget> findByUserIdAndMonth(Long userId, YearMonth month);
 
     /**
-     * Find a budget for a specific user, category, and month.
+     * Find the personal budgets of a user in a month, without budgets the user created for a household.
+     *
+     * @param userId the user ID
+     * @param month the month
+     * @return list of budgets
+     */
+    List<Budget> findByUserIdAndMonthAndHouseholdIdIsNull(Long userId, YearMonth month);
+
+    /**
+     * Find the personal budgets for a set of users in a set of months with a single query.
+     *
+     * @param userIds the user IDs
+     * @param months the months
+     * @return list of budgets
+     */
+    List<Budget> findByUserIdInAndMonthInAndHouseholdIdIsNull(Collection<Long> userIds, Collection<YearMonth> months);
+
+    /**
+     * Find the personal budget for a specific user, category, and month.
      *
      * @param userId the user ID
      * @param category the category
      * @param month the month
      * @return the budget if found
      */
-    Budget findByUserIdAndCategoryAndMonth(Long userId, String category, YearMonth month);
+    Budget findByUserIdAndCategoryAndMonthAndHouseholdIdIsNull(Long userId, String category, YearMonth month);
 
     /**
      * Find all budgets for a specific user and category.
@@ -51,22 +71,79 @@ public interface BudgetRepository extends JpaRepository<Budget, Long> {
     List<Budget> findByUserIdAndCategory(Long userId, String category);
 
     /**
-     * Check if a budget exists for a specific user, category, and month.
+     * Check if a personal budget exists for a specific user, category, and month.
      *
      * @param userId the user ID
      * @param category the category
      * @param month the month
      * @return true if exists, false otherwise
      */
-    boolean existsByUserIdAndCategoryAndMonth(Long userId, String category, YearMonth month);
+    boolean existsByUserIdAndCategoryAndMonthAndHouseholdIdIsNull(Long userId, String category, YearMonth month);
+
+    /**
+     * Find the shared budgets of a household in a month.
+     *
+     * @param householdId the household ID
+     * @param month the month
+     * @return list of budgets
+     */
+    List<Budget> findByHouseholdIdAndMonth(Long householdId, YearMonth month);
+
+    /**
+     * Find the shared budget of a household for a category and month.
+     *
+     * @param householdId the household ID
+     * @param category the category
+     * @param month the month
+     * @return the budget if found
+     */
+    Budget findByHouseholdIdAndCategoryAndMonth(Long householdId, String category, YearMonth month);
+
+    /**
+     * Check if a household shares a budget for a category and month.
+     *
+     * @param householdId the household ID
+     * @param category the category
+     * @param month the month
+     * @return true if exists, false otherwise
+     */
+    boolean existsByHouseholdIdAndCategoryAndMonth(Long householdId, String category, YearMonth month);
+
+    /**
+     * Check if a budget has child budgets.
+     *
+     * @param parentId the budget ID
+     * @return true if at least one budget has the given parent
+     */
+    boolean existsByParentId(Long parentId);
+
+    /**
+     * Move the child budgets of a budget to another parent.
+     *
+     * @param parentId the current parent budget ID
+     * @param newParentId the new parent budget ID, or null to make them top-level
+     * @return the number of budgets moved
+     */
+    @Modifying
+    @Query("UPDATE Budget b SET b.parentId = ?2 WHERE b.parentId = ?1")
+    int reparentChildren(Long parentId, Long newParentId);
+
+    /**
+     * Find the distinct categories of all budgets.
+     *
+     * @return the category names
+     */
+    @Query("SELECT DISTINCT b.category FROM Budget b")
+    List<String> findDistinctCategories();
 
     /**
-     * Get the sum of all budget amounts for a user in a specific month.
+     * Get the sum of all top-level personal budget amounts for a user in a specific month.
+     * Child budgets are part of their parent's amount and not counted again.
      *
      * @param userId the user ID
      * @param month the month
      * @return the sum of budget amounts
      */
-    @Query("SELECT SUM(b.amount) FROM Budget b WHERE b.userId = ?1 AND b.month = ?2")
+    @Query("SELECT SUM(b.amount) FROM Budget b WHERE b.userId = ?1 AND b.month = ?2 AND b.parentId IS NULL AND b.householdId IS NULL")
     java.math.BigDecimal getTotalBudgetForUserAndMonth(Long userId, YearMonth month);
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.BudgetRolloverCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+/**
+ * Repository interface for month rollover checkpoints.
+ */
+@Repository
+public interface BudgetRolloverCheckpointRepository extends JpaRepository<BudgetRolloverCheckpoint, Long> {
+
+    /**
+     * Find the rollover checkpoint of a month.
+     *
+     * @param month the month budgets are carried into
+     * @return the checkpoint if the rollover was started
+     */
+    Optional<BudgetRolloverCheckpoint> findByMonth(YearMonth month);
+}
@@ -0,0 +1,33 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.BudgetVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Repository interface for the append-only budget history.
+ */
+@Repository
+public interface BudgetVersionRepository extends JpaRepository<BudgetVersion, Long> {
+
+    /**
+     * Find the versions written before a point in time of every personal budget that was
+     * ever in a user's month, ordered by budget and then oldest first. A budget's versions
+     * are all returned, even those in other months, so the caller can tell whether it
+     * had moved away from the month at that point.
+     *
+     * @param userId the user ID
+     * @param month the month
+     * @param before the point in time, exclusive
+     * @return the versions
+     */
+    @Query("SELECT v FROM BudgetVersion v WHERE v.validFrom < ?3 AND v.budgetId IN " +
+           "(SELECT w.budgetId FROM BudgetVersion w WHERE w.userId = ?1 AND w.month = ?2 AND w.householdId IS NULL) " +
+           "ORDER BY v.budgetId, v.validFrom, v.id")
+    List<BudgetVersion> findVersionsOfMonthBefore(Long userId, YearMonth month, LocalDateTime before);
+}
@@ -0,0 +1,23 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.ForecastProfileEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for learned spend forecast profiles.
+ */
+@Repository
+public interface ForecastProfileRepository extends JpaRepository<ForecastProfileEntry, Long> {
+
+    /**
+     * Find the learned profile of a user in a category.
+     *
+     * @param userId the user ID
+     * @param category the category
+     * @return the profile if one was saved
+     */
+    Optional<ForecastProfileEntry> findByUserIdAndCategory(Long userId, String category);
+}
@@ -0,0 +1,31 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.HouseholdMember;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for household memberships.
+ */
+@Repository
+public interface HouseholdMemberRepository extends JpaRepository<HouseholdMember, Long> {
+
+    /**
+     * Find the members of a household.
+     *
+     * @param householdId the household ID
+     * @return list of memberships
+     */
+    List<HouseholdMember> findByHouseholdIdOrderByUserId(Long householdId);
+
+    /**
+     * Find the household membership of a user.
+     *
+     * @param userId the user ID
+     * @return the membership if the user belongs to a household
+     */
+    Optional<HouseholdMember> findByUserId(Long userId);
+}
@@ -0,0 +1,12 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.Household;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for households.
+ */
+@Repository
+public interface HouseholdRepository extends JpaRepository<Household, Long> {
+}
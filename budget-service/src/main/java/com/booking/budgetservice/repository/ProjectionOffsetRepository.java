@@ -0,0 +1,23 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.ProjectionOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for spend projection checkpoint offsets.
+ */
+@Repository
+public interface ProjectionOffsetRepository extends JpaRepository<ProjectionOffset, Long> {
+
+    /**
+     * Find the checkpointed offset for a topic partition.
+     *
+     * @param topic the topic name
+     * @param kafkaPartition the partition
+     * @return the offset if a checkpoint exists
+     */
+    Optional<ProjectionOffset> findByTopicAndKafkaPartition(String topic, int kafkaPartition);
+}
@@ -0,0 +1,24 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.SpendHistoryEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Repository interface for daily spend history.
+ */
+@Repository
+public interface SpendHistoryRepository extends JpaRepository<SpendHistoryEntry, Long> {
+
+    /**
+     * Find the spend history of a user in a month, one entry per category.
+     *
+     * @param userId the user ID
+     * @param month the month
+     * @return the history entries
+     */
+    List<SpendHistoryEntry> findByUserIdAndMonth(Long userId, YearMonth month);
+}
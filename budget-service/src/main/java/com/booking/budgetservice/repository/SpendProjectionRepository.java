@@ -0,0 +1,22 @@
+package com.booking.budgetservice.repository;
+
+import com.booking.budgetservice.model.SpendProjectionEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for checkpointed spend projection rows.
+ */
+@Repository
+public interface SpendProjectionRepository extends JpaRepository<SpendProjectionEntry, Long> {
+
+    /**
+     * Find all checkpointed totals that originate from a partition.
+     *
+     * @param kafkaPartition the expenses topic partition
+     * @return list of projection rows
+     */
+    List<SpendProjectionEntry> findByKafkaPartition(int kafkaPartition);
+}
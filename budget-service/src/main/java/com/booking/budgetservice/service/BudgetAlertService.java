@@ -1,16 +1,29 @@
 package com.booking.budgetservice.service;
 
 import com.booking.budgetservice.event.BudgetAlertEvent;
+import com.booking.budgetservice.model.AlertLevel;
+import com.booking.budgetservice.model.AlertRuleType;
 import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.model.Money;
+import com.booking.budgetservice.service.household.HouseholdMembership;
+import com.booking.budgetservice.service.rules.AlertRuleService;
+import com.booking.budgetservice.service.rules.AlertRules;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 /**
  * Service responsible for monitoring budgets and generating alerts when thresholds are exceeded.
+ * Thresholds come from the budget's compiled {@link AlertRules}, by default warning at 80%,
+ * critical at 95% and overspent. Each budget escalates NONE -> WARNING -> CRITICAL -> OVERSPENT
+ * at most once per level; a step up alerts every fired rule above the level reached before.
+ * Alerts of a shared budget are evaluated once and sent to every member of its household.
  */
 @Service
 @RequiredArgsConstructor
@@ -18,10 +31,9 @@ import java.math.RoundingMode;
 public class BudgetAlertService {
 
     private final KafkaProducerService kafkaProducerService;
-    
-    // Threshold percentages for different alert levels
-    private static final BigDecimal WARNING_THRESHOLD = new BigDecimal("0.80"); // 80%
-    private static final BigDecimal CRITICAL_THRESHOLD = new BigDecimal("0.95"); // 95%
+    private final BudgetAlertStateService budgetAlertStateService;
+    private final AlertRuleService alertRuleService;
+    private final HouseholdMembership householdMembership;
     
     /**
      * Checks if the current spending has exceeded any thresholds and sends alerts if necessary.
@@ -30,43 +42,210 @@ public class BudgetAlertService {
      * @param currentSpending the current spending amount
      */
     public void checkBudgetThresholds(Budget budget, BigDecimal currentSpending) {
-        if (budget.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+        checkBudgetThresholds(budget, Money.toMinorUnits(currentSpending));
+    }
+    
+    /**
+     * Checks if the current spending has exceeded any thresholds and sends alerts if necessary.
+     * The comparison is done on minor units, so no objects are created unless an alert is sent.
+     * An alert is only sent when the budget reaches a level it has not reached before.
+     * 
+     * @param budget the budget to check
+     * @param currentSpendingMinorUnits the current spending amount in minor units
+     */
+    public void checkBudgetThresholds(Budget budget, long currentSpendingMinorUnits) {
+        long limit = Money.toMinorUnits(budget.getAmount());
+        if (limit <= 0) {
+            log.warn("Budget amount is zero or negative for budget ID: {}", budget.getId());
+            return;
+        }
+        
+        AlertRules rules = alertRuleService.rulesFor(budget);
+        int rule = rules.highestReached(currentSpendingMinorUnits);
+        if (rule < 0 || !budgetAlertStateService.escalate(budget, rules.level(rule))) {
+            return;
+        }
+        sendRuleAlert(budget, rules, rule, 0L, currentSpendingMinorUnits);
+    }
+    
+    /**
+     * Sends an alert for every rule crossed by moving from the previous to the current spending,
+     * except level rules at or below the level the budget already reached, so spending that
+     * dips below a threshold and crosses it again does not alert twice. Rules without a level,
+     * such as single-expense rules, alert on every crossing. All rules are checked in one pass
+     * over the compiled triggers. The reached level is only recorded once the surrounding
+     * transaction commits, so replaying an aborted change yields the same alerts; this is
+     * what the transactional expense consumer relies on.
+     * 
+     * @param budget the budget to check
+     * @param previousSpendingMinorUnits the spending before the change in minor units
+     * @param currentSpendingMinorUnits the spending after the change in minor units
+     */
+    public void checkThresholdCrossing(Budget budget, long previousSpendingMinorUnits, 
+                                       long currentSpendingMinorUnits) {
+        long limit = Money.toMinorUnits(budget.getAmount());
+        if (limit <= 0) {
             log.warn("Budget amount is zero or negative for budget ID: {}", budget.getId());
             return;
         }
         
-        BigDecimal percentageUsed = currentSpending.divide(budget.getAmount(), 2, RoundingMode.HALF_UP);
+        AlertRules rules = alertRuleService.rulesFor(budget);
+        long fired = rules.crossed(previousSpendingMinorUnits, currentSpendingMinorUnits);
+        if (fired == 0L) {
+            return;
+        }
+        AlertLevel reached = budgetAlertStateService.escalateOnCommit(budget, rules.level(fired));
+        for (long mask = fired; mask != 0L; mask &= mask - 1) {
+            int rule = Long.numberOfTrailingZeros(mask);
+            AlertLevel level = rules.level(rule);
+            if (level == AlertLevel.NONE || level.isHigherThan(reached)) {
+                sendRuleAlert(budget, rules, rule, previousSpendingMinorUnits, currentSpendingMinorUnits);
+            }
+        }
+    }
+    
+    /**
+     * Sends an early alert when spending is projected to exceed a projected overrun rule,
+     * by default the budget amount, by month end. Only one such alert is sent per budget,
+     * month and amount, and none once actual spending reached the rule. Like a reached level,
+     * the report is only recorded once the surrounding transaction commits, so an aborted
+     * batch does not suppress the alert of its redelivery.
+     * 
+     * @param budget the budget to check
+     * @param currentSpendingMinorUnits the current spending amount in minor units
+     * @param projectedSpendingMinorUnits the projected month-end spending in minor units
+     */
+    public void checkProjectedOverrun(Budget budget, long currentSpendingMinorUnits, 
+                                      long projectedSpendingMinorUnits) {
+        long limit = Money.toMinorUnits(budget.getAmount());
+        if (limit <= 0) {
+            return;
+        }
+        AlertRules rules = alertRuleService.rulesFor(budget);
+        int rule = rules.projected(currentSpendingMinorUnits, projectedSpendingMinorUnits);
+        if (rule < 0 || !budgetAlertStateService.markProjectedOverrunOnCommit(budget)) {
+            return;
+        }
         
-        // Check if spending has exceeded critical threshold
-        if (percentageUsed.compareTo(CRITICAL_THRESHOLD) >= 0) {
-            sendBudgetAlert(budget, currentSpending, CRITICAL_THRESHOLD, 
-                    "CRITICAL: Budget limit almost reached! You've used " + 
-                    percentageUsed.multiply(new BigDecimal("100")).setScale(0, RoundingMode.HALF_UP) + 
-                    "% of your budget.");
+        BigDecimal projectedSpending = Money.toBigDecimal(projectedSpendingMinorUnits);
+        BudgetAlertEvent alertEvent = BudgetAlertEvent.builder()
+                .userId(String.valueOf(budget.getUserId()))
+                .budgetId(String.valueOf(budget.getId()))
+                .budgetName(budgetNameOf(budget))
+                .category(budget.getCategory())
+                .budgetLimit(budget.getAmount())
+                .currentSpending(Money.toBigDecimal(currentSpendingMinorUnits))
+                .thresholdPercentage(thresholdRatio(rules, rule))
+                .projectedSpending(projectedSpending)
+                .alertMessage(projectedSpendingMinorUnits > limit
+                        ? "PROJECTED: At your current pace you will spend " + projectedSpending + 
+                        " by the end of the month, " + 
+                        Money.toBigDecimal(projectedSpendingMinorUnits - limit) + " over your budget."
+                        : "PROJECTED: At your current pace you will spend " + projectedSpending + 
+                        " by the end of the month, over " + rules.threshold(rule) + "% of your budget.")
+                .build();
+        
+        // Sent once per budget and month, so there is nothing to coalesce it with
+        publish(budget, alertEvent, null);
+        log.debug("Projected overrun alert raised for budget ID: {}, projected: {}", budget.getId(), projectedSpending);
+    }
+    
+    /**
+     * Forget the alert level reached by a budget so the next crossing alerts again.
+     * 
+     * @param budgetId the budget ID
+     */
+    public void resetAlertState(Long budgetId) {
+        budgetAlertStateService.reset(budgetId);
+    }
+    
+    /**
+     * Sends the alert for a fired spend or single-expense rule.
+     * 
+     * @param budget the budget that triggered the alert
+     * @param rules the compiled rules of the budget
+     * @param rule the fired rule
+     * @param previousSpendingMinorUnits the spending before the change in minor units
+     * @param currentSpendingMinorUnits the current spending amount in minor units
+     */
+    private void sendRuleAlert(Budget budget, AlertRules rules, int rule, 
+                               long previousSpendingMinorUnits, long currentSpendingMinorUnits) {
+        long limit = rules.limit();
+        BigDecimal currentSpending = Money.toBigDecimal(currentSpendingMinorUnits);
+        BigDecimal threshold = thresholdRatio(rules, rule);
+        AlertLevel level = rules.level(rule);
+        if (rules.type(rule) == AlertRuleType.SINGLE_EXPENSE) {
+            // Every large expense is an alert of its own
+            sendBudgetAlert(budget, null, currentSpending, threshold, 
+                    "LARGE EXPENSE: A single expense of " + 
+                    Money.toBigDecimal(currentSpendingMinorUnits - previousSpendingMinorUnits) + 
+                    " was charged to your budget.");
+            return;
         }
-        // Check if spending has exceeded warning threshold
-        else if (percentageUsed.compareTo(WARNING_THRESHOLD) >= 0) {
-            sendBudgetAlert(budget, currentSpending, WARNING_THRESHOLD, 
-                    "WARNING: You've used " + 
-                    percentageUsed.multiply(new BigDecimal("100")).setScale(0, RoundingMode.HALF_UP) + 
-                    "% of your budget.");
+        
+        long usedBps = Money.basisPointsOf(currentSpendingMinorUnits, limit);
+        // Repeated crossings of one threshold within the coalescing window become one alert
+        String coalesceKey = rules.type(rule) + "@" + rules.trigger(rule);
+        if (level == AlertLevel.OVERSPENT) {
+            sendBudgetAlert(budget, coalesceKey, currentSpending, threshold, 
+                    "OVERSPENT: You've exceeded your budget by " + 
+                    Money.toBigDecimal(currentSpendingMinorUnits - limit) + ".");
+        } else if (rules.type(rule) == AlertRuleType.REMAINING_BELOW) {
+            sendBudgetAlert(budget, coalesceKey, currentSpending, threshold, 
+                    prefixOf(level) + "Only " + Money.toBigDecimal(limit - currentSpendingMinorUnits) + 
+                    " of your budget is left.");
+        } else if (level == AlertLevel.CRITICAL) {
+            sendBudgetAlert(budget, coalesceKey, currentSpending, threshold, 
+                    "CRITICAL: Budget limit almost reached! You've used " + 
+                    formatPercentage(usedBps) + "% of your budget.");
+        } else {
+            sendBudgetAlert(budget, coalesceKey, currentSpending, threshold, 
+                    prefixOf(level) + "You've used " + 
+                    formatPercentage(usedBps) + "% of your budget.");
         }
     }
     
+    private static String prefixOf(AlertLevel level) {
+        return level == AlertLevel.NONE ? "NOTICE: " : level.name() + ": ";
+    }
+    
+    /**
+     * The trigger of a rule as a fraction of the budget, 0.80 for 80%.
+     * 
+     * @param rules the compiled rules
+     * @param rule the rule
+     * @return the fraction
+     */
+    private static BigDecimal thresholdRatio(AlertRules rules, int rule) {
+        long bps = Money.basisPointsOf(rules.trigger(rule), rules.limit());
+        return BigDecimal.valueOf(bps, 4).setScale(2, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * Formats a basis point value as a whole percentage, rounding half up.
+     * 
+     * @param basisPoints the value in basis points
+     * @return the whole percentage
+     */
+    private static long formatPercentage(long basisPoints) {
+        return (basisPoints + 50) / 100;
+    }
+    
     /**
      * Creates and sends a budget alert event.
      * 
      * @param budget the budget that triggered the alert
+     * @param coalesceKey the rule pending alerts of the budget are coalesced by, or null
      * @param currentSpending the current spending amount
      * @param thresholdPercentage the threshold percentage that was exceeded
      * @param alertMessage the alert message
      */
-    private void sendBudgetAlert(Budget budget, BigDecimal currentSpending, 
+    private void sendBudgetAlert(Budget budget, String coalesceKey, BigDecimal currentSpending, 
                                BigDecimal thresholdPercentage, String alertMessage) {
         BudgetAlertEvent alertEvent = BudgetAlertEvent.builder()
-                .userId(budget.getUserId())
-                .budgetId(budget.getId())
-                .budgetName(budget.getName())
+                .userId(String.valueOf(budget.getUserId()))
+                .budgetId(String.valueOf(budget.getId()))
+                .budgetName(budgetNameOf(budget))
                 .category(budget.getCategory())
                 .budgetLimit(budget.getAmount())
                 .currentSpending(currentSpending)
@@ -74,8 +253,34 @@ public class BudgetAlertService {
                 .alertMessage(alertMessage)
                 .build();
         
-        kafkaProducerService.publishBudgetAlertEvent(alertEvent);
-        log.info("Budget alert sent for budget ID: {}, threshold: {}%", 
+        publish(budget, alertEvent, coalesceKey);
+        log.debug("Budget alert raised for budget ID: {}, threshold: {}%", 
                 budget.getId(), thresholdPercentage.multiply(new BigDecimal("100")));
     }
-}
\ No newline at end of file
+    
+    private static String budgetNameOf(Budget budget) {
+        String name = budget.getCategory() + " " + budget.getMonth();
+        return budget.getHouseholdId() == null ? name : "Household " + name;
+    }
+    
+    /**
+     * Publishes an alert to the owner of a personal budget, or to every member of the
+     * household of a shared budget in a single publish.
+     * 
+     * @param budget the budget that triggered the alert
+     * @param alertEvent the alert, addressed to the budget's user
+     * @param coalesceKey the rule pending alerts of the budget are coalesced by, or null
+     */
+    private void publish(Budget budget, BudgetAlertEvent alertEvent, String coalesceKey) {
+        if (budget.getHouseholdId() == null) {
+            kafkaProducerService.publishBudgetAlertEvent(alertEvent, coalesceKey);
+            return;
+        }
+        Set<Long> members = householdMembership.membersOf(budget.getHouseholdId());
+        List<BudgetAlertEvent> events = new ArrayList<>(members.size());
+        for (Long member : members) {
+            events.add(alertEvent.toBuilder().userId(String.valueOf(member)).build());
+        }
+        kafkaProducerService.publishBudgetAlertEvents(events, coalesceKey);
+    }
+}
@@ -0,0 +1,258 @@
+package com.booking.budgetservice.service;
+
+import com.booking.budgetservice.model.AlertLevel;
+import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.model.BudgetAlertState;
+import com.booking.budgetservice.repository.BudgetAlertStateRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service that tracks the alert level already reached by each budget, so that every
+ * threshold crossing is reported once instead of on every subsequent expense.
+ * <p>
+ * The first state of a budget is created with {@code INSERT ... ON CONFLICT DO NOTHING},
+ * so a concurrent first insert never fails the caller's transaction; the loser reads
+ * the row the winner committed and decides against it.
+ * <p>
+ * Escalations and projected overruns decided inside a transaction that must be
+ * replayable, such as the expense consumer's Kafka transaction, are only written once it
+ * commits: an aborted and
+ * redelivered batch then finds the same level as the first attempt and raises the same
+ * alerts, while a committed one is never alerted again.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BudgetAlertStateService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO budget_alert_states " +
+            "(budget_id, month, budget_amount, level, projected_overrun_alerted, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (budget_id) DO NOTHING";
+
+    private final BudgetAlertStateRepository budgetAlertStateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Move a budget to the given level if it is higher than the level already reached.
+     * States recorded for another month or budget amount count as {@link AlertLevel#NONE}.
+     *
+     * @param budget the budget
+     * @param level the level the current spending corresponds to
+     * @return true if the budget escalated and an alert should be emitted
+     */
+    @Transactional
+    public boolean escalate(Budget budget, AlertLevel level) {
+        if (level == AlertLevel.NONE) {
+            return false;
+        }
+        
+        BudgetAlertState state = budgetAlertStateRepository.findByBudgetId(budget.getId()).orElse(null);
+        if (state == null) {
+            if (insertState(budget, level, false)) {
+                return true;
+            }
+            state = concurrentlyCreatedState(budget);
+        }
+        
+        AlertLevel current = state.appliesTo(budget) ? state.getLevel() : AlertLevel.NONE;
+        if (!level.isHigherThan(current)) {
+            return false;
+        }
+        
+        if (!state.appliesTo(budget)) {
+            state.setProjectedOverrunAlerted(false);
+        }
+        state.setMonth(budget.getMonth());
+        state.setBudgetAmount(budget.getAmount());
+        state.setLevel(level);
+        budgetAlertStateRepository.save(state);
+        return true;
+    }
+
+    /**
+     * Decide whether a budget escalates to the given level without writing the decision
+     * until the surrounding transaction commits; without one it is written at once.
+     * Escalations already decided in the same transaction count as reached.
+     *
+     * @param budget the budget
+     * @param level the level the current spending corresponds to
+     * @return the level the budget had reached before, so rules at or below it are not alerted again
+     */
+    public AlertLevel escalateOnCommit(Budget budget, AlertLevel level) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            AlertLevel reached = reachedLevel(budget);
+            transactionTemplate.executeWithoutResult(status -> escalate(budget, level));
+            return reached;
+        }
+
+        Map<Long, AlertLevel> pending = pendingDecisions().levels();
+        AlertLevel reached = pending.get(budget.getId());
+        if (reached == null) {
+            reached = reachedLevel(budget);
+        }
+        if (level.isHigherThan(reached)) {
+            pending.put(budget.getId(), level);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    // Recorded in a transaction of its own, the surrounding one is already over
+                    transactionTemplate.executeWithoutResult(status -> escalate(budget, level));
+                }
+            });
+        }
+        return reached;
+    }
+
+    /**
+     * Decide whether a projected overrun is reported for a budget without recording it
+     * until the surrounding transaction commits; without one it is recorded at once.
+     * A projected overrun already decided in the same transaction counts as reported.
+     *
+     * @param budget the budget
+     * @return true if no projected overrun was reported yet and an alert should be emitted
+     */
+    public boolean markProjectedOverrunOnCommit(Budget budget) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Boolean.TRUE.equals(transactionTemplate.execute(status -> markProjectedOverrun(budget)));
+        }
+
+        Set<Long> pending = pendingDecisions().projectedOverruns();
+        if (pending.contains(budget.getId()) || projectedOverrunReported(budget)) {
+            return false;
+        }
+        pending.add(budget.getId());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                transactionTemplate.executeWithoutResult(status -> markProjectedOverrun(budget));
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Record that a projected overrun was reported for a budget.
+     * States recorded for another month or budget amount start over.
+     *
+     * @param budget the budget
+     * @return true if no projected overrun was reported yet and an alert should be emitted
+     */
+    @Transactional
+    public boolean markProjectedOverrun(Budget budget) {
+        BudgetAlertState state = budgetAlertStateRepository.findByBudgetId(budget.getId()).orElse(null);
+        if (state == null) {
+            if (insertState(budget, AlertLevel.NONE, true)) {
+                return true;
+            }
+            state = concurrentlyCreatedState(budget);
+        }
+        
+        if (!state.appliesTo(budget)) {
+            state.setMonth(budget.getMonth());
+            state.setBudgetAmount(budget.getAmount());
+            state.setLevel(AlertLevel.NONE);
+        } else if (Boolean.TRUE.equals(state.getProjectedOverrunAlerted())) {
+            return false;
+        }
+        state.setProjectedOverrunAlerted(true);
+        budgetAlertStateRepository.save(state);
+        return true;
+    }
+
+    /**
+     * Forget the alert level of a budget, e.g. after it was changed or deleted.
+     *
+     * @param budgetId the budget ID
+     */
+    @Transactional
+    public void reset(Long budgetId) {
+        budgetAlertStateRepository.deleteByBudgetId(budgetId);
+    }
+
+    /**
+     * The level a budget reached as recorded, NONE for a state of another month or amount.
+     */
+    private AlertLevel reachedLevel(Budget budget) {
+        return budgetAlertStateRepository.readByBudgetId(budget.getId())
+                .filter(state -> state.appliesTo(budget))
+                .map(BudgetAlertState::getLevel)
+                .orElse(AlertLevel.NONE);
+    }
+
+    /**
+     * Whether a projected overrun was recorded for a budget, false for a state of another month or amount.
+     */
+    private boolean projectedOverrunReported(Budget budget) {
+        return budgetAlertStateRepository.readByBudgetId(budget.getId())
+                .filter(state -> state.appliesTo(budget))
+                .map(state -> Boolean.TRUE.equals(state.getProjectedOverrunAlerted()))
+                .orElse(false);
+    }
+
+    /**
+     * The decisions of the current transaction, dropped when it completes.
+     */
+    private PendingDecisions pendingDecisions() {
+        PendingDecisions pending = (PendingDecisions) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+        PendingDecisions created = new PendingDecisions(new HashMap<>(), new HashSet<>());
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(BudgetAlertStateService.this);
+            }
+        });
+        return created;
+    }
+
+    /**
+     * Create the first state of a budget unless one exists.
+     *
+     * @return true if this call created it
+     */
+    private boolean insertState(Budget budget, AlertLevel level, boolean projectedOverrunAlerted) {
+        return jdbcTemplate.update(INSERT_SQL,
+                budget.getId(),
+                budget.getMonth().toString(),
+                budget.getAmount(),
+                level.name(),
+                projectedOverrunAlerted,
+                Timestamp.valueOf(LocalDateTime.now())) == 1;
+    }
+
+    /**
+     * Read, and lock, the state another transaction created while this one found none.
+     * The conflicting insert only returns once that transaction committed, so the row is visible.
+     */
+    private BudgetAlertState concurrentlyCreatedState(Budget budget) {
+        log.debug("Alert state for budget {} was created concurrently", budget.getId());
+        return budgetAlertStateRepository.findByBudgetId(budget.getId())
+                .orElseThrow(() -> new IllegalStateException(
+                        "Alert state for budget " + budget.getId() + " vanished after a conflicting insert"));
+    }
+
+    /**
+     * Levels per budget ID and budgets with a projected overrun decided in one transaction.
+     */
+    private record PendingDecisions(Map<Long, AlertLevel> levels, Set<Long> projectedOverruns) {
+    }
+}
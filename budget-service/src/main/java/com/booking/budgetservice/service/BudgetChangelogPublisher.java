@@ -0,0 +1,70 @@
+package com.booking.budgetservice.service;
+
+import com.booking.budgetservice.event.BudgetChangeEvent;
+import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.service.projection.SpendKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+
+/**
+ * Service responsible for publishing budget state to the compacted budgets changelog,
+ * which the spend aggregation topology joins against.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BudgetChangelogPublisher {
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${spring.kafka.topic.budgets-changelog:budgets-changelog}")
+    private String budgetsChangelogTopic;
+
+    /**
+     * Publish the current state of a budget. Shared budgets are not published, the
+     * topology joins spend per user and has no household totals.
+     *
+     * @param budget the budget
+     */
+    public void publishBudget(Budget budget) {
+        if (budget.getHouseholdId() != null) {
+            return;
+        }
+        BudgetChangeEvent event = BudgetChangeEvent.builder()
+                .budgetId(budget.getId())
+                .userId(budget.getUserId())
+                .category(budget.getCategory())
+                .month(budget.getMonth().toString())
+                .amount(budget.getAmount())
+                .build();
+        send(keyOf(budget.getUserId(), budget.getCategory(), budget.getMonth()), event);
+    }
+
+    /**
+     * Publish a tombstone for a budget key that no longer exists.
+     *
+     * @param userId the user ID
+     * @param category the category
+     * @param month the month
+     */
+    public void publishRemoved(Long userId, String category, YearMonth month) {
+        send(keyOf(userId, category, month), null);
+    }
+
+    private void send(String key, BudgetChangeEvent event) {
+        kafkaTemplate.send(budgetsChangelogTopic, key, event).whenComplete((result, ex) -> {
+            if (ex != null) {
+                log.error("Unable to publish budget change for key=[{}] due to : {}", key, ex.getMessage());
+            }
+        });
+    }
+
+    private static String keyOf(Long userId, String category, YearMonth month) {
+        return SpendKey.format(userId, category, month);
+    }
+}
@@ -0,0 +1,269 @@
+package com.booking.budgetservice.service;
+
+import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.model.BudgetRolloverCheckpoint;
+import com.booking.budgetservice.model.Money;
+import com.booking.budgetservice.repository.BudgetRolloverCheckpointRepository;
+import com.booking.budgetservice.service.history.BudgetHistoryService;
+import com.booking.budgetservice.service.projection.SpendReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Service that carries budgets marked for carry-forward into the next month.
+ * <p>
+ * Source budgets are read in keyset pages ordered by user and ID. For each page the
+ * budgets the users already have in the target month are read with one range query,
+ * and the missing ones are written with a single batched insert. The page's last
+ * position is advanced in the same transaction, guarded by the previous position, so
+ * a restarted or concurrently running instance continues after the last committed
+ * page and never inserts a page twice. Parent links, alert rules and the first version
+ * in the budget history are restored with set-based statements once all pages are done. Shared budgets are carried with their
+ * household and their unspent amount is that of the household.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BudgetRolloverService {
+
+    private static final String CREATE_CHECKPOINT_SQL =
+            "INSERT INTO budget_rollover_checkpoints (month, last_user_id, last_budget_id, carried, completed) " +
+            "VALUES (?, 0, 0, 0, FALSE) ON CONFLICT (month) DO NOTHING";
+
+    private static final String SELECT_SOURCE_PAGE_SQL =
+            "SELECT b.id, b.user_id, b.household_id, b.category, b.amount, b.rollover_amount, b.rollover_unspent, " +
+            "EXISTS (SELECT 1 FROM budgets c WHERE c.parent_id = b.id) AS has_children " +
+            "FROM budgets b WHERE b.month = ? AND b.carry_forward = TRUE " +
+            "AND (b.user_id > ? OR (b.user_id = ? AND b.id > ?)) " +
+            "ORDER BY b.user_id, b.id LIMIT ?";
+
+    private static final String SELECT_EXISTING_SQL =
+            "SELECT user_id, household_id, category FROM budgets WHERE month = ? AND user_id BETWEEN ? AND ?";
+
+    private static final String INSERT_BUDGET_SQL =
+            "INSERT INTO budgets (user_id, household_id, category, amount, month, carry_forward, rollover_unspent, " +
+            "rollover_amount, created_at, updated_at) VALUES (?, ?, ?, ?, ?, TRUE, ?, ?, ?, ?)";
+
+    private static final String SELECT_INSERTED_SQL =
+            "SELECT id, user_id, household_id, category, amount FROM budgets " +
+            "WHERE month = ? AND user_id BETWEEN ? AND ? AND created_at = ?";
+
+    private static final String ADVANCE_CHECKPOINT_SQL =
+            "UPDATE budget_rollover_checkpoints SET last_user_id = ?, last_budget_id = ?, carried = carried + ? " +
+            "WHERE month = ? AND last_user_id = ? AND last_budget_id = ? AND completed = FALSE";
+
+    // Links each carried budget to the carried copy of its previous parent
+    private static final String LINK_PARENTS_SQL =
+            "UPDATE budgets c SET parent_id = np.id " +
+            "FROM budgets oc " +
+            "JOIN budgets op ON op.id = oc.parent_id " +
+            "JOIN budgets np ON np.user_id = op.user_id AND np.category = op.category AND np.month = ? " +
+            "AND np.household_id IS NULL " +
+            "WHERE oc.month = ? AND oc.carry_forward = TRUE AND oc.household_id IS NULL " +
+            "AND c.user_id = oc.user_id AND c.category = oc.category AND c.month = ? " +
+            "AND c.carry_forward = TRUE AND c.parent_id IS NULL AND c.household_id IS NULL";
+
+    // Carried budgets keep the alert rules of their source budget
+    private static final String COPY_ALERT_RULES_SQL =
+            "INSERT INTO budget_alert_rules (budget_id, rule_type, threshold) " +
+            "SELECT nb.id, r.rule_type, r.threshold FROM budget_alert_rules r " +
+            "JOIN budgets ob ON ob.id = r.budget_id " +
+            "JOIN budgets nb ON nb.user_id = ob.user_id AND nb.category = ob.category AND nb.month = ? " +
+            "AND nb.household_id IS NOT DISTINCT FROM ob.household_id " +
+            "WHERE ob.month = ? AND ob.carry_forward = TRUE AND nb.carry_forward = TRUE " +
+            "AND NOT EXISTS (SELECT 1 FROM budget_alert_rules x WHERE x.budget_id = nb.id)";
+
+    private static final String COMPLETE_CHECKPOINT_SQL =
+            "UPDATE budget_rollover_checkpoints SET completed = TRUE WHERE month = ? AND completed = FALSE";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BudgetRolloverCheckpointRepository checkpointRepository;
+    private final SpendReader spendReader;
+    private final BudgetStatusCache budgetStatusCache;
+    private final BudgetChangelogPublisher budgetChangelogPublisher;
+    private final BudgetHistoryService budgetHistoryService;
+
+    @Value("${app.budget-rollover.batch-size:5000}")
+    private int batchSize;
+
+    /**
+     * Carry budgets into the current month. Runs daily so a rollover missed at the
+     * start of the month, or interrupted, is completed on the next run.
+     */
+    @Scheduled(cron = "${app.budget-rollover.cron:0 5 0 * * *}")
+    public void rolloverCurrentMonth() {
+        rollover(YearMonth.now());
+    }
+
+    /**
+     * Carry the budgets of the previous month marked for carry-forward into a month.
+     *
+     * @param month the month to carry budgets into
+     */
+    public void rollover(YearMonth month) {
+        jdbcTemplate.update(CREATE_CHECKPOINT_SQL, month.toString());
+        BudgetRolloverCheckpoint checkpoint = checkpointRepository.findByMonth(month).orElseThrow();
+        if (checkpoint.isCompleted()) {
+            return;
+        }
+
+        YearMonth previous = month.minusMonths(1);
+        long lastUserId = checkpoint.getLastUserId();
+        long lastBudgetId = checkpoint.getLastBudgetId();
+        long carried = 0L;
+        log.info("Carrying budgets from {} into {} after user {} budget {}",
+                previous, month, lastUserId, lastBudgetId);
+
+        while (true) {
+            List<SourceBudget> page = jdbcTemplate.query(SELECT_SOURCE_PAGE_SQL,
+                    (rs, rowNum) -> new SourceBudget(
+                            rs.getLong("id"),
+                            rs.getLong("user_id"),
+                            rs.getObject("household_id", Long.class),
+                            rs.getString("category"),
+                            rs.getBigDecimal("amount"),
+                            rs.getBigDecimal("rollover_amount"),
+                            rs.getBoolean("rollover_unspent"),
+                            rs.getBoolean("has_children")),
+                    previous.toString(), lastUserId, lastUserId, lastBudgetId, batchSize);
+            if (page.isEmpty()) {
+                break;
+            }
+
+            List<Budget> inserted = carryPage(page, previous, month, lastUserId, lastBudgetId);
+            if (inserted == null) {
+                log.info("Rollover into {} is being run elsewhere, stopping", month);
+                return;
+            }
+            inserted.forEach(budgetChangelogPublisher::publishBudget);
+            carried += inserted.size();
+
+            SourceBudget last = page.get(page.size() - 1);
+            lastUserId = last.userId();
+            lastBudgetId = last.id();
+        }
+
+        Integer linked = transactionTemplate.execute(status -> {
+            int parents = jdbcTemplate.update(LINK_PARENTS_SQL, month.toString(), previous.toString(), month.toString());
+            jdbcTemplate.update(COPY_ALERT_RULES_SQL, month.toString(), previous.toString());
+            budgetHistoryService.recordCarried(month);
+            jdbcTemplate.update(COMPLETE_CHECKPOINT_SQL, month.toString());
+            return parents;
+        });
+        budgetStatusCache.reloadMonth(month);
+        log.info("Carried {} budgets from {} into {}, linked {} to their parents", carried, previous, month, linked);
+    }
+
+    /**
+     * Insert the missing budgets of one page and advance the checkpoint past it.
+     *
+     * @return the inserted budgets, or null if another run advanced the checkpoint first
+     */
+    private List<Budget> carryPage(List<SourceBudget> page, YearMonth previous, YearMonth month,
+                                   long lastUserId, long lastBudgetId) {
+        long firstUser = page.get(0).userId();
+        SourceBudget last = page.get(page.size() - 1);
+        LocalDate today = LocalDate.now();
+
+        return transactionTemplate.execute(status -> {
+            Set<String> existing = new HashSet<>();
+            jdbcTemplate.query(SELECT_EXISTING_SQL,
+                    rs -> {
+                        existing.add(keyOf(rs.getLong("user_id"), rs.getObject("household_id", Long.class),
+                                rs.getString("category")));
+                    },
+                    month.toString(), firstUser, last.userId());
+
+            List<Object[]> args = new ArrayList<>();
+            Set<String> carriedKeys = new HashSet<>();
+            for (SourceBudget source : page) {
+                String key = keyOf(source.userId(), source.householdId(), source.category());
+                if (existing.contains(key)) {
+                    continue;
+                }
+                carriedKeys.add(key);
+                BigDecimal rollover = rolloverOf(source, previous);
+                BigDecimal amount = baseAmountOf(source).add(rollover);
+                args.add(new Object[]{source.userId(), source.householdId(), source.category(), amount, month.toString(),
+                        source.rolloverUnspent(), rollover, Date.valueOf(today), Date.valueOf(today)});
+            }
+            if (!args.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_BUDGET_SQL, args);
+            }
+
+            int advanced = jdbcTemplate.update(ADVANCE_CHECKPOINT_SQL, last.userId(), last.id(), args.size(),
+                    month.toString(), lastUserId, lastBudgetId);
+            if (advanced == 0) {
+                status.setRollbackOnly();
+                return null;
+            }
+            if (args.isEmpty()) {
+                return List.of();
+            }
+
+            List<Budget> inserted = new ArrayList<>(args.size());
+            jdbcTemplate.query(SELECT_INSERTED_SQL,
+                    rs -> {
+                        Long householdId = rs.getObject("household_id", Long.class);
+                        String key = keyOf(rs.getLong("user_id"), householdId, rs.getString("category"));
+                        if (carriedKeys.contains(key)) {
+                            inserted.add(Budget.builder()
+                                    .id(rs.getLong("id"))
+                                    .userId(rs.getLong("user_id"))
+                                    .householdId(householdId)
+                                    .category(rs.getString("category"))
+                                    .amount(rs.getBigDecimal("amount"))
+                                    .month(month)
+                                    .build());
+                        }
+                    },
+                    month.toString(), firstUser, last.userId(), Date.valueOf(today));
+            return inserted;
+        });
+    }
+
+    private static String keyOf(long userId, Long householdId, String category) {
+        return userId + "|" + householdId + "|" + category;
+    }
+
+    /**
+     * The amount the user set, without what was carried over into it.
+     */
+    private static BigDecimal baseAmountOf(SourceBudget source) {
+        return source.rolloverAmount() == null ? source.amount() : source.amount().subtract(source.rolloverAmount());
+    }
+
+    /**
+     * The unspent amount to carry over. Group budgets carry their own amount only,
+     * their children carry over what was left in each category.
+     */
+    private BigDecimal rolloverOf(SourceBudget source, YearMonth previous) {
+        if (!source.rolloverUnspent() || source.hasChildren()) {
+            return BigDecimal.ZERO;
+        }
+        long spent = source.householdId() == null
+                ? spendReader.getSpent(source.userId(), source.category(), previous)
+                : spendReader.getHouseholdSpent(source.householdId(), source.category(), previous);
+        long unspent = Money.toMinorUnits(source.amount()) - spent;
+        return Money.toBigDecimal(Math.max(0L, unspent));
+    }
+
+    private record SourceBudget(long id, long userId, Long householdId, String category, BigDecimal amount,
+                                BigDecimal rolloverAmount, boolean rolloverUnspent, boolean hasChildren) {
+    }
+}
@@ -1,10 +1,13 @@
 package com.booking.budgetservice.service;
 
 import com.booking.budgetservice.dto.BudgetDTO;
+import com.booking.budgetservice.dto.BudgetStatusDTO;
+import com.booking.budgetservice.dto.UserBudgetStatusDTO;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Service interface for budget operations.
@@ -80,12 +83,26 @@ public interface BudgetService {
     List<BudgetStatusDTO> getBudgetStatus(Long userId, YearMonth month);
 
     /**
-     * Check if a user is overspending in any category and generate alerts if needed.
+     * Compare budget vs expense for a user in a specific month as it was at the end of a day.
+     * Budgets are taken as they were then and charged with the spending recorded that day.
      *
      * @param userId the user ID
-     * @param category the expense category
-     * @param amount the expense amount
      * @param month the month
+     * @param asOf the day, today or later for the current status
+     * @return the status of each personal budget that existed then
      */
-    void checkBudgetAndGenerateAlerts(Long userId, String category, BigDecimal amount, YearMonth month);
+    List<BudgetStatusDTO> getBudgetStatus(Long userId, YearMonth month, LocalDate asOf);
+
+    /**
+     * Compute budget status for many users over a range of months.
+     * Budgets are fetched in set-based batches and each user-month that has budgets
+     * is handed to the sink as soon as its batch is ready.
+     *
+     * @param userIds the user IDs
+     * @param fromMonth the first month, inclusive
+     * @param toMonth the last month, inclusive
+     * @param sink receives one status per user and month
+     */
+    void streamBudgetStatus(List<Long> userIds, YearMonth fromMonth, YearMonth toMonth,
+                            Consumer<UserBudgetStatusDTO> sink);
 }
\ No newline at end of file
@@ -0,0 +1,362 @@
+package com.booking.budgetservice.service;
+
+import com.booking.budgetservice.dto.BudgetStatusDTO;
+import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.repository.BudgetRepository;
+import com.booking.budgetservice.service.household.HouseholdMembership;
+import com.booking.budgetservice.service.projection.SpendChangeListener;
+import com.booking.budgetservice.service.projection.SpendKey;
+import com.booking.budgetservice.service.projection.SpendReader;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Cache of budget status per user and month.
+ * <p>
+ * An entry is loaded from {@link BudgetRepository} on first access and afterwards kept
+ * current in place: budget writes replace the affected budget after their transaction
+ * commits, and spend deltas from the projection are added to the counters of a
+ * {@link BudgetTree} along the path from the leaf up. Status reads are therefore a map
+ * lookup and do not touch the database in steady state; the status DTOs of an entry are
+ * only built by the first read after a change. All changes to one entry go through
+ * {@link ConcurrentHashMap#compute}, so a load and a concurrent update of the same key
+ * are serialized. Registered {@link StatusListener}s are told about every entry that
+ * changed.
+ * <p>
+ * Budgets shared by a household are cached once per household and month, charged with the
+ * household total, and appended to each member's status. A change of a household entry is
+ * fanned out to the members with a cached entry without recomputing theirs.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BudgetStatusCache implements SpendChangeListener {
+
+    private final BudgetRepository budgetRepository;
+    private final SpendReader spendReader;
+    private final HouseholdMembership householdMembership;
+
+    private final ConcurrentHashMap<UserMonth, BudgetTree> entries = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<HouseholdMonth, BudgetTree> householdEntries = new ConcurrentHashMap<>();
+
+    private final List<StatusListener> statusListeners = new CopyOnWriteArrayList<>();
+
+    @Value("${app.budget-status-cache.max-entries:100000}")
+    private int maxEntries;
+
+    // Spend totals owned by other streams instances never reach onSpendChanged here,
+    // so in streams mode only budgets are cached and spend is read on every request
+    @Value("${app.kafka-streams.enabled:false}")
+    private boolean streamsEnabled;
+
+    /**
+     * Get the budget status for a user in a month, loading it on first access.
+     *
+     * @param userId the user ID
+     * @param month the month
+     * @return the budget status per category
+     */
+    public List<BudgetStatusDTO> getStatus(Long userId, YearMonth month) {
+        UserMonth key = new UserMonth(userId, month);
+        BudgetTree entry = entries.get(key);
+        if (entry == null) {
+            // Over capacity: serve without caching rather than grow without bound
+            entry = entries.size() >= maxEntries ? load(key) : entries.computeIfAbsent(key, this::load);
+        }
+        return withHousehold(userId, month, statusesOf(entry, spendOf(key)), false);
+    }
+
+    /**
+     * Get the budget status for a user in a month and keep it cached regardless of capacity,
+     * for callers that need to be told about its changes.
+     *
+     * @param userId the user ID
+     * @param month the month
+     * @return the budget status per category
+     */
+    public List<BudgetStatusDTO> retainStatus(Long userId, YearMonth month) {
+        UserMonth key = new UserMonth(userId, month);
+        BudgetTree entry = entries.computeIfAbsent(key, this::load);
+        return withHousehold(userId, month, statusesOf(entry, spendOf(key)), true);
+    }
+
+    /**
+     * Register a listener for status changes of cached entries.
+     *
+     * @param listener the listener
+     */
+    public void addStatusListener(StatusListener listener) {
+        statusListeners.add(listener);
+    }
+
+    /**
+     * Record a created or updated budget once the surrounding transaction commits.
+     *
+     * @param budget the saved budget
+     * @param previousMonth the month the budget belonged to before the change, or null if new
+     */
+    public void budgetSaved(Budget budget, YearMonth previousMonth) {
+        BudgetTree.Node node = BudgetTree.Node.of(budget);
+        Long userId = budget.getUserId();
+        YearMonth month = budget.getMonth();
+        if (budget.getHouseholdId() != null) {
+            Long householdId = budget.getHouseholdId();
+            afterCommit(() -> {
+                if (previousMonth != null && !previousMonth.equals(month)) {
+                    updateHousehold(new HouseholdMonth(householdId, previousMonth),
+                            (key, tree) -> tree.withoutBudget(node.id(), householdSpendOf(key)));
+                }
+                updateHousehold(new HouseholdMonth(householdId, month),
+                        (key, tree) -> tree.withBudget(node, householdSpendOf(key)));
+            });
+            return;
+        }
+        afterCommit(() -> {
+            if (previousMonth != null && !previousMonth.equals(month)) {
+                update(new UserMonth(userId, previousMonth),
+                        (key, tree) -> tree.withoutBudget(node.id(), spendOf(key)));
+            }
+            update(new UserMonth(userId, month),
+                    (key, tree) -> tree.withBudget(node, spendOf(key)));
+        });
+    }
+
+    /**
+     * Remove a deleted budget once the surrounding transaction commits.
+     *
+     * @param budget the deleted budget
+     */
+    public void budgetDeleted(Budget budget) {
+        Long budgetId = budget.getId();
+        if (budget.getHouseholdId() != null) {
+            HouseholdMonth householdMonth = new HouseholdMonth(budget.getHouseholdId(), budget.getMonth());
+            afterCommit(() -> updateHousehold(householdMonth,
+                    (key, tree) -> tree.withoutBudget(budgetId, householdSpendOf(key))));
+            return;
+        }
+        UserMonth userMonth = new UserMonth(budget.getUserId(), budget.getMonth());
+        afterCommit(() -> update(userMonth,
+                (key, tree) -> tree.withoutBudget(budgetId, spendOf(key))));
+    }
+
+    /**
+     * Reload the cached entries of a month after budgets were written in bulk.
+     *
+     * @param month the month
+     */
+    public void reloadMonth(YearMonth month) {
+        for (UserMonth userMonth : entries.keySet()) {
+            if (userMonth.month().equals(month)) {
+                update(userMonth, (key, tree) -> load(key));
+            }
+        }
+        for (HouseholdMonth householdMonth : householdEntries.keySet()) {
+            if (householdMonth.month().equals(month)) {
+                updateHousehold(householdMonth, (key, tree) -> loadHousehold(key));
+            }
+        }
+    }
+
+    /**
+     * Reload all cached entries, e.g. after the spend projection was replaced.
+     */
+    public void reloadAll() {
+        for (UserMonth userMonth : entries.keySet()) {
+            update(userMonth, (key, tree) -> load(key));
+        }
+        for (HouseholdMonth householdMonth : householdEntries.keySet()) {
+            updateHousehold(householdMonth, (key, tree) -> loadHousehold(key));
+        }
+    }
+
+    @Override
+    public void onSpendChanged(SpendKey spendKey, long spentMinorUnits) {
+        UserMonth userMonth = new UserMonth(spendKey.userId(), spendKey.month());
+        boolean[] changed = new boolean[1];
+        BudgetTree tree = entries.computeIfPresent(userMonth, (key, entry) -> {
+            // Only the leaf and its ancestors change, O(depth) rather than a rebuild
+            changed[0] = entry.applySpent(spendKey.category(), spentMinorUnits);
+            return entry;
+        });
+        if (changed[0]) {
+            notifyUser(userMonth, tree);
+        }
+    }
+
+    @Override
+    public void onHouseholdSpendChanged(SpendKey householdKey, long spentMinorUnits) {
+        HouseholdMonth householdMonth = new HouseholdMonth(householdKey.userId(), householdKey.month());
+        boolean[] changed = new boolean[1];
+        BudgetTree tree = householdEntries.computeIfPresent(householdMonth, (key, entry) -> {
+            changed[0] = entry.applySpent(householdKey.category(), spentMinorUnits);
+            return entry;
+        });
+        if (changed[0]) {
+            notifyHousehold(householdMonth, tree);
+        }
+    }
+
+    /**
+     * Drop entries for months that are no longer current, they are reloaded on demand.
+     */
+    @Scheduled(cron = "${app.budget-status-cache.eviction-cron:0 0 3 * * *}")
+    public void evictPastMonths() {
+        YearMonth oldest = YearMonth.now().minusMonths(1);
+        int before = entries.size();
+        entries.keySet().removeIf(key -> key.month().isBefore(oldest));
+        householdEntries.keySet().removeIf(key -> key.month().isBefore(oldest));
+        log.info("Evicted {} budget status cache entries older than {}", before - entries.size(), oldest);
+    }
+
+    private void update(UserMonth userMonth, BiFunction<UserMonth, BudgetTree, BudgetTree> change) {
+        BudgetTree[] previous = new BudgetTree[1];
+        BudgetTree updated = entries.computeIfPresent(userMonth, (key, tree) -> {
+            previous[0] = tree;
+            return change.apply(key, tree);
+        });
+        if (updated != null && updated != previous[0]) {
+            notifyUser(userMonth, updated);
+        }
+    }
+
+    private void updateHousehold(HouseholdMonth householdMonth,
+                                 BiFunction<HouseholdMonth, BudgetTree, BudgetTree> change) {
+        BudgetTree[] previous = new BudgetTree[1];
+        BudgetTree updated = householdEntries.computeIfPresent(householdMonth, (key, tree) -> {
+            previous[0] = tree;
+            return change.apply(key, tree);
+        });
+        if (updated != null && updated != previous[0]) {
+            notifyHousehold(householdMonth, updated);
+        }
+    }
+
+    private void notifyUser(UserMonth userMonth, BudgetTree tree) {
+        Long householdId = householdMembership.householdOf(userMonth.userId());
+        BudgetTree household = householdId == null ? null
+                : householdEntries.get(new HouseholdMonth(householdId, userMonth.month()));
+        notifyListeners(userMonth.userId(), userMonth.month(),
+                household == null ? tree::statuses : () -> concat(tree.statuses(), household.statuses()));
+    }
+
+    private void notifyHousehold(HouseholdMonth householdMonth, BudgetTree tree) {
+        for (Long member : householdMembership.membersOf(householdMonth.householdId())) {
+            BudgetTree personal = entries.get(new UserMonth(member, householdMonth.month()));
+            if (personal != null) {
+                notifyListeners(member, householdMonth.month(), () -> concat(personal.statuses(), tree.statuses()));
+            }
+        }
+    }
+
+    private void notifyListeners(Long userId, YearMonth month, Supplier<List<BudgetStatusDTO>> statuses) {
+        for (StatusListener listener : statusListeners) {
+            listener.onStatusChanged(userId, month, statuses);
+        }
+    }
+
+    /**
+     * Append the shared budgets of the user's household, if any, to its personal status.
+     */
+    private List<BudgetStatusDTO> withHousehold(Long userId, YearMonth month, List<BudgetStatusDTO> personal,
+                                                boolean retain) {
+        Long householdId = householdMembership.householdOf(userId);
+        if (householdId == null) {
+            return personal;
+        }
+        HouseholdMonth key = new HouseholdMonth(householdId, month);
+        BudgetTree entry = householdEntries.get(key);
+        if (entry == null) {
+            entry = !retain && householdEntries.size() >= maxEntries
+                    ? loadHousehold(key)
+                    : householdEntries.computeIfAbsent(key, this::loadHousehold);
+        }
+        return concat(personal, statusesOf(entry, householdSpendOf(key)));
+    }
+
+    private List<BudgetStatusDTO> statusesOf(BudgetTree tree, ToLongFunction<String> spend) {
+        return streamsEnabled ? BudgetTree.of(tree.nodes(), spend).statuses() : tree.statuses();
+    }
+
+    private static List<BudgetStatusDTO> concat(List<BudgetStatusDTO> personal, List<BudgetStatusDTO> shared) {
+        if (shared.isEmpty()) {
+            return personal;
+        }
+        List<BudgetStatusDTO> statuses = new ArrayList<>(personal.size() + shared.size());
+        statuses.addAll(personal);
+        statuses.addAll(shared);
+        return statuses;
+    }
+
+    private BudgetTree load(UserMonth key) {
+        List<BudgetTree.Node> nodes = new ArrayList<>();
+        for (Budget budget : budgetRepository.findByUserIdAndMonthAndHouseholdIdIsNull(key.userId(), key.month())) {
+            nodes.add(BudgetTree.Node.of(budget));
+        }
+        return BudgetTree.of(nodes, spendOf(key));
+    }
+
+    private BudgetTree loadHousehold(HouseholdMonth key) {
+        List<BudgetTree.Node> nodes = new ArrayList<>();
+        for (Budget budget : budgetRepository.findByHouseholdIdAndMonth(key.householdId(), key.month())) {
+            nodes.add(BudgetTree.Node.of(budget));
+        }
+        return BudgetTree.of(nodes, householdSpendOf(key));
+    }
+
+    private ToLongFunction<String> spendOf(UserMonth key) {
+        return category -> spendReader.getSpent(key.userId(), category, key.month());
+    }
+
+    private ToLongFunction<String> householdSpendOf(HouseholdMonth key) {
+        return category -> spendReader.getHouseholdSpent(key.householdId(), category, key.month());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * Listener for changes of a cached budget status.
+     */
+    public interface StatusListener {
+
+        /**
+         * Called after the status of a user in a month changed.
+         *
+         * @param userId the user ID
+         * @param month the month
+         * @param statuses builds the current status per category when called
+         */
+        void onStatusChanged(Long userId, YearMonth month, Supplier<List<BudgetStatusDTO>> statuses);
+    }
+
+    private record UserMonth(Long userId, YearMonth month) {
+    }
+
+    private record HouseholdMonth(Long householdId, YearMonth month) {
+    }
+}
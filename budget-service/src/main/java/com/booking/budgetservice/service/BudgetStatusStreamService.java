@@ -0,0 +1,239 @@
+package com.booking.budgetservice.service;
+
+import com.booking.budgetservice.dto.BudgetStatusDTO;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Service that pushes budget status changes to subscribed clients as server-sent events.
+ * <p>
+ * Every connection buffers at most one pending status: a newer status replaces the
+ * pending one, and it is sent after a short coalescing window, so a burst of spend
+ * deltas becomes a single event and a slow client never accumulates a backlog.
+ * Only categories that changed since the previous event are sent.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BudgetStatusStreamService implements BudgetStatusCache.StatusListener {
+
+    static final String STATUS_EVENT = "status";
+    static final String REMOVED_EVENT = "removed";
+
+    private final BudgetStatusCache budgetStatusCache;
+
+    private final ConcurrentHashMap<UserMonth, Set<Connection>> connections = new ConcurrentHashMap<>();
+
+    @Value("${app.budget-status-stream.coalesce-ms:250}")
+    private long coalesceMillis;
+
+    @Value("${app.budget-status-stream.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    @Value("${app.budget-status-stream.sender-threads:4}")
+    private int senderThreads;
+
+    private ScheduledExecutorService sender;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        sender = Executors.newScheduledThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "budget-status-sse-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        budgetStatusCache.addStatusListener(this);
+    }
+
+    @PreDestroy
+    void stop() {
+        sender.shutdownNow();
+        connections.values().forEach(set -> set.forEach(connection -> connection.emitter.complete()));
+    }
+
+    /**
+     * Open a stream of budget status changes for a user in a month.
+     * The current status is sent first, followed by changes as they happen.
+     *
+     * @param userId the user ID
+     * @param month the month
+     * @return the emitter backing the event stream
+     */
+    public SseEmitter subscribe(Long userId, YearMonth month) {
+        UserMonth key = new UserMonth(userId, month);
+        Connection connection = new Connection(key, new SseEmitter(timeoutMillis));
+        connection.emitter.onCompletion(() -> remove(connection));
+        connection.emitter.onTimeout(() -> remove(connection));
+        connection.emitter.onError(e -> remove(connection));
+
+        // Added inside compute, like remove, so it never lands in a set that was just dropped
+        connections.compute(key, (k, set) -> {
+            Set<Connection> userConnections = set != null ? set : ConcurrentHashMap.newKeySet();
+            userConnections.add(connection);
+            return userConnections;
+        });
+        // Registered before reading the status so no change in between is missed
+        connection.offerInitial(budgetStatusCache.retainStatus(userId, month));
+        return connection.emitter;
+    }
+
+    @Override
+    public void onStatusChanged(Long userId, YearMonth month, Supplier<List<BudgetStatusDTO>> statuses) {
+        Set<Connection> subscribed = connections.get(new UserMonth(userId, month));
+        if (subscribed != null) {
+            for (Connection connection : subscribed) {
+                connection.offer(statuses, coalesceMillis);
+            }
+        }
+    }
+
+    /**
+     * Send a comment to every connection so idle streams are kept open by proxies
+     * and connections of clients that went away are detected.
+     */
+    @Scheduled(fixedDelayString = "${app.budget-status-stream.heartbeat-ms:15000}")
+    public void heartbeat() {
+        connections.values().forEach(set -> set.forEach(connection -> sender.execute(() -> {
+            try {
+                connection.emitter.send(SseEmitter.event().comment("heartbeat"));
+            } catch (IOException | IllegalStateException e) {
+                connection.close();
+            }
+        })));
+    }
+
+    private void remove(Connection connection) {
+        connections.compute(connection.key, (key, set) -> {
+            if (set == null) {
+                return null;
+            }
+            set.remove(connection);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * The category, prefixed with the household ID for a shared budget so it does not
+     * collide with a personal budget of the same category.
+     */
+    static String categoryKeyOf(BudgetStatusDTO status) {
+        return status.householdId() == null ? status.category() : status.householdId() + "/" + status.category();
+    }
+
+    private record UserMonth(Long userId, YearMonth month) {
+    }
+
+    /**
+     * One client connection with its single pending status slot.
+     */
+    private final class Connection {
+
+        private final UserMonth key;
+        private final SseEmitter emitter;
+        // Built when sent, so a burst of changes builds the status once
+        private final AtomicReference<Supplier<List<BudgetStatusDTO>>> pending = new AtomicReference<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        // Last status sent per category key, only touched by the single flush in progress
+        private final Map<String, BudgetStatusDTO> sent = new HashMap<>();
+        private boolean initialSent;
+
+        Connection(UserMonth key, SseEmitter emitter) {
+            this.key = key;
+            this.emitter = emitter;
+        }
+
+        void offer(Supplier<List<BudgetStatusDTO>> statuses, long delayMillis) {
+            pending.set(statuses);
+            schedule(delayMillis);
+        }
+
+        void offerInitial(List<BudgetStatusDTO> statuses) {
+            // A change that arrived during subscription is newer than the initial status
+            pending.compareAndSet(null, () -> statuses);
+            schedule(0L);
+        }
+
+        private void schedule(long delayMillis) {
+            if (scheduled.compareAndSet(false, true)) {
+                sender.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void flush() {
+            Supplier<List<BudgetStatusDTO>> statuses = pending.getAndSet(null);
+            try {
+                if (statuses != null) {
+                    sendChanges(statuses.get());
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Closing budget status stream for user {}: {}", key.userId(), e.getMessage());
+                close();
+                return;
+            } finally {
+                scheduled.set(false);
+            }
+            // A status offered while sending is picked up by another flush
+            if (pending.get() != null) {
+                schedule(coalesceMillis);
+            }
+        }
+
+        private void sendChanges(List<BudgetStatusDTO> statuses) throws IOException {
+            List<BudgetStatusDTO> changed = new ArrayList<>();
+            Map<String, BudgetStatusDTO> current = new HashMap<>();
+            for (BudgetStatusDTO status : statuses) {
+                String category = categoryKeyOf(status);
+                current.put(category, status);
+                if (!status.equals(sent.get(category))) {
+                    changed.add(status);
+                }
+            }
+            List<String> removed = new ArrayList<>();
+            for (String category : sent.keySet()) {
+                if (!current.containsKey(category)) {
+                    removed.add(category);
+                }
+            }
+
+            // The first event is sent even without budgets so the client knows the stream is live
+            if (!changed.isEmpty() || !initialSent) {
+                emitter.send(SseEmitter.event().name(STATUS_EVENT).data(changed));
+                initialSent = true;
+            }
+            if (!removed.isEmpty()) {
+                emitter.send(SseEmitter.event().name(REMOVED_EVENT).data(removed));
+            }
+            sent.clear();
+            sent.putAll(current);
+        }
+
+        private void close() {
+            remove(this);
+            emitter.completeWithError(new IOException("Budget status stream closed"));
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.booking.budgetservice.service;
+
+import com.booking.budgetservice.dto.BudgetStatusDTO;
+import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.model.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * One user's or one household's budgets in one month, with spending rolled up the
+ * budget hierarchy.
+ * <p>
+ * Budgets without children are leaves and are charged with the spending of their
+ * category. A budget with children, e.g. "Living" over HOUSING, UTILITIES and FOOD,
+ * is charged with the sum of its children. The budgets themselves are fixed, a change
+ * builds a new tree, but their spending is a counter per budget: when the spending of
+ * a category changes, {@link #applySpent} adds the difference to the leaf and each of
+ * its ancestors in place, so a spend change costs O(depth). Statuses are built on the
+ * first read after a change. Spend changes and reads are synchronized on the tree.
+ */
+public final class BudgetTree {
+
+    /**
+     * Maximum number of levels, including the leaves.
+     */
+    public static final int MAX_DEPTH = 4;
+
+    // Ordered by category, the order statuses are listed in
+    private final Node[] nodes;
+    // Position of each budget's parent, -1 for a budget at the top
+    private final int[] parents;
+    private final Map<String, Integer> leafByCategory;
+    private final long[] spent;
+    private List<BudgetStatusDTO> statuses;
+
+    private BudgetTree(Node[] nodes, int[] parents, Map<String, Integer> leafByCategory) {
+        this.nodes = nodes;
+        this.parents = parents;
+        this.leafByCategory = leafByCategory;
+        this.spent = new long[nodes.length];
+    }
+
+    /**
+     * Build a tree and roll up the spending of its leaves.
+     *
+     * @param budgets the budgets of one user and month
+     * @param categorySpent the spending of a category in minor units
+     * @return the tree
+     */
+    public static BudgetTree of(Collection<Node> budgets, ToLongFunction<String> categorySpent) {
+        Map<Long, Node> byId = new LinkedHashMap<>();
+        for (Node node : budgets) {
+            byId.put(node.id(), node);
+        }
+        Node[] nodes = byId.values().toArray(new Node[0]);
+        Arrays.sort(nodes, Comparator.comparing(Node::category));
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            positions.put(nodes[i].id(), i);
+        }
+
+        int[] parents = new int[nodes.length];
+        boolean[] hasChildren = new boolean[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            Integer parent = nodes[i].parentId() == null ? null : positions.get(nodes[i].parentId());
+            parents[i] = parent == null ? -1 : parent;
+            if (parent != null) {
+                hasChildren[parent] = true;
+            }
+        }
+        Map<String, Integer> leafByCategory = new HashMap<>();
+        for (int i = 0; i < nodes.length; i++) {
+            if (!hasChildren[i]) {
+                leafByCategory.put(nodes[i].category(), i);
+            }
+        }
+
+        BudgetTree tree = new BudgetTree(nodes, parents, leafByCategory);
+        for (int leaf : leafByCategory.values()) {
+            tree.addUpwards(leaf, categorySpent.applyAsLong(nodes[leaf].category()));
+        }
+        return tree;
+    }
+
+    /**
+     * Apply a new spending total for a category to its leaf budget and the ancestors of it.
+     *
+     * @param category the category
+     * @param spentMinorUnits the new total in minor units
+     * @return true if the spending of a budget changed
+     */
+    public synchronized boolean applySpent(String category, long spentMinorUnits) {
+        Integer leaf = leafByCategory.get(category);
+        if (leaf == null) {
+            return false;
+        }
+        long delta = spentMinorUnits - spent[leaf];
+        if (delta == 0L) {
+            return false;
+        }
+        addUpwards(leaf, delta);
+        statuses = null;
+        return true;
+    }
+
+    /**
+     * Add or replace a budget.
+     *
+     * @param node the budget
+     * @param categorySpent the spending of a category in minor units
+     * @return the updated tree
+     */
+    public BudgetTree withBudget(Node node, ToLongFunction<String> categorySpent) {
+        Map<Long, Node> copy = new LinkedHashMap<>();
+        for (Node existing : nodes) {
+            copy.put(existing.id(), existing);
+        }
+        copy.put(node.id(), node);
+        return of(copy.values(), categorySpent);
+    }
+
+    /**
+     * Remove a budget. Its children move up to its parent, as they do in the database.
+     *
+     * @param budgetId the budget ID
+     * @param categorySpent the spending of a category in minor units
+     * @return the updated tree
+     */
+    public BudgetTree withoutBudget(Long budgetId, ToLongFunction<String> categorySpent) {
+        Node removed = null;
+        for (Node node : nodes) {
+            if (node.id().equals(budgetId)) {
+                removed = node;
+            }
+        }
+        if (removed == null) {
+            return this;
+        }
+        List<Node> remaining = new ArrayList<>(nodes.length);
+        for (Node node : nodes) {
+            if (node.id().equals(budgetId)) {
+                continue;
+            }
+            remaining.add(budgetId.equals(node.parentId()) ? node.withParent(removed.parentId()) : node);
+        }
+        return of(remaining, categorySpent);
+    }
+
+    /**
+     * @return the budgets of the tree
+     */
+    public Collection<Node> nodes() {
+        return Collections.unmodifiableList(Arrays.asList(nodes));
+    }
+
+    /**
+     * @param category the category
+     * @return true if a leaf budget is charged with the spending of the category
+     */
+    public boolean hasLeaf(String category) {
+        return leafByCategory.containsKey(category);
+    }
+
+    /**
+     * @return the status of every budget, ordered by category
+     */
+    public synchronized List<BudgetStatusDTO> statuses() {
+        if (statuses == null) {
+            List<BudgetStatusDTO> built = new ArrayList<>(nodes.length);
+            for (int i = 0; i < nodes.length; i++) {
+                Node node = nodes[i];
+                long remaining = node.amountMinorUnits() - spent[i];
+                built.add(new BudgetStatusDTO(
+                        node.category(),
+                        node.amount(),
+                        Money.toBigDecimal(spent[i]),
+                        Money.toBigDecimal(remaining),
+                        remaining < 0,
+                        node.id(),
+                        parents[i] >= 0 ? node.parentId() : null,
+                        node.householdId()));
+            }
+            statuses = List.copyOf(built);
+        }
+        return statuses;
+    }
+
+    private void addUpwards(int leaf, long delta) {
+        int current = leaf;
+        // Bounded so a corrupt parent chain cannot loop forever
+        for (int level = 0; current >= 0 && level < MAX_DEPTH; level++) {
+            spent[current] += delta;
+            current = parents[current];
+        }
+    }
+
+    /**
+     * The parts of a budget the tree needs.
+     */
+    public record Node(Long id, Long parentId, String category, BigDecimal amount, long amountMinorUnits,
+                       Long householdId) {
+
+        public static Node of(Budget budget) {
+            return new Node(budget.getId(), budget.getParentId(), budget.getCategory(),
+                    budget.getAmount(), Money.toMinorUnits(budget.getAmount()), budget.getHouseholdId());
+        }
+
+        Node withParent(Long newParentId) {
+            return new Node(id, newParentId, category, amount, amountMinorUnits, householdId);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.booking.budgetservice.service;
+
+import com.booking.budgetservice.event.ExpenseEvent;
+import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.repository.BudgetRepository;
+import com.booking.budgetservice.service.forecast.SpendForecaster;
+import com.booking.budgetservice.service.projection.SpendChangeListener;
+import com.booking.budgetservice.service.projection.SpendDelta;
+import com.booking.budgetservice.service.projection.SpendDeltas;
+import com.booking.budgetservice.service.projection.SpendKey;
+import com.booking.budgetservice.service.projection.SpendProjection;
+import com.booking.budgetservice.service.projection.SpendProjectionCheckpointService;
+import com.booking.budgetservice.service.projection.SpendProjectionRecovery;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Service responsible for consuming expense events from Kafka, applying them to the
+ * spend projection and checking the affected budgets for alerts.
+ * Disabled when the Kafka Streams topology is used instead.
+ * <p>
+ * Each batch runs in a Kafka transaction started by the listener container: the alerts
+ * it produces and its consumed offsets commit together, and its deltas are only applied
+ * to the projection once that commit succeeded. An aborted batch therefore leaves no
+ * trace and is redelivered as a whole. Whether an event raises an alert depends only on
+ * the totals before and after it, so the redelivery emits exactly the alerts the
+ * aborted attempt would have.
+ * <p>
+ * A change of a household member also changes the household's total, so it is checked
+ * against the household's shared budget as well; that budget's alerts go to all members.
+ */
+@Service
+@ConditionalOnProperty(name = "app.kafka-streams.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ExpenseEventConsumerService implements ConsumerSeekAware {
+
+    /**
+     * ID of the expense event listener container.
+     */
+    public static final String LISTENER_ID = "expense-events";
+
+    private final SpendProjection spendProjection;
+    private final SpendProjectionCheckpointService checkpointService;
+    private final SpendProjectionRecovery spendProjectionRecovery;
+    private final BudgetRepository budgetRepository;
+    private final BudgetAlertService budgetAlertService;
+    private final SpendForecaster spendForecaster;
+    private final List<SpendChangeListener> spendChangeListeners;
+
+    /**
+     * Listens for batches of expense events from the expenses topic.
+     *
+     * @param records the expense event records received from Kafka
+     */
+    @KafkaListener(id = LISTENER_ID,
+                   topics = "${spring.kafka.topic.expenses:expenses-topic}",
+                   groupId = "${spring.kafka.consumer.group-id:budget-service-group}",
+                   containerFactory = "expenseEventListenerContainerFactory")
+    public void consumeExpenseEvents(List<ConsumerRecord<String, ExpenseEvent>> records) {
+        // Totals as they will be once this batch is committed
+        Map<SpendKey, Long> pendingTotals = new HashMap<>();
+        Map<SpendKey, Long> pendingHouseholdTotals = new HashMap<>();
+        
+        for (ConsumerRecord<String, ExpenseEvent> record : records) {
+            if (record.value() == null) {
+                log.warn("Skipping undeserializable expense event at {}-{}@{}",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            Long nextOffset = spendProjection.getNextOffset(record.partition());
+            if (nextOffset != null && record.offset() < nextOffset) {
+                continue;
+            }
+            for (Map.Entry<SpendKey, Long> change : netChanges(record.value()).entrySet()) {
+                SpendKey key = change.getKey();
+                if (!spendProjection.retains(key)) {
+                    // Months past retention are no longer projected or alerted
+                    continue;
+                }
+                long before = pendingTotals.computeIfAbsent(key, spendProjection::getSpent);
+                long after = before + change.getValue();
+                pendingTotals.put(key, after);
+                // Only increases in spending can cross a threshold
+                if (after > before) {
+                    checkAlerts(key, before, after);
+                }
+                
+                Long householdId = spendProjection.householdOf(key.userId());
+                if (householdId != null) {
+                    SpendKey householdKey = key.householdKey(householdId);
+                    long householdBefore = pendingHouseholdTotals.computeIfAbsent(
+                            householdKey, spendProjection::getHouseholdSpent);
+                    long householdAfter = householdBefore + change.getValue();
+                    pendingHouseholdTotals.put(householdKey, householdAfter);
+                    if (householdAfter > householdBefore) {
+                        checkHouseholdAlerts(householdKey, householdBefore, householdAfter);
+                    }
+                }
+            }
+        }
+        
+        afterCommit(() -> applyCommitted(records));
+    }
+
+    /**
+     * Restore each assigned partition and continue at the committed offset.
+     * The projection is rebuilt from its checkpoint up to that offset without alerting,
+     * since alerts for those events were committed together with the offset.
+     */
+    @Override
+    public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+        for (TopicPartition topicPartition : assignments.keySet()) {
+            Long nextOffset = spendProjectionRecovery.recover(topicPartition);
+            if (nextOffset == null) {
+                callback.seekToBeginning(topicPartition.topic(), topicPartition.partition());
+            } else {
+                callback.seek(topicPartition.topic(), topicPartition.partition(), nextOffset);
+            }
+        }
+    }
+
+    /**
+     * Flush state before partitions move so the next owner starts from it.
+     */
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+        checkpointService.checkpoint();
+    }
+
+    private void applyCommitted(List<ConsumerRecord<String, ExpenseEvent>> records) {
+        Set<SpendKey> changed = new LinkedHashSet<>();
+        for (ConsumerRecord<String, ExpenseEvent> record : records) {
+            if (record.value() == null) {
+                continue;
+            }
+            List<SpendDelta> deltas = spendProjection.apply(record.value(), record.partition(), record.offset());
+            if (!deltas.isEmpty()) {
+                spendForecaster.record(record.value());
+            }
+            for (SpendDelta delta : deltas) {
+                changed.add(delta.key());
+            }
+        }
+        Set<SpendKey> changedHouseholds = new LinkedHashSet<>();
+        for (SpendKey key : changed) {
+            long spent = spendProjection.getSpent(key);
+            for (SpendChangeListener listener : spendChangeListeners) {
+                listener.onSpendChanged(key, spent);
+            }
+            Long householdId = spendProjection.householdOf(key.userId());
+            if (householdId != null) {
+                changedHouseholds.add(key.householdKey(householdId));
+            }
+        }
+        // Once per household and key, however many members' totals changed
+        for (SpendKey householdKey : changedHouseholds) {
+            long spent = spendProjection.getHouseholdSpent(householdKey);
+            for (SpendChangeListener listener : spendChangeListeners) {
+                listener.onHouseholdSpendChanged(householdKey, spent);
+            }
+        }
+    }
+
+    /**
+     * Sum the deltas of one event per key, so an update within the same category and
+     * month is judged by its net change rather than by a reversal and a re-add.
+     */
+    private static Map<SpendKey, Long> netChanges(ExpenseEvent event) {
+        Map<SpendKey, Long> changes = new LinkedHashMap<>();
+        for (SpendDelta delta : SpendDeltas.from(event)) {
+            changes.merge(delta.key(), delta.deltaMinorUnits(), Long::sum);
+        }
+        return changes;
+    }
+
+    private void checkAlerts(SpendKey key, long previousSpent, long spent) {
+        Budget budget = budgetRepository.findByUserIdAndCategoryAndMonthAndHouseholdIdIsNull(
+                key.userId(), key.category(), key.month());
+        if (budget == null) {
+            return;
+        }
+        budgetAlertService.checkThresholdCrossing(budget, previousSpent, spent);
+        
+        LocalDate today = LocalDate.now();
+        if (key.month().equals(YearMonth.from(today))) {
+            // Profiles learn from committed events only, so expenses earlier in this batch count as variable
+            long projected = spendForecaster.forecast(key, spent, today);
+            budgetAlertService.checkProjectedOverrun(budget, spent, projected);
+        }
+    }
+
+    /**
+     * Check a household's shared budget. Projected overruns are not checked, the forecast
+     * profiles are kept per user.
+     */
+    private void checkHouseholdAlerts(SpendKey householdKey, long previousSpent, long spent) {
+        Budget budget = budgetRepository.findByHouseholdIdAndCategoryAndMonth(
+                householdKey.userId(), householdKey.category(), householdKey.month());
+        if (budget != null) {
+            budgetAlertService.checkThresholdCrossing(budget, previousSpent, spent);
+        }
+    }
+
+    /**
+     * Run an action once the batch's Kafka transaction committed. There is deliberately no
+     * fallback without synchronization: running it at once would apply an aborted batch.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Expense batches must run in a Kafka transaction with synchronization, "
+                    + "see KafkaConfig.expenseTransactionManager");
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -1,18 +1,44 @@
 package com.booking.budgetservice.service;
 
 import com.booking.budgetservice.event.BudgetAlertEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Service responsible for publishing budget alert events to Kafka.
+ * <p>
+ * Alerts raised with a coalescing key, the spend-level rule that fired, are coalesced per
+ * budget and key, the latest winning, so a burst of changes around one threshold becomes
+ * one alert. Alerts without a key, single-expense and projected overrun alerts, are
+ * never merged, nor are alerts of different rules of one budget. Alerts raised inside a Kafka transaction, by the expense consumer, are coalesced
+ * per transaction and sent just before it commits, so they still commit together with the
+ * consumed offsets. All other alerts wait in a bounded queue for a short window and are
+ * sent in batches by a scheduled flush; when the queue is full new budgets' alerts are
+ * dropped and counted rather than blocking the caller. The alert of a shared budget is
+ * one event per household member, coalesced and sent as a unit.
  */
 @Service
 @RequiredArgsConstructor
@@ -20,42 +46,210 @@ import java.util.concurrent.CompletableFuture;
 public class KafkaProducerService {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    
+    private final MeterRegistry meterRegistry;
+
     @Value("${spring.kafka.topic.budget-alerts}")
     private String budgetAlertsTopic;
-    
+
+    @Value("${app.budget-alerts.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${app.budget-alerts.coalesce-ms:500}")
+    private long coalesceMillis;
+
+    @Value("${app.budget-alerts.batch-size:500}")
+    private int batchSize;
+
+    // Coalescing keys in order of their first pending alert, the pending alert itself is in the map
+    private ArrayBlockingQueue<String> queue;
+    private final ConcurrentHashMap<String, PendingAlert> pending = new ConcurrentHashMap<>();
+
+    private Counter coalescedAlerts;
+    private Counter droppedAlerts;
+    private Counter sentAlerts;
+    private Counter failedAlerts;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        Gauge.builder("budget.alerts.queue.depth", queue, ArrayBlockingQueue::size)
+                .description("Alerts waiting to be sent")
+                .register(meterRegistry);
+        coalescedAlerts = Counter.builder("budget.alerts.coalesced")
+                .description("Alerts merged into a pending alert of the same budget and rule")
+                .register(meterRegistry);
+        droppedAlerts = Counter.builder("budget.alerts.dropped")
+                .description("Alerts dropped because the queue was full")
+                .register(meterRegistry);
+        sentAlerts = Counter.builder("budget.alerts.sent").register(meterRegistry);
+        failedAlerts = Counter.builder("budget.alerts.failed").register(meterRegistry);
+    }
+
     /**
-     * Publishes a budget alert event to Kafka.
-     * 
+     * Send what is still queued before the producer is closed.
+     */
+    @PreDestroy
+    void stop() {
+        flush(Long.MAX_VALUE);
+    }
+
+    /**
+     * Publishes a budget alert event to Kafka, coalesced with pending alerts of the same
+     * budget and key.
+     *
      * @param budgetAlertEvent the event to publish
+     * @param coalesceKey identifies the alerts of the budget this one replaces, or null to never merge it
+     */
+    public void publishBudgetAlertEvent(BudgetAlertEvent budgetAlertEvent, String coalesceKey) {
+        publishBudgetAlertEvents(List.of(budgetAlertEvent), coalesceKey);
+    }
+
+    /**
+     * Publishes the events of one budget alert, one per recipient, coalesced as a unit
+     * with pending alerts of the same budget and key.
+     *
+     * @param budgetAlertEvents the events to publish, all of the same budget
+     * @param coalesceKey identifies the alerts of the budget this one replaces, or null to never merge it
+     */
+    public void publishBudgetAlertEvents(List<BudgetAlertEvent> budgetAlertEvents, String coalesceKey) {
+        if (budgetAlertEvents.isEmpty()) {
+            return;
+        }
+        for (BudgetAlertEvent budgetAlertEvent : budgetAlertEvents) {
+            // Generate a unique event ID if not already set
+            if (budgetAlertEvent.getEventId() == null) {
+                budgetAlertEvent.setEventId(UUID.randomUUID().toString());
+            }
+
+            // Set timestamp if not already set
+            if (budgetAlertEvent.getTimestamp() == null) {
+                budgetAlertEvent.setTimestamp(LocalDateTime.now());
+            }
+        }
+
+        BudgetAlertEvent first = budgetAlertEvents.get(0);
+        // An alert without a key gets one of its own, so nothing is merged into it
+        String key = first.getBudgetId() + "/" + (coalesceKey != null ? coalesceKey : "event-" + first.getEventId());
+        PendingAlert alert = new PendingAlert(key, List.copyOf(budgetAlertEvents), System.currentTimeMillis());
+        if (TransactionSynchronizationManager.hasResource(kafkaTemplate.getProducerFactory())) {
+            transactionAlerts().merge(key, alert, this::coalesce);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Raised by a database transaction, only alert once its changes are committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(alert);
+                }
+            });
+        } else {
+            enqueue(alert);
+        }
+    }
+
+    /**
+     * Send the queued alerts whose coalescing window has passed.
+     */
+    @Scheduled(fixedDelayString = "${app.budget-alerts.flush-interval-ms:100}")
+    public void flush() {
+        flush(System.currentTimeMillis() - coalesceMillis);
+    }
+
+    private synchronized void flush(long queuedBefore) {
+        List<BudgetAlertEvent> batch = new ArrayList<>();
+        String key;
+        while ((key = queue.peek()) != null) {
+            PendingAlert head = pending.get(key);
+            if (head != null && head.queuedAt() > queuedBefore) {
+                break;
+            }
+            queue.poll();
+            PendingAlert alert = pending.remove(key);
+            if (alert != null) {
+                batch.addAll(alert.events());
+            }
+            if (batch.size() >= batchSize) {
+                send(batch);
+                batch = new ArrayList<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void enqueue(PendingAlert alert) {
+        String key = alert.key();
+        boolean[] added = new boolean[1];
+        pending.compute(key, (k, current) -> {
+            if (current == null) {
+                added[0] = true;
+                return alert;
+            }
+            return coalesce(current, alert);
+        });
+        if (added[0] && !queue.offer(key)) {
+            pending.remove(key);
+            droppedAlerts.increment();
+            log.warn("Alert queue is full, dropped alert {}", key);
+        }
+    }
+
+    /**
+     * Keep the later of two alerts of one budget and rule, and the time the first was queued.
      */
-    public void publishBudgetAlertEvent(BudgetAlertEvent budgetAlertEvent) {
-        // Generate a unique event ID if not already set
-        if (budgetAlertEvent.getEventId() == null) {
-            budgetAlertEvent.setEventId(UUID.randomUUID().toString());
-        }
-        
-        // Set timestamp if not already set
-        if (budgetAlertEvent.getTimestamp() == null) {
-            budgetAlertEvent.setTimestamp(java.time.LocalDateTime.now());
-        }
-        
-        CompletableFuture<SendResult<String, Object>> future = kafkaTemplate.send(
-                budgetAlertsTopic, 
-                budgetAlertEvent.getUserId(), 
-                budgetAlertEvent
-        );
-        
-        future.whenComplete((result, ex) -> {
-            if (ex == null) {
-                log.info("Sent budget alert event=[{}] with offset=[{}]", 
-                        budgetAlertEvent, 
-                        result.getRecordMetadata().offset());
-            } else {
-                log.error("Unable to send budget alert event=[{}] due to : {}", 
-                        budgetAlertEvent, 
-                        ex.getMessage());
+    private PendingAlert coalesce(PendingAlert current, PendingAlert next) {
+        coalescedAlerts.increment();
+        return new PendingAlert(next.key(), next.events(), current.queuedAt());
+    }
+
+    /**
+     * The alerts of the current Kafka transaction, sent when it is about to commit.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, PendingAlert> transactionAlerts() {
+        Map<String, PendingAlert> alerts = (Map<String, PendingAlert>) TransactionSynchronizationManager.getResource(this);
+        if (alerts != null) {
+            return alerts;
+        }
+        Map<String, PendingAlert> created = new LinkedHashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                send(created.values().stream().flatMap(alert -> alert.events().stream()).toList());
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(KafkaProducerService.this);
             }
         });
+        return created;
+    }
+
+    private void send(List<BudgetAlertEvent> batch) {
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        for (BudgetAlertEvent event : batch) {
+            futures.add(kafkaTemplate.send(budgetAlertsTopic, event.getUserId(), event));
+        }
+
+        AtomicInteger failed = new AtomicInteger();
+        for (int i = 0; i < futures.size(); i++) {
+            BudgetAlertEvent event = batch.get(i);
+            futures.get(i).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    sentAlerts.increment();
+                } else {
+                    failedAlerts.increment();
+                    failed.incrementAndGet();
+                    log.error("Unable to send budget alert event=[{}] due to : {}", event, ex.getMessage());
+                }
+            });
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).whenComplete((result, ex) ->
+                log.debug("Sent {} budget alerts, {} failed", futures.size(), failed.get()));
+    }
+
+    private record PendingAlert(String key, List<BudgetAlertEvent> events, long queuedAt) {
     }
-}
\ No newline at end of file
+}
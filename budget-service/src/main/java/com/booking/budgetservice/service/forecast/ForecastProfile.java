@@ -0,0 +1,268 @@
+package com.booking.budgetservice.service.forecast;
+
+import com.booking.budgetservice.model.Money;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Forecasting state of one user's spending in one category.
+ * <p>
+ * Expenses of the running month are split into recurring ones, matched against the
+ * expenses seen in each of the two previous months, and variable ones. Variable spend
+ * is extrapolated to month end with the learned cumulative share of spending by day of
+ * month, or linearly (plain burn rate) until a full month was observed. Recurring
+ * expenses still expected this month are added on top. Recording an expense and
+ * projecting are O(1); the O(31) learning step only runs once per month at rollover.
+ */
+final class ForecastProfile {
+
+    static final long NO_SIGNATURE = 0L;
+
+    // Month positions; days of shorter months are scaled onto them
+    private static final int POSITIONS = 31;
+
+    // Never extrapolate from less than 20% of a usual month, early spikes would dominate
+    private static final long MIN_SHARE_BPS = 2_000L;
+
+    // A new month contributes a third of the learned shares
+    private static final int SMOOTHING = 3;
+
+    private YearMonth month;
+    private boolean observedFromStart;
+    private final long[] variableByDay = new long[POSITIONS + 1];
+    private long recurringSpent;
+    private long pendingRecurring;
+    private int[] cumulativeShareBps;
+    private Map<Long, RecurringItem> expected = new HashMap<>();
+    private Map<Long, RecurringItem> seen = new HashMap<>();
+    private Map<Long, RecurringItem> previousSeen = new HashMap<>();
+
+    /**
+     * Record a change of spending.
+     *
+     * @param date the expense date
+     * @param amountMinorUnits the change in minor units, negative for removals
+     * @param signature the recurrence signature of a new expense, or {@link #NO_SIGNATURE}
+     * @return true if the learned state changed and should be saved
+     */
+    synchronized boolean record(LocalDate date, long amountMinorUnits, long signature) {
+        YearMonth expenseMonth = YearMonth.from(date);
+        if (month == null) {
+            month = expenseMonth;
+        }
+        if (expenseMonth.isBefore(month)) {
+            // Late changes to past months only affect the projected total
+            return false;
+        }
+        boolean rolledOver = false;
+        if (expenseMonth.isAfter(month)) {
+            rollover(expenseMonth);
+            rolledOver = true;
+        }
+
+        int day = date.getDayOfMonth();
+        if (signature != NO_SIGNATURE && amountMinorUnits > 0) {
+            seen.put(signature, new RecurringItem(amountMinorUnits, day));
+            RecurringItem expectedItem = expected.remove(signature);
+            if (expectedItem != null) {
+                pendingRecurring -= expectedItem.amountMinorUnits();
+                recurringSpent += amountMinorUnits;
+                return rolledOver;
+            }
+        }
+        variableByDay[day] += amountMinorUnits;
+        return rolledOver;
+    }
+
+    /**
+     * Project the month-end spending of a month.
+     *
+     * @param target the month of the total
+     * @param today the current date
+     * @param spentMinorUnits the total spent so far, as held by the spend projection
+     * @return the projected month-end total in minor units
+     */
+    synchronized long forecast(YearMonth target, LocalDate today, long spentMinorUnits) {
+        if (!target.equals(YearMonth.from(today))) {
+            // Past months are final and future months have nothing to extrapolate from
+            return spentMinorUnits;
+        }
+        boolean current = target.equals(month);
+        long recurring = current ? recurringSpent : 0L;
+        long pending = current ? pendingRecurring : 0L;
+        long variable = Math.max(0L, spentMinorUnits - recurring);
+
+        int length = target.lengthOfMonth();
+        long shareBps = cumulativeShareBps != null
+                ? cumulativeShareBps[position(today.getDayOfMonth(), length)]
+                : (long) today.getDayOfMonth() * Money.BASIS_POINTS / length;
+        shareBps = Math.max(shareBps, MIN_SHARE_BPS);
+
+        return variable * Money.BASIS_POINTS / shareBps + recurring + pending;
+    }
+
+    /**
+     * @return the month this profile currently observes
+     */
+    synchronized YearMonth getMonth() {
+        return month;
+    }
+
+    /**
+     * Capture the learned state, i.e. everything known at the start of the month.
+     *
+     * @return the state to save
+     */
+    synchronized Learned learned() {
+        return new Learned(month, formatShares(cumulativeShareBps), formatItems(expected), formatItems(previousSeen));
+    }
+
+    /**
+     * Restore a profile from its saved learned state.
+     * Expenses of the running month before the restore are unknown, so recurring
+     * expenses usually due before the given date are assumed to be paid already.
+     *
+     * @param learned the saved state
+     * @param date the date of the first expense seen after the restore
+     * @return the profile
+     */
+    static ForecastProfile restore(Learned learned, LocalDate date) {
+        ForecastProfile profile = new ForecastProfile();
+        profile.month = learned.month();
+        profile.cumulativeShareBps = parseShares(learned.dayShares());
+        profile.previousSeen = parseItems(learned.previousItems());
+        if (learned.month().equals(YearMonth.from(date))) {
+            parseItems(learned.expectedItems()).forEach((signature, item) -> {
+                if (item.day() >= date.getDayOfMonth()) {
+                    profile.expected.put(signature, item);
+                    profile.pendingRecurring += item.amountMinorUnits();
+                }
+            });
+        } else {
+            profile.expected = parseItems(learned.expectedItems());
+        }
+        return profile;
+    }
+
+    private void rollover(YearMonth next) {
+        if (observedFromStart) {
+            learnShares();
+        }
+        Map<Long, RecurringItem> recurring = new HashMap<>();
+        if (next.equals(month.plusMonths(1))) {
+            seen.forEach((signature, item) -> {
+                if (previousSeen.containsKey(signature)) {
+                    recurring.put(signature, item);
+                }
+            });
+            if (!observedFromStart) {
+                // Part of the month is unknown, keep expecting what was not seen rather than forget it
+                expected.forEach(recurring::putIfAbsent);
+                expected.forEach(seen::putIfAbsent);
+            }
+            previousSeen = seen;
+        } else {
+            previousSeen = new HashMap<>();
+        }
+
+        month = next;
+        observedFromStart = true;
+        expected = recurring;
+        pendingRecurring = recurring.values().stream().mapToLong(RecurringItem::amountMinorUnits).sum();
+        seen = new HashMap<>();
+        recurringSpent = 0L;
+        Arrays.fill(variableByDay, 0L);
+    }
+
+    private void learnShares() {
+        int length = month.lengthOfMonth();
+        long total = 0L;
+        for (int day = 1; day <= length; day++) {
+            total += Math.max(0L, variableByDay[day]);
+        }
+        if (total <= 0L) {
+            return;
+        }
+
+        long[] cumulativeByDay = new long[length + 1];
+        for (int day = 1; day <= length; day++) {
+            cumulativeByDay[day] = cumulativeByDay[day - 1] + Math.max(0L, variableByDay[day]);
+        }
+        int[] shares = new int[POSITIONS + 1];
+        for (int position = 1; position <= POSITIONS; position++) {
+            int day = Math.max(1, Math.round((float) position * length / POSITIONS));
+            int share = (int) (cumulativeByDay[day] * Money.BASIS_POINTS / total);
+            shares[position] = cumulativeShareBps == null
+                    ? share
+                    : (cumulativeShareBps[position] * (SMOOTHING - 1) + share) / SMOOTHING;
+        }
+        cumulativeShareBps = shares;
+    }
+
+    private static int position(int day, int length) {
+        return Math.max(1, Math.round((float) day * POSITIONS / length));
+    }
+
+    private static String formatShares(int[] shares) {
+        if (shares == null) {
+            return "";
+        }
+        StringJoiner joiner = new StringJoiner(",");
+        for (int position = 1; position <= POSITIONS; position++) {
+            joiner.add(Integer.toString(shares[position]));
+        }
+        return joiner.toString();
+    }
+
+    private static int[] parseShares(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        String[] parts = value.split(",");
+        if (parts.length != POSITIONS) {
+            return null;
+        }
+        int[] shares = new int[POSITIONS + 1];
+        for (int position = 1; position <= POSITIONS; position++) {
+            shares[position] = Integer.parseInt(parts[position - 1]);
+        }
+        return shares;
+    }
+
+    private static String formatItems(Map<Long, RecurringItem> items) {
+        StringJoiner joiner = new StringJoiner(";");
+        items.forEach((signature, item) ->
+                joiner.add(signature + ":" + item.amountMinorUnits() + ":" + item.day()));
+        return joiner.toString();
+    }
+
+    private static Map<Long, RecurringItem> parseItems(String value) {
+        Map<Long, RecurringItem> items = new HashMap<>();
+        if (value == null || value.isEmpty()) {
+            return items;
+        }
+        for (String entry : value.split(";")) {
+            String[] parts = entry.split(":");
+            items.put(Long.parseLong(parts[0]),
+                    new RecurringItem(Long.parseLong(parts[1]), Integer.parseInt(parts[2])));
+        }
+        return items;
+    }
+
+    /**
+     * An expense expected to recur, with its amount and usual day of month.
+     */
+    record RecurringItem(long amountMinorUnits, int day) {
+    }
+
+    /**
+     * Learned state of a profile in its stored form.
+     */
+    record Learned(YearMonth month, String dayShares, String expectedItems, String previousItems) {
+    }
+}
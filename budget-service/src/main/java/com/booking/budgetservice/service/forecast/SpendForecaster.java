@@ -0,0 +1,176 @@
+package com.booking.budgetservice.service.forecast;
+
+import com.booking.budgetservice.event.ExpenseEvent;
+import com.booking.budgetservice.model.CategoryDictionary;
+import com.booking.budgetservice.model.ForecastProfileEntry;
+import com.booking.budgetservice.model.Money;
+import com.booking.budgetservice.repository.ForecastProfileRepository;
+import com.booking.budgetservice.service.projection.SpendKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Projects month-end spending per user, category and month from the running spend
+ * projection. Expense events are recorded into one {@link ForecastProfile} per user
+ * and category as they are applied to the projection, so a forecast never queries
+ * the month's expenses. Learned state is saved on a schedule after each month rollover
+ * and restored lazily when a profile is first needed after a restart.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendForecaster {
+
+    private static final String UPSERT_PROFILE_SQL =
+            "INSERT INTO forecast_profiles (user_id, category, month, day_shares, expected_items, previous_items) " +
+            "VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, category) DO UPDATE SET month = EXCLUDED.month, " +
+            "day_shares = EXCLUDED.day_shares, expected_items = EXCLUDED.expected_items, " +
+            "previous_items = EXCLUDED.previous_items";
+
+    private final ForecastProfileRepository forecastProfileRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentHashMap<ProfileKey, ForecastProfile> profiles = new ConcurrentHashMap<>();
+
+    // Profiles that rolled over since the last flush
+    private final Set<ProfileKey> dirtyProfiles = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Record an expense event that was just applied to the spend projection.
+     *
+     * @param event the expense event
+     */
+    public void record(ExpenseEvent event) {
+        long userId;
+        try {
+            userId = Long.parseLong(event.getUserId());
+        } catch (NumberFormatException e) {
+            // Already reported when the event was applied to the projection
+            return;
+        }
+
+        String eventType = event.getEventType();
+        if (ExpenseEvent.CREATED.equals(eventType)) {
+            record(userId, event.getCategory(), event.getDate(),
+                    Money.toMinorUnits(event.getAmount()), signatureOf(event));
+        } else if (ExpenseEvent.DELETED.equals(eventType)) {
+            record(userId, event.getCategory(), event.getDate(),
+                    -Money.toMinorUnits(event.getAmount()), ForecastProfile.NO_SIGNATURE);
+        } else if (ExpenseEvent.UPDATED.equals(eventType) && event.getPreviousDate() != null) {
+            record(userId, event.getPreviousCategory(), event.getPreviousDate(),
+                    -Money.toMinorUnits(event.getPreviousAmount()), ForecastProfile.NO_SIGNATURE);
+            record(userId, event.getCategory(), event.getDate(),
+                    Money.toMinorUnits(event.getAmount()), ForecastProfile.NO_SIGNATURE);
+        }
+    }
+
+    /**
+     * Project the month-end spending for a spend key.
+     *
+     * @param key the spend key
+     * @param spentMinorUnits the total spent so far in minor units
+     * @param today the current date
+     * @return the projected month-end total in minor units
+     */
+    public long forecast(SpendKey key, long spentMinorUnits, LocalDate today) {
+        ForecastProfile profile = profile(new ProfileKey(key.userId(), key.categoryId()), today);
+        return profile.forecast(key.month(), today, spentMinorUnits);
+    }
+
+    /**
+     * Save the learned state of profiles that rolled over, and drop profiles that
+     * saw no expenses for more than a month.
+     */
+    @Scheduled(fixedDelayString = "${app.spend-forecast.flush-interval-ms:60000}")
+    public void flush() {
+        List<Object[]> args = new ArrayList<>();
+        for (ProfileKey key : dirtyProfiles) {
+            dirtyProfiles.remove(key);
+            ForecastProfile profile = profiles.get(key);
+            if (profile != null) {
+                ForecastProfile.Learned learned = profile.learned();
+                args.add(new Object[]{key.userId(), key.category(), learned.month().toString(),
+                        learned.dayShares(), learned.expectedItems(), learned.previousItems()});
+            }
+        }
+        if (!args.isEmpty()) {
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_PROFILE_SQL, args);
+                log.debug("Saved {} forecast profiles", args.size());
+            } catch (RuntimeException e) {
+                for (Object[] row : args) {
+                    dirtyProfiles.add(new ProfileKey((Long) row[0], CategoryDictionary.idOf((String) row[1])));
+                }
+                log.error("Failed to save forecast profiles: {}", e.getMessage(), e);
+            }
+        }
+
+        YearMonth oldest = YearMonth.now().minusMonths(1);
+        profiles.entrySet().removeIf(entry -> !dirtyProfiles.contains(entry.getKey())
+                && entry.getValue().getMonth() != null && entry.getValue().getMonth().isBefore(oldest));
+    }
+
+    private void record(long userId, String category, LocalDate date, long amountMinorUnits, long signature) {
+        int categoryId = CategoryDictionary.idOf(category);
+        if (categoryId == CategoryDictionary.NOT_FOUND || date == null) {
+            return;
+        }
+        ProfileKey key = new ProfileKey(userId, categoryId);
+        if (profile(key, date).record(date, amountMinorUnits, signature)) {
+            dirtyProfiles.add(key);
+        }
+    }
+
+    private ForecastProfile profile(ProfileKey key, LocalDate date) {
+        ForecastProfile profile = profiles.get(key);
+        if (profile != null) {
+            return profile;
+        }
+        return profiles.computeIfAbsent(key, k -> load(k, date));
+    }
+
+    private ForecastProfile load(ProfileKey key, LocalDate date) {
+        return forecastProfileRepository.findByUserIdAndCategory(key.userId(), key.category())
+                .map(entry -> ForecastProfile.restore(toLearned(entry), date))
+                .orElseGet(ForecastProfile::new);
+    }
+
+    private static ForecastProfile.Learned toLearned(ForecastProfileEntry entry) {
+        return new ForecastProfile.Learned(entry.getMonth(), entry.getDayShares(),
+                entry.getExpectedItems(), entry.getPreviousItems());
+    }
+
+    /**
+     * An expense recurs if one with the same description and amount appears every month.
+     */
+    private static long signatureOf(ExpenseEvent event) {
+        String description = event.getDescription();
+        BigDecimal amount = event.getAmount();
+        if (description == null || description.isBlank() || amount == null) {
+            return ForecastProfile.NO_SIGNATURE;
+        }
+        long signature = ((long) description.trim().toLowerCase(Locale.ROOT).hashCode() << 32)
+                ^ Money.toMinorUnits(amount);
+        return signature == ForecastProfile.NO_SIGNATURE ? 1L : signature;
+    }
+
+    private record ProfileKey(long userId, int categoryId) {
+
+        String category() {
+            return CategoryDictionary.nameOf(categoryId);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.booking.budgetservice.service.history;
+
+import com.booking.budgetservice.dto.BudgetStatusDTO;
+import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.model.BudgetVersion;
+import com.booking.budgetservice.model.Money;
+import com.booking.budgetservice.repository.BudgetVersionRepository;
+import com.booking.budgetservice.service.BudgetTree;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the append-only history of budgets and answers budget status queries as of a
+ * past day.
+ * <p>
+ * Every change of a budget appends a version; the state of a month at the end of a day
+ * is the latest version of each budget written before the next day, if that version
+ * is in the month and not deleted. It is charged with the spend history recorded for
+ * that day, so the status is the one a user would have seen then.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BudgetHistoryService {
+
+    // Budgets created before versions were kept start with their current state
+    private static final String BACKFILL_VERSIONS_SQL =
+            "INSERT INTO budget_versions (budget_id, user_id, household_id, parent_id, category, amount, month, " +
+            "deleted, valid_from) " +
+            "SELECT b.id, b.user_id, b.household_id, b.parent_id, b.category, b.amount, b.month, FALSE, " +
+            "COALESCE(b.created_at, CURRENT_DATE) FROM budgets b " +
+            "WHERE NOT EXISTS (SELECT 1 FROM budget_versions v WHERE v.budget_id = b.id)";
+
+    private static final String INSERT_REPARENTED_SQL =
+            "INSERT INTO budget_versions (budget_id, user_id, household_id, parent_id, category, amount, month, " +
+            "deleted, valid_from) " +
+            "SELECT b.id, b.user_id, b.household_id, ?, b.category, b.amount, b.month, FALSE, ? " +
+            "FROM budgets b WHERE b.parent_id = ?";
+
+    private static final String INSERT_CARRIED_SQL =
+            "INSERT INTO budget_versions (budget_id, user_id, household_id, parent_id, category, amount, month, " +
+            "deleted, valid_from) " +
+            "SELECT b.id, b.user_id, b.household_id, b.parent_id, b.category, b.amount, b.month, FALSE, ? " +
+            "FROM budgets b WHERE b.month = ? AND b.carry_forward = TRUE " +
+            "AND NOT EXISTS (SELECT 1 FROM budget_versions v WHERE v.budget_id = b.id)";
+
+    private final BudgetVersionRepository budgetVersionRepository;
+    private final SpendHistoryService spendHistoryService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void backfillVersions() {
+        int inserted = jdbcTemplate.update(BACKFILL_VERSIONS_SQL);
+        if (inserted > 0) {
+            log.info("Recorded initial versions of {} budgets", inserted);
+        }
+    }
+
+    /**
+     * Append the current state of a created or updated budget.
+     * Must be called in the transaction that saves the budget.
+     *
+     * @param budget the saved budget
+     */
+    public void recordVersion(Budget budget) {
+        budgetVersionRepository.save(versionOf(budget, false));
+    }
+
+    /**
+     * Append the deletion of a budget.
+     * Must be called in the transaction that deletes the budget.
+     *
+     * @param budget the deleted budget
+     */
+    public void recordDeleted(Budget budget) {
+        budgetVersionRepository.save(versionOf(budget, true));
+    }
+
+    /**
+     * Append a version of every child of a budget moving to another parent.
+     * Must be called in the transaction that moves them, before they are moved.
+     *
+     * @param parentId the current parent budget ID
+     * @param newParentId the new parent budget ID, or null to make them top-level
+     */
+    public void recordReparented(Long parentId, Long newParentId) {
+        jdbcTemplate.update(INSERT_REPARENTED_SQL, newParentId, LocalDateTime.now(), parentId);
+    }
+
+    /**
+     * Append the first version of the budgets carried into a month.
+     * Must be called once their parent links are restored.
+     *
+     * @param month the month the budgets were carried into
+     * @return the number of versions appended
+     */
+    public int recordCarried(YearMonth month) {
+        return jdbcTemplate.update(INSERT_CARRIED_SQL, LocalDateTime.now(), month.toString());
+    }
+
+    /**
+     * Get the status of a user's personal budgets in a month as it was at the end of a day.
+     *
+     * @param userId the user ID
+     * @param month the month
+     * @param asOf the day
+     * @return the status of each budget that existed then, ordered by category
+     */
+    public List<BudgetStatusDTO> getBudgetStatus(Long userId, YearMonth month, LocalDate asOf) {
+        Map<Long, BudgetVersion> latest = new LinkedHashMap<>();
+        for (BudgetVersion version : budgetVersionRepository.findVersionsOfMonthBefore(
+                userId, month, asOf.plusDays(1).atStartOfDay())) {
+            // Ordered oldest first, so the last version of each budget wins
+            latest.put(version.getBudgetId(), version);
+        }
+
+        List<BudgetTree.Node> nodes = new ArrayList<>();
+        for (BudgetVersion version : latest.values()) {
+            if (!version.isDeleted() && version.getMonth().equals(month)
+                    && version.getUserId().equals(userId) && version.getHouseholdId() == null) {
+                nodes.add(new BudgetTree.Node(version.getBudgetId(), version.getParentId(), version.getCategory(),
+                        version.getAmount(), Money.toMinorUnits(version.getAmount()), null));
+            }
+        }
+        if (nodes.isEmpty()) {
+            return List.of();
+        }
+
+        int dayOfMonth = asOf.isAfter(month.atEndOfMonth()) ? month.lengthOfMonth() : asOf.getDayOfMonth();
+        Map<String, Long> spent = asOf.isBefore(month.atDay(1))
+                ? Map.of()
+                : spendHistoryService.getSpentAsOf(userId, month, dayOfMonth);
+        return BudgetTree.of(nodes, category -> spent.getOrDefault(category, 0L)).statuses();
+    }
+
+    private static BudgetVersion versionOf(Budget budget, boolean deleted) {
+        return BudgetVersion.builder()
+                .budgetId(budget.getId())
+                .userId(budget.getUserId())
+                .householdId(budget.getHouseholdId())
+                .parentId(budget.getParentId())
+                .category(budget.getCategory())
+                .amount(budget.getAmount())
+                .month(budget.getMonth())
+                .deleted(deleted)
+                .validFrom(LocalDateTime.now())
+                .build();
+    }
+}
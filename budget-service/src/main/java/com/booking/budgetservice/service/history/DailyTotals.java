@@ -0,0 +1,119 @@
+package com.booking.budgetservice.service.history;
+
+import java.util.Arrays;
+
+/**
+ * Run-length encoding of a month of end-of-day totals, one value per day starting on
+ * the 1st, as runs of {@code value*count} separated by ',' where a count of 1 is left
+ * out. Totals only change on days with spending, so a month usually has a handful of
+ * runs, and a day is found by walking the runs without decoding the whole month.
+ */
+final class DailyTotals {
+
+    private static final char RUN_SEPARATOR = ',';
+    private static final char COUNT_SEPARATOR = '*';
+
+    private DailyTotals() {
+    }
+
+    /**
+     * Get the total at the end of a day. Days past the recorded ones repeat the last
+     * recorded total.
+     *
+     * @param encoded the encoded totals, empty if none were recorded
+     * @param day the day of month
+     * @return the total in minor units, 0 if nothing was recorded up to the day
+     */
+    static long valueAt(String encoded, int day) {
+        if (encoded == null || encoded.isEmpty() || day < 1) {
+            return 0L;
+        }
+        int covered = 0;
+        long value = 0L;
+        int start = 0;
+        while (start < encoded.length() && covered < day) {
+            int end = encoded.indexOf(RUN_SEPARATOR, start);
+            if (end < 0) {
+                end = encoded.length();
+            }
+            int star = encoded.indexOf(COUNT_SEPARATOR, start);
+            if (star >= 0 && star < end) {
+                value = Long.parseLong(encoded, start, star, 10);
+                covered += Integer.parseInt(encoded, star + 1, end, 10);
+            } else {
+                value = Long.parseLong(encoded, start, end, 10);
+                covered++;
+            }
+            start = end + 1;
+        }
+        return value;
+    }
+
+    /**
+     * Record the total at the end of a day. Days skipped since the last recorded one
+     * repeat the last total, and a day that was already recorded last is overwritten.
+     *
+     * @param encoded the encoded totals, empty if none were recorded
+     * @param recordedDays the number of days recorded so far
+     * @param day the day of month to record
+     * @param value the total in minor units
+     * @return the new encoded totals, or the given ones if the day lies before the last recorded day
+     */
+    static String record(String encoded, int recordedDays, int day, long value) {
+        if (day < recordedDays) {
+            return encoded;
+        }
+        long[] values = new long[8];
+        int[] counts = new int[8];
+        int runs = 0;
+        if (encoded != null && !encoded.isEmpty()) {
+            for (String run : encoded.split(String.valueOf(RUN_SEPARATOR))) {
+                if (runs == values.length) {
+                    values = Arrays.copyOf(values, runs * 2);
+                    counts = Arrays.copyOf(counts, runs * 2);
+                }
+                int star = run.indexOf(COUNT_SEPARATOR);
+                values[runs] = Long.parseLong(star < 0 ? run : run.substring(0, star));
+                counts[runs] = star < 0 ? 1 : Integer.parseInt(run.substring(star + 1));
+                runs++;
+            }
+        }
+
+        if (day == recordedDays && runs > 0 && --counts[runs - 1] == 0) {
+            runs--;
+        }
+        int covered = day == recordedDays ? recordedDays - 1 : recordedDays;
+        if (covered < day - 1) {
+            // Carry the last total over the days that were not recorded
+            if (runs == 0) {
+                values[0] = 0L;
+                counts[0] = 0;
+                runs = 1;
+            }
+            counts[runs - 1] += day - 1 - covered;
+        }
+        if (runs > 0 && values[runs - 1] == value) {
+            counts[runs - 1]++;
+        } else {
+            if (runs == values.length) {
+                values = Arrays.copyOf(values, runs * 2);
+                counts = Arrays.copyOf(counts, runs * 2);
+            }
+            values[runs] = value;
+            counts[runs] = 1;
+            runs++;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < runs; i++) {
+            if (i > 0) {
+                builder.append(RUN_SEPARATOR);
+            }
+            builder.append(values[i]);
+            if (counts[i] > 1) {
+                builder.append(COUNT_SEPARATOR).append(counts[i]);
+            }
+        }
+        return builder.toString();
+    }
+}
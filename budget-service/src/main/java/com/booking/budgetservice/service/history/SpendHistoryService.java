@@ -0,0 +1,112 @@
+package com.booking.budgetservice.service.history;
+
+import com.booking.budgetservice.model.SpendHistoryEntry;
+import com.booking.budgetservice.repository.SpendHistoryRepository;
+import com.booking.budgetservice.service.projection.SpendKey;
+import com.booking.budgetservice.service.projection.SpendProjection;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the spending of every user and category at the end of each day, so the spend
+ * of a past day can be read back without replaying expenses.
+ * <p>
+ * Once a day the month's totals are taken from the spend projection and compared with
+ * the last recorded total of each user and category. Only totals that changed are
+ * written, as one batched upsert of the month's run-length encoded history; a day that
+ * is not written, or a run that was missed, repeats the total before it. Totals are as
+ * known at the end of the day, so expenses entered later for an earlier day do not
+ * change the recorded past.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendHistoryService {
+
+    private static final String SELECT_MONTH_SQL =
+            "SELECT user_id, category, daily_totals, recorded_days FROM spend_history WHERE month = ?";
+
+    private static final String UPSERT_HISTORY_SQL =
+            "INSERT INTO spend_history (user_id, category, month, daily_totals, recorded_days) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, category, month) DO UPDATE SET " +
+            "daily_totals = EXCLUDED.daily_totals, recorded_days = EXCLUDED.recorded_days";
+
+    private final SpendProjection spendProjection;
+    private final SpendHistoryRepository spendHistoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Record today's totals. Runs just before midnight so the day is complete.
+     */
+    @Scheduled(cron = "${app.spend-history.snapshot-cron:30 59 23 * * *}")
+    public void snapshotToday() {
+        snapshot(LocalDate.now());
+    }
+
+    /**
+     * Record the current totals as those at the end of a day of the running month.
+     *
+     * @param day the day
+     */
+    public synchronized void snapshot(LocalDate day) {
+        YearMonth month = YearMonth.from(day);
+        Map<SpendKey, Long> totals = spendProjection.totalsOf(month);
+
+        Map<SpendKey, Recorded> recorded = new HashMap<>();
+        jdbcTemplate.query(SELECT_MONTH_SQL,
+                rs -> {
+                    recorded.put(SpendKey.of(rs.getLong("user_id"), rs.getString("category"), month),
+                            new Recorded(rs.getString("daily_totals"), rs.getInt("recorded_days")));
+                },
+                month.toString());
+
+        int dayOfMonth = day.getDayOfMonth();
+        List<Object[]> args = new ArrayList<>();
+        totals.forEach((key, total) -> {
+            Recorded history = recorded.getOrDefault(key, Recorded.NONE);
+            if (history.recordedDays() > dayOfMonth
+                    || DailyTotals.valueAt(history.dailyTotals(), history.recordedDays()) == total) {
+                return;
+            }
+            String dailyTotals = DailyTotals.record(history.dailyTotals(), history.recordedDays(), dayOfMonth, total);
+            args.add(new Object[]{key.userId(), key.category(), month.toString(), dailyTotals, dayOfMonth});
+        });
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_HISTORY_SQL, args);
+        }
+        log.info("Recorded spend history of {} for {} of {} totals", day, args.size(), totals.size());
+    }
+
+    /**
+     * Get the spending of a user by category at the end of a day of a month. Days after
+     * the month repeat its last recorded day.
+     *
+     * @param userId the user ID
+     * @param month the month
+     * @param dayOfMonth the day of month
+     * @return the totals in minor units by category, without categories never recorded
+     */
+    public Map<String, Long> getSpentAsOf(Long userId, YearMonth month, int dayOfMonth) {
+        Map<String, Long> spent = new HashMap<>();
+        for (SpendHistoryEntry entry : spendHistoryRepository.findByUserIdAndMonth(userId, month)) {
+            spent.put(entry.getCategory(), DailyTotals.valueAt(entry.getDailyTotals(), dayOfMonth));
+        }
+        return spent;
+    }
+
+    private record Recorded(String dailyTotals, int recordedDays) {
+
+        static final Recorded NONE = new Recorded("", 0);
+    }
+}
@@ -0,0 +1,74 @@
+package com.booking.budgetservice.service.household;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of household memberships, read on every applied expense event and
+ * every alert of a shared budget. Only changed through
+ * {@link com.booking.budgetservice.service.projection.SpendProjection}, which keeps the
+ * household totals in step with it.
+ */
+@Component
+public class HouseholdMembership {
+
+    private final ConcurrentHashMap<Long, Long> householdOfUser = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Long>> membersOfHousehold = new ConcurrentHashMap<>();
+
+    /**
+     * @param userId the user ID
+     * @return the household of the user, or null if the user has none
+     */
+    public Long householdOf(long userId) {
+        return householdOfUser.get(userId);
+    }
+
+    /**
+     * @param householdId the household ID
+     * @return a live view of the household's members, empty if it has none
+     */
+    public Set<Long> membersOf(long householdId) {
+        Set<Long> members = membersOfHousehold.get(householdId);
+        return members == null ? Set.of() : Collections.unmodifiableSet(members);
+    }
+
+    /**
+     * Record a user as member of a household, leaving any previous household.
+     *
+     * @param userId the user ID
+     * @param householdId the household ID
+     * @return the previous household of the user, or null if none
+     */
+    public Long join(long userId, long householdId) {
+        Long previous = householdOfUser.put(userId, householdId);
+        if (previous != null && previous != householdId) {
+            removeMember(previous, userId);
+        }
+        membersOfHousehold.computeIfAbsent(householdId, id -> ConcurrentHashMap.newKeySet()).add(userId);
+        return previous;
+    }
+
+    /**
+     * Remove a user from its household.
+     *
+     * @param userId the user ID
+     * @return the household the user left, or null if it had none
+     */
+    public Long leave(long userId) {
+        Long previous = householdOfUser.remove(userId);
+        if (previous != null) {
+            removeMember(previous, userId);
+        }
+        return previous;
+    }
+
+    private void removeMember(long householdId, long userId) {
+        membersOfHousehold.computeIfPresent(householdId, (id, members) -> {
+            members.remove(userId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+}
@@ -0,0 +1,143 @@
+package com.booking.budgetservice.service.household;
+
+import com.booking.budgetservice.dto.HouseholdDTO;
+import com.booking.budgetservice.exception.ResourceNotFoundException;
+import com.booking.budgetservice.model.Household;
+import com.booking.budgetservice.model.HouseholdMember;
+import com.booking.budgetservice.repository.HouseholdMemberRepository;
+import com.booking.budgetservice.repository.HouseholdRepository;
+import com.booking.budgetservice.service.projection.SpendProjection;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service that manages households and their members.
+ * Memberships are loaded into the spend projection at startup and applied to it after
+ * every committed change, so household totals always cover the current members.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HouseholdService {
+
+    private final HouseholdRepository householdRepository;
+    private final HouseholdMemberRepository householdMemberRepository;
+    private final SpendProjection spendProjection;
+
+    @PostConstruct
+    void loadMemberships() {
+        Map<Long, Long> households = new HashMap<>();
+        for (HouseholdMember member : householdMemberRepository.findAll()) {
+            households.put(member.getUserId(), member.getHouseholdId());
+        }
+        spendProjection.joinHouseholds(households);
+        log.info("Loaded {} household memberships", households.size());
+    }
+
+    /**
+     * Create a household with its initial members.
+     *
+     * @param householdDTO the household data
+     * @return the created household
+     */
+    @Transactional
+    public HouseholdDTO createHousehold(HouseholdDTO householdDTO) {
+        Household household = householdRepository.save(Household.builder().name(householdDTO.name()).build());
+        for (Long userId : new LinkedHashSet<>(householdDTO.memberIds())) {
+            join(household.getId(), userId);
+        }
+        log.info("Created household: {} with {} members", household.getId(), householdDTO.memberIds().size());
+        return mapToDTO(household);
+    }
+
+    /**
+     * Get a household with its members.
+     *
+     * @param householdId the household ID
+     * @return the household
+     */
+    public HouseholdDTO getHousehold(Long householdId) {
+        return mapToDTO(findHousehold(householdId));
+    }
+
+    /**
+     * Add a user to a household. Their spending counts towards the household's shared
+     * budgets from then on, including what they already spent this month.
+     *
+     * @param householdId the household ID
+     * @param userId the user ID
+     * @return the household
+     */
+    @Transactional
+    public HouseholdDTO addMember(Long householdId, Long userId) {
+        Household household = findHousehold(householdId);
+        join(householdId, userId);
+        log.info("Added user {} to household {}", userId, householdId);
+        return mapToDTO(household);
+    }
+
+    /**
+     * Remove a user from a household. Their spending no longer counts towards the
+     * household's shared budgets.
+     *
+     * @param householdId the household ID
+     * @param userId the user ID
+     * @return the household
+     */
+    @Transactional
+    public HouseholdDTO removeMember(Long householdId, Long userId) {
+        Household household = findHousehold(householdId);
+        HouseholdMember member = householdMemberRepository.findByUserId(userId)
+                .filter(m -> m.getHouseholdId().equals(householdId))
+                .orElseThrow(() -> new ResourceNotFoundException(
+                        "User " + userId + " is not a member of household " + householdId));
+        householdMemberRepository.delete(member);
+        afterCommit(() -> spendProjection.leaveHousehold(userId));
+        log.info("Removed user {} from household {}", userId, householdId);
+        return mapToDTO(household);
+    }
+
+    private void join(Long householdId, Long userId) {
+        householdMemberRepository.findByUserId(userId).ifPresent(existing -> {
+            throw new IllegalArgumentException(
+                    "User " + userId + " is already a member of household " + existing.getHouseholdId());
+        });
+        householdMemberRepository.save(HouseholdMember.builder().householdId(householdId).userId(userId).build());
+        afterCommit(() -> spendProjection.joinHouseholds(Map.of(userId, householdId)));
+    }
+
+    private Household findHousehold(Long householdId) {
+        return householdRepository.findById(householdId)
+                .orElseThrow(() -> new ResourceNotFoundException("Household not found with id: " + householdId));
+    }
+
+    private HouseholdDTO mapToDTO(Household household) {
+        List<Long> memberIds = householdMemberRepository.findByHouseholdIdOrderByUserId(household.getId()).stream()
+                .map(HouseholdMember::getUserId)
+                .toList();
+        return new HouseholdDTO(household.getId(), household.getName(), memberIds);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -2,22 +2,37 @@ package com.booking.budgetservice.service.impl;
 
 import com.booking.budgetservice.dto.BudgetDTO;
 import com.booking.budgetservice.dto.BudgetStatusDTO;
+import com.booking.budgetservice.dto.UserBudgetStatusDTO;
 import com.booking.budgetservice.exception.ResourceNotFoundException;
 import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.model.CategoryDictionary;
 import com.booking.budgetservice.repository.BudgetRepository;
+import com.booking.budgetservice.service.BudgetAlertService;
+import com.booking.budgetservice.service.BudgetAlertStateService;
+import com.booking.budgetservice.service.BudgetChangelogPublisher;
 import com.booking.budgetservice.service.BudgetService;
+import com.booking.budgetservice.service.BudgetStatusCache;
+import com.booking.budgetservice.service.BudgetTree;
+import com.booking.budgetservice.service.history.BudgetHistoryService;
+import com.booking.budgetservice.service.household.HouseholdMembership;
+import com.booking.budgetservice.service.projection.SpendReader;
+import com.booking.budgetservice.service.rules.AlertRuleService;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -31,28 +46,72 @@ public class BudgetServiceImpl implements BudgetService {
     private BudgetRepository budgetRepository;
     
     @Autowired
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private SpendReader spendReader;
     
-    // Kafka topic for budget alerts
-    private static final String BUDGET_ALERTS_TOPIC = "budget-alerts";
+    @Autowired
+    private BudgetAlertStateService budgetAlertStateService;
+    
+    @Autowired
+    private BudgetStatusCache budgetStatusCache;
+    
+    @Autowired
+    private BudgetChangelogPublisher budgetChangelogPublisher;
+    
+    @Autowired
+    private AlertRuleService alertRuleService;
+    
+    @Autowired
+    private BudgetAlertService budgetAlertService;
     
-    // Simulated expense data - in a real application, this would come from the Expense Service via API calls
-    private Map<Long, Map<String, Map<YearMonth, BigDecimal>>> userExpenses = new HashMap<>();
+    @Autowired
+    private HouseholdMembership householdMembership;
+    
+    @Autowired
+    private BudgetHistoryService budgetHistoryService;
+    
+    // Users per set-based query in the bulk status API, keeps IN lists well below driver limits
+    private static final int BULK_STATUS_BATCH_SIZE = 500;
+
+    /**
+     * Register the categories of all stored budgets before any expense event is consumed,
+     * so spending in a budget-only category is tracked from the first event after a restart.
+     */
+    @PostConstruct
+    void registerCategories() {
+        List<String> categories = budgetRepository.findDistinctCategories();
+        categories.forEach(CategoryDictionary::register);
+        log.info("Registered {} budget categories", categories.size());
+    }
 
     @Override
     @Transactional
     public BudgetDTO createBudget(BudgetDTO budgetDTO) {
-        // Check if budget already exists for this user, category, and month
-        if (budgetRepository.existsByUserIdAndCategoryAndMonth(
-                budgetDTO.userId(), budgetDTO.category(), budgetDTO.month())) {
-            throw new IllegalArgumentException(
-                    "Budget already exists for user " + budgetDTO.userId() + 
-                    " in category " + budgetDTO.category() + 
-                    " for month " + budgetDTO.month());
+        if (budgetDTO.householdId() != null) {
+            validateShared(budgetDTO);
+            if (budgetRepository.existsByHouseholdIdAndCategoryAndMonth(
+                    budgetDTO.householdId(), budgetDTO.category(), budgetDTO.month())) {
+                throw new IllegalArgumentException(
+                        "Budget already exists for household " + budgetDTO.householdId() + 
+                        " in category " + budgetDTO.category() + 
+                        " for month " + budgetDTO.month());
+            }
+        } else {
+            // Check if budget already exists for this user, category, and month
+            if (budgetRepository.existsByUserIdAndCategoryAndMonthAndHouseholdIdIsNull(
+                    budgetDTO.userId(), budgetDTO.category(), budgetDTO.month())) {
+                throw new IllegalArgumentException(
+                        "Budget already exists for user " + budgetDTO.userId() + 
+                        " in category " + budgetDTO.category() + 
+                        " for month " + budgetDTO.month());
+            }
+            validateParent(null, budgetDTO.userId(), budgetDTO.month(), budgetDTO.parentId());
         }
         
         Budget budget = mapToEntity(budgetDTO);
         Budget savedBudget = budgetRepository.save(budget);
+        budgetHistoryService.recordVersion(savedBudget);
+        budgetStatusCache.budgetSaved(savedBudget, null);
+        budgetChangelogPublisher.publishBudget(savedBudget);
         log.info("Created budget: {} for user: {} in category: {} for month: {}", 
                 savedBudget.getId(), savedBudget.getUserId(), 
                 savedBudget.getCategory(), savedBudget.getMonth());
@@ -66,21 +125,52 @@ public class BudgetServiceImpl implements BudgetService {
         Budget budget = budgetRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Budget not found with id: " + id));
         
+        YearMonth previousMonth = budget.getMonth();
+        String previousCategory = budget.getCategory();
+        if (!previousMonth.equals(budgetDTO.month()) && budgetRepository.existsByParentId(id)) {
+            throw new IllegalArgumentException(
+                    "Budget " + id + " has child budgets and cannot move to another month");
+        }
+        if (!Objects.equals(budget.getHouseholdId(), budgetDTO.householdId())) {
+            throw new IllegalArgumentException("Budget " + id + " cannot move to or from a household");
+        }
+        if (budget.getHouseholdId() != null) {
+            validateShared(budgetDTO);
+        } else {
+            validateParent(id, budget.getUserId(), budgetDTO.month(), budgetDTO.parentId());
+        }
+        if (budget.getAmount().compareTo(budgetDTO.amount()) != 0) {
+            // An amount set by the user replaces whatever was carried over
+            budget.setRolloverAmount(null);
+        }
         budget.setAmount(budgetDTO.amount());
         budget.setCategory(budgetDTO.category());
         budget.setMonth(budgetDTO.month());
+        budget.setParentId(budgetDTO.parentId());
+        budget.setCarryForward(budgetDTO.carryForward());
+        budget.setRolloverUnspent(budgetDTO.rolloverUnspent());
         
         Budget updatedBudget = budgetRepository.save(budget);
+        budgetHistoryService.recordVersion(updatedBudget);
+        budgetStatusCache.budgetSaved(updatedBudget, previousMonth);
+        if (updatedBudget.getHouseholdId() == null && (!previousMonth.equals(updatedBudget.getMonth()) 
+                || !previousCategory.equals(updatedBudget.getCategory()))) {
+            budgetChangelogPublisher.publishRemoved(updatedBudget.getUserId(), previousCategory, previousMonth);
+        }
+        budgetChangelogPublisher.publishBudget(updatedBudget);
+        // A changed budget starts a fresh alert cycle
+        budgetAlertStateService.reset(updatedBudget.getId());
         log.info("Updated budget: {} for user: {} in category: {} for month: {}", 
                 updatedBudget.getId(), updatedBudget.getUserId(), 
                 updatedBudget.getCategory(), updatedBudget.getMonth());
         
         // Check if the updated budget requires alerts
-        checkBudgetAndGenerateAlerts(
-                updatedBudget.getUserId(), 
-                updatedBudget.getCategory(), 
-                getExpenseAmount(updatedBudget.getUserId(), updatedBudget.getCategory(), updatedBudget.getMonth()), 
-                updatedBudget.getMonth());
+        long spent = updatedBudget.getHouseholdId() != null
+                ? spendReader.getHouseholdSpent(updatedBudget.getHouseholdId(), updatedBudget.getCategory(),
+                        updatedBudget.getMonth())
+                : spendReader.getSpent(updatedBudget.getUserId(), updatedBudget.getCategory(),
+                        updatedBudget.getMonth());
+        budgetAlertService.checkBudgetThresholds(updatedBudget, spent);
         
         return mapToDTO(updatedBudget);
     }
@@ -91,7 +181,17 @@ public class BudgetServiceImpl implements BudgetService {
         Budget budget = budgetRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Budget not found with id: " + id));
         
+        // Children of a removed group move up a level rather than lose their budgets
+        budgetHistoryService.recordReparented(budget.getId(), budget.getParentId());
+        budgetRepository.reparentChildren(budget.getId(), budget.getParentId());
         budgetRepository.delete(budget);
+        budgetHistoryService.recordDeleted(budget);
+        budgetStatusCache.budgetDeleted(budget);
+        if (budget.getHouseholdId() == null) {
+            budgetChangelogPublisher.publishRemoved(budget.getUserId(), budget.getCategory(), budget.getMonth());
+        }
+        budgetAlertStateService.reset(budget.getId());
+        alertRuleService.deleteRules(budget.getId());
         log.info("Deleted budget: {} for user: {} in category: {} for month: {}", 
                 budget.getId(), budget.getUserId(), 
                 budget.getCategory(), budget.getMonth());
@@ -123,7 +223,7 @@ public class BudgetServiceImpl implements BudgetService {
 
     @Override
     public BudgetDTO getBudgetByUserIdCategoryAndMonth(Long userId, String category, YearMonth month) {
-        Budget budget = budgetRepository.findByUserIdAndCategoryAndMonth(userId, category, month);
+        Budget budget = budgetRepository.findByUserIdAndCategoryAndMonthAndHouseholdIdIsNull(userId, category, month);
         if (budget == null) {
             throw new ResourceNotFoundException(
                     "Budget not found for user " + userId + 
@@ -135,79 +235,137 @@ public class BudgetServiceImpl implements BudgetService {
 
     @Override
     public List<BudgetStatusDTO> getBudgetStatus(Long userId, YearMonth month) {
-        List<Budget> budgets = budgetRepository.findByUserIdAndMonth(userId, month);
-        List<BudgetStatusDTO> statusList = new ArrayList<>();
-        
-        for (Budget budget : budgets) {
-            String category = budget.getCategory();
-            BigDecimal budgetAmount = budget.getAmount();
-            BigDecimal expenseAmount = getExpenseAmount(userId, category, month);
-            BigDecimal remainingAmount = budgetAmount.subtract(expenseAmount);
-            boolean isOverspent = remainingAmount.compareTo(BigDecimal.ZERO) < 0;
-            
-            BudgetStatusDTO status = new BudgetStatusDTO(
-                    category,
-                    budgetAmount,
-                    expenseAmount,
-                    remainingAmount,
-                    isOverspent
-            );
-            
-            statusList.add(status);
+        // Served from the cache, which is kept current by budget writes and spend deltas
+        return budgetStatusCache.getStatus(userId, month);
+    }
+
+    @Override
+    public List<BudgetStatusDTO> getBudgetStatus(Long userId, YearMonth month, LocalDate asOf) {
+        if (!asOf.isBefore(LocalDate.now())) {
+            // Today is not recorded until it ends, and its status is the current one
+            return getBudgetStatus(userId, month);
         }
-        
-        return statusList;
+        return budgetHistoryService.getBudgetStatus(userId, month, asOf);
     }
 
     @Override
-    public void checkBudgetAndGenerateAlerts(Long userId, String category, BigDecimal amount, YearMonth month) {
-        Budget budget = budgetRepository.findByUserIdAndCategoryAndMonth(userId, category, month);
-        
-        // If no budget is set for this category, no alerts needed
-        if (budget == null) {
-            return;
+    @Transactional(readOnly = true)
+    public void streamBudgetStatus(List<Long> userIds, YearMonth fromMonth, YearMonth toMonth,
+                                   Consumer<UserBudgetStatusDTO> sink) {
+        List<YearMonth> months = new ArrayList<>();
+        for (YearMonth month = fromMonth; !month.isAfter(toMonth); month = month.plusMonths(1)) {
+            months.add(month);
         }
+        List<Long> distinctUserIds = new ArrayList<>(new LinkedHashSet<>(userIds));
         
-        BigDecimal budgetAmount = budget.getAmount();
-        BigDecimal currentExpense = getExpenseAmount(userId, category, month);
-        BigDecimal totalExpense = currentExpense.add(amount);
-        BigDecimal remainingBudget = budgetAmount.subtract(totalExpense);
-        
-        // Check if this expense would cause overspending
-        if (remainingBudget.compareTo(BigDecimal.ZERO) < 0) {
-            // Create alert message
-            Map<String, Object> alert = new HashMap<>();
-            alert.put("userId", userId);
-            alert.put("category", category);
-            alert.put("budgetAmount", budgetAmount);
-            alert.put("expenseAmount", totalExpense);
-            alert.put("overspentAmount", remainingBudget.abs());
-            alert.put("month", month.toString());
-            alert.put("timestamp", System.currentTimeMillis());
+        for (int from = 0; from < distinctUserIds.size(); from += BULK_STATUS_BATCH_SIZE) {
+            List<Long> batch = distinctUserIds.subList(from, Math.min(from + BULK_STATUS_BATCH_SIZE, distinctUserIds.size()));
             
-            // Send alert to Kafka topic
-            kafkaTemplate.send(BUDGET_ALERTS_TOPIC, alert);
+            // One query per batch, then group in memory by user and month
+            Map<Long, Map<YearMonth, List<BudgetTree.Node>>> byUserAndMonth = new HashMap<>();
+            for (Budget budget : budgetRepository.findByUserIdInAndMonthInAndHouseholdIdIsNull(batch, months)) {
+                byUserAndMonth
+                        .computeIfAbsent(budget.getUserId(), id -> new HashMap<>())
+                        .computeIfAbsent(budget.getMonth(), m -> new ArrayList<>())
+                        .add(BudgetTree.Node.of(budget));
+            }
             
-            log.info("Budget alert generated for user: {} in category: {} for month: {}", 
-                    userId, category, month);
+            for (Long userId : batch) {
+                Map<YearMonth, List<BudgetTree.Node>> byMonth = byUserAndMonth.get(userId);
+                if (byMonth == null) {
+                    continue;
+                }
+                for (YearMonth month : months) {
+                    List<BudgetTree.Node> nodes = byMonth.get(month);
+                    if (nodes != null) {
+                        BudgetTree tree = BudgetTree.of(nodes,
+                                category -> getExpenseAmount(userId, category, month));
+                        sink.accept(new UserBudgetStatusDTO(userId, month, tree.statuses()));
+                    }
+                }
+            }
         }
     }
-    
+
     /**
-     * Get the expense amount for a user in a specific category and month.
-     * In a real application, this would call the Expense Service API.
+     * Get the expense amount for a user in a specific category and month
+     * from the spend projection fed by expense events.
      *
      * @param userId the user ID
      * @param category the category
      * @param month the month
-     * @return the expense amount
+     * @return the expense amount in minor units
+     */
+    private long getExpenseAmount(Long userId, String category, YearMonth month) {
+        return spendReader.getSpent(userId, category, month);
+    }
+    
+    /**
+     * Check that a parent budget belongs to the same user and month, and that the
+     * resulting hierarchy has no cycle and stays within {@link BudgetTree#MAX_DEPTH} levels.
+     *
+     * @param budgetId the ID of the budget being updated, or null for a new budget
+     * @param userId the user ID
+     * @param month the month
+     * @param parentId the requested parent budget ID, or null for a top-level budget
      */
-    private BigDecimal getExpenseAmount(Long userId, String category, YearMonth month) {
-        // Simulated expense data - in a real application, this would come from the Expense Service
-        return userExpenses
-                .getOrDefault(userId, new HashMap<>())
-                .getOrDefault(category, new HashMap<>())
-                .getOrDefault(month, BigDecimal.ZERO);
+    private void validateParent(Long budgetId, Long userId, YearMonth month, Long parentId) {
+        if (parentId == null) {
+            return;
+        }
+        Map<Long, Budget> budgets = new HashMap<>();
+        for (Budget budget : budgetRepository.findByUserIdAndMonthAndHouseholdIdIsNull(userId, month)) {
+            budgets.put(budget.getId(), budget);
+        }
+        if (!budgets.containsKey(parentId)) {
+            throw new IllegalArgumentException(
+                    "Parent budget " + parentId + " not found for user " + userId + " in month " + month);
+        }
+        
+        // Levels from the parent up to the top, the budget itself adds one more
+        int levels = 0;
+        for (Long current = parentId; current != null; current = budgets.get(current).getParentId()) {
+            if (current.equals(budgetId)) {
+                throw new IllegalArgumentException("Budget " + budgetId + " cannot be nested under itself");
+            }
+            if (!budgets.containsKey(current) || ++levels >= BudgetTree.MAX_DEPTH) {
+                break;
+            }
+        }
+        int height = budgetId == null ? 1 : height(budgetId, budgets.values());
+        if (levels + height > BudgetTree.MAX_DEPTH) {
+            throw new IllegalArgumentException(
+                    "Budgets can be nested at most " + BudgetTree.MAX_DEPTH + " levels deep");
+        }
+    }
+    
+    /**
+     * Check that a shared budget is created by a member of its household and is not
+     * part of a budget hierarchy.
+     *
+     * @param budgetDTO the shared budget
+     */
+    private void validateShared(BudgetDTO budgetDTO) {
+        if (!budgetDTO.householdId().equals(householdMembership.householdOf(budgetDTO.userId()))) {
+            throw new IllegalArgumentException(
+                    "User " + budgetDTO.userId() + " is not a member of household " + budgetDTO.householdId());
+        }
+        if (budgetDTO.parentId() != null) {
+            throw new IllegalArgumentException("Household budgets cannot be nested");
+        }
+    }
+    
+    /**
+     * Number of levels of a budget and its descendants.
+     */
+    private int height(Long budgetId, Collection<Budget> budgets) {
+        int height = 1;
+        for (Budget budget : budgets) {
+            if (budgetId.equals(budget.getParentId())) {
+                height = Math.max(height, height(budget.getId(), budgets) + 1);
+            }
+        }
+        return height;
     }
     
     /**
@@ -222,7 +380,11 @@ public class BudgetServiceImpl implements BudgetService {
                 budget.getUserId(),
                 budget.getCategory(),
                 budget.getAmount(),
-                budget.getMonth()
+                budget.getMonth(),
+                budget.getParentId(),
+                budget.getCarryForward(),
+                budget.getRolloverUnspent(),
+                budget.getHouseholdId()
         );
     }
     
@@ -239,6 +401,10 @@ public class BudgetServiceImpl implements BudgetService {
                 .category(budgetDTO.category())
                 .amount(budgetDTO.amount())
                 .month(budgetDTO.month())
+                .parentId(budgetDTO.parentId())
+                .carryForward(budgetDTO.carryForward())
+                .rolloverUnspent(budgetDTO.rolloverUnspent())
+                .householdId(budgetDTO.householdId())
                 .build();
     }
 }
\ No newline at end of file
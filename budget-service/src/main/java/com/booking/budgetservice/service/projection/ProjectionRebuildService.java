@@ -0,0 +1,344 @@
+package com.booking.budgetservice.service.projection;
+
+import com.booking.budgetservice.dto.ProjectionRebuildStatusDTO;
+import com.booking.budgetservice.event.ExpenseEvent;
+import com.booking.budgetservice.service.BudgetStatusCache;
+import com.booking.budgetservice.service.ExpenseEventConsumerService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds the spend projection from the full history of the expenses topic, e.g. after
+ * a schema change or lost state.
+ * <p>
+ * Every partition is replayed by its own read-only consumer on its own thread into a
+ * plain map, without the projection's locks and adders. Totals are written into offline
+ * copies of the checkpoint tables in batches, together with the partition offset they
+ * include, so an interrupted rebuild resumes from the last batch. The live projection
+ * keeps serving from the old state meanwhile. Once every partition reached the end
+ * offset seen at the start, the listener container is stopped, the copies are renamed
+ * over the checkpoint tables in one transaction, the projection is reloaded, and the
+ * container restarts; its recovery replays events that arrived during the rebuild.
+ * <p>
+ * Other instances would keep their old in-memory state and checkpoint it over the new
+ * tables; {@link SpendProjectionOwnerLock} ensures there are none.
+ */
+@Service
+@ConditionalOnProperty(name = "app.kafka-streams.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class ProjectionRebuildService {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private static final String CREATE_ENTRIES_COPY_SQL =
+            "CREATE TABLE IF NOT EXISTS spend_projection_rebuild (LIKE spend_projection INCLUDING ALL)";
+
+    private static final String CREATE_OFFSETS_COPY_SQL =
+            "CREATE TABLE IF NOT EXISTS projection_offsets_rebuild (LIKE projection_offsets INCLUDING ALL)";
+
+    private static final String SELECT_PARTITION_ENTRIES_SQL =
+            "SELECT user_id, category, month, amount_minor_units FROM spend_projection_rebuild " +
+            "WHERE kafka_partition = ?";
+
+    private static final String SELECT_PARTITION_OFFSET_SQL =
+            "SELECT next_offset FROM projection_offsets_rebuild WHERE topic = ? AND kafka_partition = ?";
+
+    private static final String UPSERT_ENTRY_SQL =
+            "INSERT INTO spend_projection_rebuild (user_id, category, month, amount_minor_units, kafka_partition) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, category, month) DO UPDATE SET " +
+            "amount_minor_units = EXCLUDED.amount_minor_units, kafka_partition = EXCLUDED.kafka_partition";
+
+    private static final String UPSERT_OFFSET_SQL =
+            "INSERT INTO projection_offsets_rebuild (topic, kafka_partition, next_offset) VALUES (?, ?, ?) " +
+            "ON CONFLICT (topic, kafka_partition) DO UPDATE SET next_offset = EXCLUDED.next_offset";
+
+    private final ConsumerFactory<String, ExpenseEvent> expenseEventConsumerFactory;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SpendProjectionCheckpointService checkpointService;
+    private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+    private final BudgetStatusCache budgetStatusCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.kafka.topic.expenses:expenses-topic}")
+    private String expensesTopic;
+
+    @Value("${app.spend-projection.rebuild.max-threads:16}")
+    private int maxThreads;
+
+    @Value("${app.spend-projection.rebuild.checkpoint-events:500000}")
+    private long checkpointEvents;
+
+    @Value("${app.spend-projection.rebuild.max-poll-records:5000}")
+    private int maxPollRecords;
+
+    @Value("${app.spend-projection.rebuild.on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong replayedEvents = new AtomicLong();
+    private final AtomicLong totalEvents = new AtomicLong();
+    private volatile String state = "IDLE";
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("spend.projection.rebuild.replayed", replayedEvents, AtomicLong::get)
+                .description("Expense events replayed by the running or last projection rebuild")
+                .register(meterRegistry);
+        Gauge.builder("spend.projection.rebuild.remaining", this, service -> service.remainingEvents())
+                .description("Expense events left to replay by the running projection rebuild")
+                .register(meterRegistry);
+        Gauge.builder("spend.projection.rebuild.running", running, flag -> flag.get() ? 1 : 0)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            start(false);
+        }
+    }
+
+    /**
+     * Start a rebuild in the background.
+     *
+     * @param restart true to discard the progress of an interrupted rebuild instead of resuming it
+     * @return false if a rebuild is already running
+     */
+    public boolean start(boolean restart) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        replayedEvents.set(0L);
+        totalEvents.set(0L);
+        startedAt = Instant.now();
+        finishedAt = null;
+        error = null;
+        state = "REPLAYING";
+        Thread coordinator = new Thread(() -> {
+            try {
+                rebuild(restart);
+                state = "COMPLETED";
+            } catch (Exception e) {
+                state = "FAILED";
+                error = e.getMessage();
+                log.error("Spend projection rebuild failed, it resumes from its last batch when started again", e);
+            } finally {
+                finishedAt = Instant.now();
+                running.set(false);
+            }
+        }, "spend-projection-rebuild");
+        coordinator.setDaemon(true);
+        coordinator.start();
+        return true;
+    }
+
+    /**
+     * @return the progress of the running or last rebuild
+     */
+    public ProjectionRebuildStatusDTO getStatus() {
+        long replayed = replayedEvents.get();
+        Instant start = startedAt;
+        long perSecond = 0L;
+        if (start != null) {
+            Instant end = finishedAt != null ? finishedAt : Instant.now();
+            long millis = Math.max(1L, Duration.between(start, end).toMillis());
+            perSecond = replayed * 1000L / millis;
+        }
+        return new ProjectionRebuildStatusDTO(state, start, replayed, totalEvents.get(), perSecond, error);
+    }
+
+    private long remainingEvents() {
+        return running.get() ? Math.max(0L, totalEvents.get() - replayedEvents.get()) : 0L;
+    }
+
+    private void rebuild(boolean restart) throws InterruptedException, ExecutionException {
+        jdbcTemplate.execute(CREATE_ENTRIES_COPY_SQL);
+        jdbcTemplate.execute(CREATE_OFFSETS_COPY_SQL);
+        if (restart) {
+            jdbcTemplate.execute("TRUNCATE spend_projection_rebuild, projection_offsets_rebuild");
+        }
+
+        List<TopicPartition> partitions = new ArrayList<>();
+        Map<TopicPartition, Long> endOffsets;
+        try (Consumer<String, ExpenseEvent> consumer = expenseEventConsumerFactory.createConsumer(null, "-rebuild")) {
+            for (PartitionInfo info : consumer.partitionsFor(expensesTopic)) {
+                partitions.add(new TopicPartition(info.topic(), info.partition()));
+            }
+            // Under read_committed this is the last stable offset, i.e. everything committed so far
+            endOffsets = consumer.endOffsets(partitions);
+        }
+        log.info("Rebuilding spend projection from {} partitions of {} up to {}", partitions.size(), expensesTopic, endOffsets);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(partitions.size(), maxThreads)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "spend-projection-rebuild-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        try {
+            List<Future<?>> replays = new ArrayList<>(partitions.size());
+            for (TopicPartition partition : partitions) {
+                long target = endOffsets.getOrDefault(partition, 0L);
+                replays.add(executor.submit(() -> replayPartition(partition, target)));
+            }
+            for (Future<?> replay : replays) {
+                replay.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        state = "SWAPPING";
+        swapIn(partitions);
+        log.info("Spend projection rebuilt from {} events in {} ms", replayedEvents.get(),
+                Duration.between(startedAt, Instant.now()).toMillis());
+    }
+
+    /**
+     * Replay one partition up to the target offset into the offline tables.
+     */
+    private void replayPartition(TopicPartition partition, long target) {
+        Map<SpendKey, long[]> totals = new HashMap<>();
+        Set<SpendKey> dirty = new HashSet<>();
+        jdbcTemplate.query(SELECT_PARTITION_ENTRIES_SQL,
+                rs -> {
+                    SpendKey key = SpendKey.of(rs.getLong("user_id"), rs.getString("category"),
+                            YearMonth.parse(rs.getString("month")));
+                    totals.put(key, new long[]{rs.getLong("amount_minor_units")});
+                },
+                partition.partition());
+        List<Long> resumeOffsets = jdbcTemplate.queryForList(SELECT_PARTITION_OFFSET_SQL, Long.class,
+                partition.topic(), partition.partition());
+
+        Properties overrides = new Properties();
+        // Only string values are picked up by the consumer factory
+        overrides.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(maxPollRecords));
+        overrides.setProperty(ConsumerConfig.FETCH_MIN_BYTES_CONFIG, String.valueOf(1024 * 1024));
+        overrides.setProperty(ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, String.valueOf(16 * 1024 * 1024));
+        try (Consumer<String, ExpenseEvent> consumer = expenseEventConsumerFactory.createConsumer(
+                null, "-rebuild", "-" + partition.partition(), overrides)) {
+            consumer.assign(List.of(partition));
+            if (resumeOffsets.isEmpty()) {
+                consumer.seekToBeginning(List.of(partition));
+            } else {
+                consumer.seek(partition, resumeOffsets.get(0));
+            }
+            totalEvents.addAndGet(Math.max(0L, target - consumer.position(partition)));
+
+            long sinceCheckpoint = 0L;
+            while (consumer.position(partition) < target) {
+                long replayed = 0L;
+                for (ConsumerRecord<String, ExpenseEvent> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.offset() >= target) {
+                        continue;
+                    }
+                    if (record.value() != null) {
+                        for (SpendDelta delta : SpendDeltas.from(record.value())) {
+                            totals.computeIfAbsent(delta.key(), k -> new long[1])[0] += delta.deltaMinorUnits();
+                            dirty.add(delta.key());
+                        }
+                    }
+                    replayed++;
+                }
+                replayedEvents.addAndGet(replayed);
+                sinceCheckpoint += replayed;
+                if (sinceCheckpoint >= checkpointEvents) {
+                    checkpoint(partition, totals, dirty, Math.min(consumer.position(partition), target));
+                    sinceCheckpoint = 0L;
+                }
+            }
+            checkpoint(partition, totals, dirty, target);
+        }
+        log.info("Replayed {} to offset {} into {} spend totals", partition, target, totals.size());
+    }
+
+    private void checkpoint(TopicPartition partition, Map<SpendKey, long[]> totals, Set<SpendKey> dirty, long nextOffset) {
+        List<Object[]> args = new ArrayList<>(dirty.size());
+        for (SpendKey key : dirty) {
+            args.add(new Object[]{key.userId(), key.category(), key.month().toString(),
+                    totals.get(key)[0], partition.partition()});
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPSERT_ENTRY_SQL, args);
+            jdbcTemplate.update(UPSERT_OFFSET_SQL, partition.topic(), partition.partition(), nextOffset);
+        });
+        dirty.clear();
+    }
+
+    /**
+     * Replace the checkpoint tables with the rebuilt copies and reload the projection.
+     */
+    private void swapIn(List<TopicPartition> partitions) {
+        MessageListenerContainer container =
+                kafkaListenerEndpointRegistry.getListenerContainer(ExpenseEventConsumerService.LISTENER_ID);
+        if (container != null) {
+            // Waits for the batch in progress, so no deltas are applied while tables move
+            container.stop();
+        }
+        try {
+            checkpointService.replaceCheckpoint(() -> {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.execute("DROP TABLE spend_projection");
+                    jdbcTemplate.execute("ALTER TABLE spend_projection_rebuild RENAME TO spend_projection");
+                    jdbcTemplate.update("DELETE FROM projection_offsets WHERE topic = ?", expensesTopic);
+                    jdbcTemplate.update("INSERT INTO projection_offsets (topic, kafka_partition, next_offset) " +
+                            "SELECT topic, kafka_partition, next_offset FROM projection_offsets_rebuild WHERE topic = ?",
+                            expensesTopic);
+                    jdbcTemplate.execute("DROP TABLE projection_offsets_rebuild");
+                });
+                for (TopicPartition partition : partitions) {
+                    checkpointService.loadPartition(partition.partition());
+                }
+            });
+            budgetStatusCache.reloadAll();
+        } finally {
+            if (container != null) {
+                // Reassignment recovers every partition from the new checkpoint up to its committed offset
+                container.start();
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.booking.budgetservice.service.projection;
+
+/**
+ * Callback for components that maintain state derived from the spend projection.
+ * Invoked on the consumer thread after a delta has been applied.
+ */
+public interface SpendChangeListener {
+
+    /**
+     * @param key the total that changed
+     * @param spentMinorUnits the new total in minor units
+     */
+    void onSpendChanged(SpendKey key, long spentMinorUnits);
+
+    /**
+     * Called after the change of a member's total was added to its household.
+     *
+     * @param householdKey the household total that changed, see {@link SpendKey#householdKey}
+     * @param spentMinorUnits the new household total in minor units
+     */
+    default void onHouseholdSpendChanged(SpendKey householdKey, long spentMinorUnits) {
+    }
+}
@@ -0,0 +1,7 @@
+package com.booking.budgetservice.service.projection;
+
+/**
+ * A change applied to a spend projection total, in minor units.
+ */
+public record SpendDelta(SpendKey key, long deltaMinorUnits) {
+}
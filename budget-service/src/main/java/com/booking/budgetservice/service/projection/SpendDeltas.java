@@ -0,0 +1,83 @@
+package com.booking.budgetservice.service.projection;
+
+import com.booking.budgetservice.event.ExpenseEvent;
+import com.booking.budgetservice.model.Money;
+import lombok.extern.slf4j.Slf4j;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Translates expense events into spend deltas. Creates add the amount, deletes
+ * subtract it, and updates reverse the previous values before adding the new ones.
+ * Amounts in a category that is not registered are never counted, so they imply no delta.
+ */
+@Slf4j
+public final class SpendDeltas {
+
+    private SpendDeltas() {
+    }
+
+    /**
+     * @param event the expense event
+     * @return the deltas it implies, empty if the event cannot be applied
+     */
+    public static List<SpendDelta> from(ExpenseEvent event) {
+        long userId;
+        try {
+            // Parsed once here; everything downstream works on the primitive ID
+            userId = Long.parseLong(event.getUserId());
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring expense event {} with non-numeric user ID: {}", event.getEventId(), event.getUserId());
+            return List.of();
+        }
+
+        if (event.getCategory() == null || event.getDate() == null || event.getAmount() == null) {
+            log.warn("Ignoring expense event {} without category, date or amount", event.getEventId());
+            return List.of();
+        }
+
+        String eventType = event.getEventType();
+        if (ExpenseEvent.CREATED.equals(eventType)) {
+            return known(event, delta(userId, event.getCategory(), event.getDate(), event.getAmount(), 1));
+        }
+        if (ExpenseEvent.DELETED.equals(eventType)) {
+            return known(event, delta(userId, event.getCategory(), event.getDate(), event.getAmount(), -1));
+        }
+        if (ExpenseEvent.UPDATED.equals(eventType)) {
+            if (event.getPreviousAmount() == null || event.getPreviousCategory() == null
+                    || event.getPreviousDate() == null) {
+                log.warn("Ignoring update event {} without previous values for expense {}",
+                        event.getEventId(), event.getExpenseId());
+                return List.of();
+            }
+            return known(event,
+                    delta(userId, event.getPreviousCategory(), event.getPreviousDate(), event.getPreviousAmount(), -1),
+                    delta(userId, event.getCategory(), event.getDate(), event.getAmount(), 1));
+        }
+
+        log.warn("Ignoring expense event {} with unknown type: {}", event.getEventId(), eventType);
+        return List.of();
+    }
+
+    private static SpendDelta delta(long userId, String category, LocalDate date, BigDecimal amount, int sign) {
+        SpendKey key = SpendKey.find(userId, category, YearMonth.from(date));
+        return key == null ? null : new SpendDelta(key, sign * Money.toMinorUnits(amount));
+    }
+
+    private static List<SpendDelta> known(ExpenseEvent event, SpendDelta... deltas) {
+        List<SpendDelta> known = new ArrayList<>(deltas.length);
+        for (SpendDelta delta : deltas) {
+            if (delta != null) {
+                known.add(delta);
+            }
+        }
+        if (known.size() < deltas.length) {
+            log.warn("Ignoring amounts of expense event {} in an unknown category", event.getEventId());
+        }
+        return known;
+    }
+}
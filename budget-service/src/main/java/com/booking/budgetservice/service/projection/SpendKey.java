@@ -0,0 +1,118 @@
+package com.booking.budgetservice.service.projection;
+
+import com.booking.budgetservice.model.CategoryDictionary;
+
+import java.time.YearMonth;
+
+/**
+ * Key of a spend projection total: one user's spending in one category and month.
+ * Household totals use the same key with the household ID in place of the user ID.
+ * <p>
+ * All components are primitives, the category as its {@link CategoryDictionary} ID and
+ * the month as months since year 0, so hashing and comparing a key on the hot path never
+ * touches a string or a {@link YearMonth}.
+ */
+public record SpendKey(long userId, int categoryId, int monthIndex) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Create a key, registering its category. Only for categories that are already known:
+     * those of budgets and of stored spending, which was recorded under known categories.
+     *
+     * @param userId the user ID
+     * @param category the category name
+     * @param month the month
+     * @return the key
+     */
+    public static SpendKey of(long userId, String category, YearMonth month) {
+        return new SpendKey(userId, CategoryDictionary.register(category), monthIndexOf(month));
+    }
+
+    /**
+     * Find the key of a registered category, for categories from requests and events.
+     *
+     * @param userId the user ID
+     * @param category the category name
+     * @param month the month
+     * @return the key, or null if the category is not registered
+     */
+    public static SpendKey find(long userId, String category, YearMonth month) {
+        int categoryId = CategoryDictionary.idOf(category);
+        return categoryId == CategoryDictionary.NOT_FOUND ? null
+                : new SpendKey(userId, categoryId, monthIndexOf(month));
+    }
+
+    /**
+     * @param month the month
+     * @return the month as months since year 0
+     */
+    public static int monthIndexOf(YearMonth month) {
+        return month.getYear() * 12 + month.getMonthValue() - 1;
+    }
+
+    /**
+     * Parse a key produced by {@link #format()}.
+     *
+     * @param value the formatted key
+     * @return the key, or null if its category is not registered
+     */
+    public static SpendKey parse(String value) {
+        int first = value.indexOf(SEPARATOR);
+        int last = value.lastIndexOf(SEPARATOR);
+        if (first < 0 || first == last) {
+            throw new IllegalArgumentException("Invalid spend key: " + value);
+        }
+        return find(
+                Long.parseLong(value.substring(0, first)),
+                value.substring(first + 1, last),
+                YearMonth.parse(value.substring(last + 1)));
+    }
+
+    /**
+     * The key of the same category and month in a household's totals.
+     *
+     * @param householdId the household ID
+     * @return the household key
+     */
+    public SpendKey householdKey(long householdId) {
+        return new SpendKey(householdId, categoryId, monthIndex);
+    }
+
+    /**
+     * @return the category name
+     */
+    public String category() {
+        return CategoryDictionary.nameOf(categoryId);
+    }
+
+    /**
+     * @return the month
+     */
+    public YearMonth month() {
+        return YearMonth.of(monthIndex / 12, monthIndex % 12 + 1);
+    }
+
+    /**
+     * Format the key as {@code userId|category|yyyy-MM}, used as the Kafka record key
+     * for spend totals and the budgets changelog so both are co-partitioned.
+     *
+     * @return the formatted key
+     */
+    public String format() {
+        return format(userId, category(), month());
+    }
+
+    /**
+     * Format a key without looking up its category.
+     *
+     * @param userId the user ID
+     * @param category the category name
+     * @param month the month
+     * @return the formatted key
+     * @see #format()
+     */
+    public static String format(long userId, String category, YearMonth month) {
+        return userId + SEPARATOR + category + SEPARATOR + month;
+    }
+}
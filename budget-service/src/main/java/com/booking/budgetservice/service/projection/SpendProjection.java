@@ -0,0 +1,369 @@
+package com.booking.budgetservice.service.projection;
+
+import com.booking.budgetservice.event.ExpenseEvent;
+import com.booking.budgetservice.model.SpendProjectionEntry;
+import com.booking.budgetservice.service.household.HouseholdMembership;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory projection of spending per user, category and month, fed by expense events.
+ * <p>
+ * Totals are {@link LongAdder}s of minor units so concurrent listener threads can apply
+ * deltas without contending on a single lock. Updates and deletes are applied as deltas
+ * against the previous values carried on the event. A read/write lock is only used so
+ * that checkpoints see a consistent cut of totals and consumed offsets: appliers share
+ * the read lock, and {@link #snapshot()} briefly takes the write lock.
+ * <p>
+ * Household totals are the sum of their members' totals and are maintained alongside
+ * them: every applied or loaded change of a member is added to its household, and a
+ * member joining or leaving moves its totals in or out under the write lock. They are
+ * derived state and not checkpointed.
+ * <p>
+ * Only the current month and the retained months before it are held: the previous month
+ * for rollover, and the baseline months of the budget simulation. Older months are
+ * dropped nightly once checkpointed, and events for them are skipped; their totals stay
+ * in the checkpoint as they were.
+ * <p>
+ * The projection holds only the partitions assigned to this instance, yet it is read as
+ * the whole of the spending. The service therefore runs as a single instance in this
+ * mode, which {@link SpendProjectionOwnerLock} enforces; scaling out requires the Kafka
+ * Streams mode, whose reads are routed to the instance owning the key.
+ */
+@Component
+@Slf4j
+public class SpendProjection implements SpendReader {
+
+    private final HouseholdMembership householdMembership;
+
+    private final ConcurrentHashMap<SpendKey, LongAdder> totals = new ConcurrentHashMap<>();
+
+    // Keyed by SpendKey#householdKey
+    private final ConcurrentHashMap<SpendKey, LongAdder> householdTotals = new ConcurrentHashMap<>();
+
+    // Keys changed since the last checkpoint, mapped to their source partition
+    private final ConcurrentHashMap<SpendKey, Integer> dirtyKeys = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Integer, Long> nextOffsets = new ConcurrentHashMap<>();
+
+    private final ReentrantReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    // Months before the current one that are kept, at least one for rollover
+    @Value("${app.spend-projection.retention-months:3}")
+    private int retentionMonths;
+
+    @Value("${app.budget-simulation.baseline-months:3}")
+    private int baselineMonths;
+
+    // Month index of the oldest retained month
+    private volatile int oldestMonthIndex = Integer.MIN_VALUE;
+
+    public SpendProjection(HouseholdMembership householdMembership) {
+        this.householdMembership = householdMembership;
+    }
+
+    @PostConstruct
+    void start() {
+        oldestMonthIndex = SpendKey.monthIndexOf(oldestRetainedMonth());
+    }
+
+    /**
+     * Apply an expense event consumed from the given partition and offset.
+     * Events at or below an offset that was already applied are ignored, which makes
+     * redelivery after a seek or rebalance harmless.
+     *
+     * @param event the expense event
+     * @param partition the source partition
+     * @param offset the record offset
+     * @return the deltas that were applied, empty if the event was skipped
+     */
+    public List<SpendDelta> apply(ExpenseEvent event, int partition, long offset) {
+        checkpointLock.readLock().lock();
+        try {
+            Long next = nextOffsets.get(partition);
+            if (next != null && offset < next) {
+                return List.of();
+            }
+            List<SpendDelta> deltas = new ArrayList<>(2);
+            for (SpendDelta delta : SpendDeltas.from(event)) {
+                if (!retains(delta.key())) {
+                    continue;
+                }
+                totals.computeIfAbsent(delta.key(), k -> new LongAdder()).add(delta.deltaMinorUnits());
+                addToHousehold(delta.key(), delta.deltaMinorUnits());
+                dirtyKeys.put(delta.key(), partition);
+                deltas.add(delta);
+            }
+            nextOffsets.merge(partition, offset + 1, Math::max);
+            return deltas;
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param key a spend key
+     * @return true if the month of the key is held by the projection
+     */
+    public boolean retains(SpendKey key) {
+        return key.monthIndex() >= oldestMonthIndex;
+    }
+
+    @Override
+    public long getSpent(Long userId, String category, YearMonth month) {
+        SpendKey key = SpendKey.find(userId, category, month);
+        return key == null ? 0L : getSpent(key);
+    }
+
+    /**
+     * Get the projected spending for a key.
+     *
+     * @param key the spend key
+     * @return the spending in minor units
+     */
+    public long getSpent(SpendKey key) {
+        LongAdder total = totals.get(key);
+        return total == null ? 0L : total.sum();
+    }
+
+    @Override
+    public long getHouseholdSpent(Long householdId, String category, YearMonth month) {
+        SpendKey key = SpendKey.find(householdId, category, month);
+        return key == null ? 0L : getHouseholdSpent(key);
+    }
+
+    /**
+     * Get the combined spending of a household's members for a household key.
+     *
+     * @param householdKey the key, with the household ID in place of the user ID
+     * @return the spending in minor units
+     */
+    public long getHouseholdSpent(SpendKey householdKey) {
+        LongAdder total = householdTotals.get(householdKey);
+        return total == null ? 0L : total.sum();
+    }
+
+    /**
+     * @param userId the user ID
+     * @return the household whose totals include the user's spending, or null if none
+     */
+    public Long householdOf(long userId) {
+        return householdMembership.householdOf(userId);
+    }
+
+    /**
+     * Make users members of households and add their totals to their household.
+     *
+     * @param households the household ID per user ID
+     */
+    public void joinHouseholds(Map<Long, Long> households) {
+        checkpointLock.writeLock().lock();
+        try {
+            for (Map.Entry<Long, Long> membership : households.entrySet()) {
+                removeFromHousehold(membership.getKey(), householdMembership.join(membership.getKey(), membership.getValue()));
+            }
+            totals.forEach((key, total) -> {
+                Long householdId = households.get(key.userId());
+                if (householdId != null) {
+                    householdTotals.computeIfAbsent(key.householdKey(householdId), k -> new LongAdder()).add(total.sum());
+                }
+            });
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a user from its household and take the user's totals out of it.
+     *
+     * @param userId the user ID
+     */
+    public void leaveHousehold(long userId) {
+        checkpointLock.writeLock().lock();
+        try {
+            removeFromHousehold(userId, householdMembership.leave(userId));
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the next offset to consume for a partition, if anything was loaded or applied.
+     *
+     * @param partition the partition
+     * @return the next offset, or null if unknown
+     */
+    public Long getNextOffset(int partition) {
+        return nextOffsets.get(partition);
+    }
+
+    /**
+     * Replace the state of a partition with checkpointed rows.
+     *
+     * @param partition the partition
+     * @param entries the checkpointed totals for that partition
+     * @param nextOffset the checkpointed next offset, or null if there is none
+     */
+    public void load(int partition, List<SpendProjectionEntry> entries, Long nextOffset) {
+        checkpointLock.writeLock().lock();
+        try {
+            dirtyKeys.values().removeIf(p -> p == partition);
+            for (SpendProjectionEntry entry : entries) {
+                SpendKey key = SpendKey.of(entry.getUserId(), entry.getCategory(), entry.getMonth());
+                if (!retains(key)) {
+                    continue;
+                }
+                LongAdder total = new LongAdder();
+                total.add(entry.getAmountMinorUnits());
+                LongAdder previous = totals.put(key, total);
+                addToHousehold(key, entry.getAmountMinorUnits() - (previous == null ? 0L : previous.sum()));
+            }
+            if (nextOffset == null) {
+                nextOffsets.remove(partition);
+            } else {
+                nextOffsets.put(partition, nextOffset);
+            }
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Get the current totals of all users in a month.
+     *
+     * @param month the month
+     * @return the totals in minor units by key
+     */
+    public Map<SpendKey, Long> totalsOf(YearMonth month) {
+        int monthIndex = SpendKey.monthIndexOf(month);
+        Map<SpendKey, Long> monthTotals = new HashMap<>();
+        totals.forEach((key, total) -> {
+            if (key.monthIndex() == monthIndex) {
+                monthTotals.put(key, total.sum());
+            }
+        });
+        return monthTotals;
+    }
+
+    /**
+     * Drop the totals of months before the retained ones. Events for those months are
+     * skipped from now on; totals changed since the last checkpoint are kept until they
+     * have been checkpointed, and dropped by a later run.
+     */
+    @Scheduled(cron = "${app.spend-projection.eviction-cron:0 30 3 * * *}")
+    public void evictPastMonths() {
+        YearMonth oldestMonth = oldestRetainedMonth();
+        int oldest = SpendKey.monthIndexOf(oldestMonth);
+        checkpointLock.writeLock().lock();
+        try {
+            oldestMonthIndex = oldest;
+            int before = totals.size();
+            totals.keySet().removeIf(key -> key.monthIndex() < oldest && !dirtyKeys.containsKey(key));
+            householdTotals.keySet().removeIf(key -> key.monthIndex() < oldest);
+            log.info("Evicted {} spend totals older than {}", before - totals.size(), oldestMonth);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop all totals and offsets, e.g. before loading a rebuilt checkpoint.
+     */
+    public void clear() {
+        checkpointLock.writeLock().lock();
+        try {
+            totals.clear();
+            householdTotals.clear();
+            dirtyKeys.clear();
+            nextOffsets.clear();
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Take a consistent snapshot of all totals changed since the previous snapshot,
+     * together with the offsets they include.
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        checkpointLock.writeLock().lock();
+        try {
+            List<SpendProjectionEntry> entries = new ArrayList<>(dirtyKeys.size());
+            dirtyKeys.forEach((key, partition) -> entries.add(SpendProjectionEntry.builder()
+                    .userId(key.userId())
+                    .category(key.category())
+                    .month(key.month())
+                    .amountMinorUnits(getSpent(key))
+                    .kafkaPartition(partition)
+                    .build()));
+            dirtyKeys.clear();
+            return new Snapshot(entries, new HashMap<>(nextOffsets));
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Mark the entries of a snapshot as dirty again, e.g. after a failed checkpoint write.
+     *
+     * @param snapshot the snapshot that was not persisted
+     */
+    public void restore(Snapshot snapshot) {
+        for (SpendProjectionEntry entry : snapshot.entries()) {
+            dirtyKeys.putIfAbsent(
+                    SpendKey.of(entry.getUserId(), entry.getCategory(), entry.getMonth()),
+                    entry.getKafkaPartition());
+        }
+    }
+
+    private YearMonth oldestRetainedMonth() {
+        return YearMonth.now().minusMonths(Math.max(1, Math.max(retentionMonths, baselineMonths)));
+    }
+
+    private void addToHousehold(SpendKey key, long deltaMinorUnits) {
+        Long householdId = householdMembership.householdOf(key.userId());
+        if (householdId != null) {
+            householdTotals.computeIfAbsent(key.householdKey(householdId), k -> new LongAdder()).add(deltaMinorUnits);
+        }
+    }
+
+    /**
+     * Subtract a user's totals from a household the user left.
+     * Must be called with the write lock held.
+     */
+    private void removeFromHousehold(long userId, Long householdId) {
+        if (householdId == null) {
+            return;
+        }
+        totals.forEach((key, total) -> {
+            if (key.userId() == userId) {
+                householdTotals.computeIfAbsent(key.householdKey(householdId), k -> new LongAdder())
+                        .add(-total.sum());
+            }
+        });
+    }
+
+    /**
+     * Totals changed since the previous snapshot and the next offsets they include.
+     */
+    public record Snapshot(List<SpendProjectionEntry> entries, Map<Integer, Long> nextOffsets) {
+
+        public boolean isEmpty() {
+            return entries.isEmpty() && nextOffsets.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.booking.budgetservice.service.projection;
+
+import com.booking.budgetservice.model.ProjectionOffset;
+import com.booking.budgetservice.model.SpendProjectionEntry;
+import com.booking.budgetservice.repository.ProjectionOffsetRepository;
+import com.booking.budgetservice.repository.SpendProjectionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodically persists the spend projection to Postgres and restores partitions
+ * from it on assignment, so a restart only replays events after the last checkpoint.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendProjectionCheckpointService {
+
+    private static final String UPSERT_ENTRY_SQL =
+            "INSERT INTO spend_projection (user_id, category, month, amount_minor_units, kafka_partition) " +
+            "VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (user_id, category, month) DO UPDATE SET " +
+            "amount_minor_units = EXCLUDED.amount_minor_units, kafka_partition = EXCLUDED.kafka_partition";
+
+    private static final String UPSERT_OFFSET_SQL =
+            "INSERT INTO projection_offsets (topic, kafka_partition, next_offset) VALUES (?, ?, ?) " +
+            "ON CONFLICT (topic, kafka_partition) DO UPDATE SET next_offset = EXCLUDED.next_offset";
+
+    private final SpendProjection spendProjection;
+    private final SpendProjectionRepository spendProjectionRepository;
+    private final ProjectionOffsetRepository projectionOffsetRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${spring.kafka.topic.expenses:expenses-topic}")
+    private String expensesTopic;
+
+    /**
+     * Flush all totals changed since the last checkpoint, together with the offsets
+     * they include, in a single transaction.
+     */
+    @Scheduled(fixedDelayString = "${app.spend-projection.checkpoint-interval-ms:10000}")
+    public synchronized void checkpoint() {
+        SpendProjection.Snapshot snapshot = spendProjection.snapshot();
+        if (snapshot.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(UPSERT_ENTRY_SQL, toEntryArgs(snapshot.entries()));
+                jdbcTemplate.batchUpdate(UPSERT_OFFSET_SQL, toOffsetArgs(snapshot.nextOffsets()));
+            });
+            log.debug("Checkpointed {} spend totals for partitions {}",
+                    snapshot.entries().size(), snapshot.nextOffsets());
+        } catch (RuntimeException e) {
+            spendProjection.restore(snapshot);
+            log.error("Failed to checkpoint spend projection: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replace the checkpoint, e.g. with a rebuilt one. The in-memory projection is cleared
+     * first and no checkpoint runs until the replacement is done, so totals of the old
+     * state can never be written over the new checkpoint.
+     *
+     * @param replacement writes the new checkpoint
+     */
+    public synchronized void replaceCheckpoint(Runnable replacement) {
+        spendProjection.clear();
+        replacement.run();
+    }
+
+    /**
+     * Load the checkpointed state of a partition into the projection.
+     *
+     * @param partition the expenses topic partition
+     * @return the next offset to consume, or null if the partition was never checkpointed
+     */
+    public Long loadPartition(int partition) {
+        List<SpendProjectionEntry> entries = spendProjectionRepository.findByKafkaPartition(partition);
+        Long nextOffset = projectionOffsetRepository.findByTopicAndKafkaPartition(expensesTopic, partition)
+                .map(ProjectionOffset::getNextOffset)
+                .orElse(null);
+        spendProjection.load(partition, entries, nextOffset);
+        log.info("Loaded {} spend totals for partition {} at offset {}", entries.size(), partition, nextOffset);
+        return nextOffset;
+    }
+
+    private static List<Object[]> toEntryArgs(List<SpendProjectionEntry> entries) {
+        List<Object[]> args = new ArrayList<>(entries.size());
+        for (SpendProjectionEntry entry : entries) {
+            args.add(new Object[]{
+                    entry.getUserId(),
+                    entry.getCategory(),
+                    entry.getMonth().toString(),
+                    entry.getAmountMinorUnits(),
+                    entry.getKafkaPartition()
+            });
+        }
+        return args;
+    }
+
+    private List<Object[]> toOffsetArgs(Map<Integer, Long> nextOffsets) {
+        List<Object[]> args = new ArrayList<>(nextOffsets.size());
+        nextOffsets.forEach((partition, offset) -> args.add(new Object[]{expensesTopic, partition, offset}));
+        return args;
+    }
+}
@@ -0,0 +1,68 @@
+package com.booking.budgetservice.service.projection;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Keeps the service to a single instance while it serves reads from the in-memory
+ * {@link SpendProjection}.
+ * <p>
+ * A second instance would be assigned part of the expense partitions and answer every
+ * read from a partial projection, so at startup the instance takes a Postgres session
+ * advisory lock on a connection it holds until shutdown, and fails to start if another
+ * instance already holds it. The lock is released by Postgres when the session ends,
+ * including when the instance dies.
+ */
+@Component
+@ConditionalOnProperty(name = "app.kafka-streams.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+@Slf4j
+public class SpendProjectionOwnerLock {
+
+    private static final String LOCK_SQL = "SELECT pg_try_advisory_lock(?)";
+
+    private final DataSource dataSource;
+
+    @Value("${app.spend-projection.owner-lock-id:7301}")
+    private long lockId;
+
+    private Connection connection;
+
+    @PostConstruct
+    void acquire() throws SQLException {
+        connection = dataSource.getConnection();
+        boolean acquired;
+        try (PreparedStatement statement = connection.prepareStatement(LOCK_SQL)) {
+            statement.setLong(1, lockId);
+            try (ResultSet result = statement.executeQuery()) {
+                acquired = result.next() && result.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        if (!acquired) {
+            connection.close();
+            throw new IllegalStateException("Another instance owns the spend projection; run a single "
+                    + "instance or enable app.kafka-streams.enabled to scale out");
+        }
+        log.info("Acquired spend projection owner lock {}", lockId);
+    }
+
+    @PreDestroy
+    void release() throws SQLException {
+        // Closing the session releases the lock
+        connection.close();
+    }
+}
@@ -0,0 +1,96 @@
+package com.booking.budgetservice.service.projection;
+
+import com.booking.budgetservice.event.ExpenseEvent;
+import com.booking.budgetservice.service.forecast.SpendForecaster;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Rebuilds the spend projection of a newly assigned partition.
+ * <p>
+ * The checkpoint may lag behind the offset committed by the consumer group, because
+ * checkpoints are written on a schedule while offsets commit with every batch. The gap
+ * is replayed here with a separate consumer that only reads, so the group's committed
+ * offset never moves backwards and events whose alerts were already committed are not
+ * alerted again.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SpendProjectionRecovery {
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(500);
+
+    private final SpendProjection spendProjection;
+    private final SpendProjectionCheckpointService checkpointService;
+    private final ConsumerFactory<String, ExpenseEvent> expenseEventConsumerFactory;
+    private final SpendForecaster spendForecaster;
+    private final List<SpendChangeListener> spendChangeListeners;
+
+    /**
+     * Load the checkpoint of a partition and replay it up to the committed offset.
+     *
+     * @param topicPartition the assigned partition
+     * @return the offset to continue consuming at, or null to start from the beginning
+     */
+    public Long recover(TopicPartition topicPartition) {
+        Long checkpointOffset = checkpointService.loadPartition(topicPartition.partition());
+
+        try (Consumer<String, ExpenseEvent> consumer = expenseEventConsumerFactory.createConsumer(null, "-recovery")) {
+            OffsetAndMetadata committed = consumer.committed(Set.of(topicPartition)).get(topicPartition);
+            if (committed == null
+                    || (checkpointOffset != null && committed.offset() <= checkpointOffset)) {
+                return checkpointOffset;
+            }
+
+            long target = committed.offset();
+            consumer.assign(List.of(topicPartition));
+            if (checkpointOffset == null) {
+                consumer.seekToBeginning(List.of(topicPartition));
+            } else {
+                consumer.seek(topicPartition, checkpointOffset);
+            }
+
+            int replayed = 0;
+            while (consumer.position(topicPartition) < target) {
+                for (ConsumerRecord<String, ExpenseEvent> record : consumer.poll(POLL_TIMEOUT)) {
+                    if (record.offset() >= target || record.value() == null) {
+                        continue;
+                    }
+                    List<SpendDelta> deltas = spendProjection.apply(record.value(), record.partition(), record.offset());
+                    if (!deltas.isEmpty()) {
+                        spendForecaster.record(record.value());
+                    }
+                    for (SpendDelta delta : deltas) {
+                        long spent = spendProjection.getSpent(delta.key());
+                        Long householdId = spendProjection.householdOf(delta.key().userId());
+                        for (SpendChangeListener listener : spendChangeListeners) {
+                            listener.onSpendChanged(delta.key(), spent);
+                        }
+                        if (householdId != null) {
+                            SpendKey householdKey = delta.key().householdKey(householdId);
+                            long householdSpent = spendProjection.getHouseholdSpent(householdKey);
+                            for (SpendChangeListener listener : spendChangeListeners) {
+                                listener.onHouseholdSpendChanged(householdKey, householdSpent);
+                            }
+                        }
+                    }
+                    replayed++;
+                }
+            }
+            log.info("Replayed {} expense events for {} from offset {} to committed offset {}",
+                    replayed, topicPartition, checkpointOffset, target);
+            return target;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.booking.budgetservice.service.projection;
+
+import java.time.YearMonth;
+
+/**
+ * Read access to projected spending, independent of where the totals are kept.
+ */
+public interface SpendReader {
+
+    /**
+     * Get the projected spending for a user, category and month.
+     *
+     * @param userId the user ID
+     * @param category the category
+     * @param month the month
+     * @return the spending in minor units
+     */
+    long getSpent(Long userId, String category, YearMonth month);
+
+    /**
+     * Get the combined projected spending of a household's members for a category and month.
+     *
+     * @param householdId the household ID
+     * @param category the category
+     * @param month the month
+     * @return the spending in minor units
+     */
+    long getHouseholdSpent(Long householdId, String category, YearMonth month);
+}
@@ -0,0 +1,155 @@
+package com.booking.budgetservice.service.rules;
+
+import com.booking.budgetservice.dto.BudgetAlertRuleDTO;
+import com.booking.budgetservice.exception.ResourceNotFoundException;
+import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.model.BudgetAlertRule;
+import com.booking.budgetservice.model.Money;
+import com.booking.budgetservice.repository.BudgetAlertRuleRepository;
+import com.booking.budgetservice.repository.BudgetRepository;
+import com.booking.budgetservice.service.BudgetAlertStateService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service that stores the alert rules of budgets and keeps them compiled.
+ * A budget's rules are compiled on first use and recompiled when its rules or its
+ * amount change, so the alert path only reads a map. Budgets of past months are dropped
+ * nightly, as they no longer receive spend.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertRuleService {
+
+    private final BudgetAlertRuleRepository budgetAlertRuleRepository;
+    private final BudgetRepository budgetRepository;
+    private final BudgetAlertStateService budgetAlertStateService;
+
+    private final ConcurrentHashMap<Long, CompiledRules> compiled = new ConcurrentHashMap<>();
+
+    @Value("${app.alert-rules.max-cached-budgets:100000}")
+    private int maxCachedBudgets;
+
+    /**
+     * Get the compiled alert rules of a budget.
+     *
+     * @param budget the budget, with a positive amount
+     * @return the compiled rules
+     */
+    public AlertRules rulesFor(Budget budget) {
+        long limit = Money.toMinorUnits(budget.getAmount());
+        CompiledRules cached = compiled.get(budget.getId());
+        if (cached != null && cached.rules().limit() == limit && cached.month().equals(budget.getMonth())) {
+            return cached.rules();
+        }
+        AlertRules rules = AlertRules.compile(limit,
+                budgetAlertRuleRepository.findByBudgetIdOrderById(budget.getId()));
+        if (compiled.size() < maxCachedBudgets || compiled.containsKey(budget.getId())) {
+            compiled.put(budget.getId(), new CompiledRules(budget.getMonth(), rules));
+        }
+        return rules;
+    }
+
+    /**
+     * Get the alert rules of a budget as defined by the user.
+     *
+     * @param budgetId the budget ID
+     * @return the rules, empty if the budget uses the default rules
+     */
+    public List<BudgetAlertRuleDTO> getRules(Long budgetId) {
+        if (!budgetRepository.existsById(budgetId)) {
+            throw new ResourceNotFoundException("Budget not found with id: " + budgetId);
+        }
+        return budgetAlertRuleRepository.findByBudgetIdOrderById(budgetId).stream()
+                .map(this::mapToDTO)
+                .toList();
+    }
+
+    /**
+     * Replace the alert rules of a budget. An empty list restores the default rules.
+     * The budget starts a fresh alert cycle under the new rules.
+     *
+     * @param budgetId the budget ID
+     * @param rules the new rules
+     * @return the saved rules
+     */
+    @Transactional
+    public List<BudgetAlertRuleDTO> replaceRules(Long budgetId, List<BudgetAlertRuleDTO> rules) {
+        Budget budget = budgetRepository.findById(budgetId)
+                .orElseThrow(() -> new ResourceNotFoundException("Budget not found with id: " + budgetId));
+
+        List<BudgetAlertRule> entities = new ArrayList<>(rules.size());
+        for (BudgetAlertRuleDTO rule : rules) {
+            entities.add(BudgetAlertRule.builder()
+                    .budgetId(budgetId)
+                    .ruleType(rule.ruleType())
+                    .threshold(rule.threshold())
+                    .build());
+        }
+        // Rejects too many rules and rules that can never fire before anything is written
+        AlertRules.compile(Money.toMinorUnits(budget.getAmount()), entities).requireReachable();
+
+        budgetAlertRuleRepository.deleteByBudgetId(budgetId);
+        List<BudgetAlertRule> saved = budgetAlertRuleRepository.saveAll(entities);
+        budgetAlertStateService.reset(budgetId);
+        evictAfterCommit(budgetId);
+        log.info("Replaced alert rules of budget {} with {} rules", budgetId, saved.size());
+
+        return saved.stream().map(this::mapToDTO).toList();
+    }
+
+    /**
+     * Delete the alert rules of a deleted budget.
+     *
+     * @param budgetId the budget ID
+     */
+    @Transactional
+    public void deleteRules(Long budgetId) {
+        budgetAlertRuleRepository.deleteByBudgetId(budgetId);
+        evictAfterCommit(budgetId);
+    }
+
+    /**
+     * Drop the compiled rules of budgets for months that are no longer current, they are
+     * compiled again on demand.
+     */
+    @Scheduled(cron = "${app.alert-rules.eviction-cron:0 0 3 * * *}")
+    public void evictPastMonths() {
+        YearMonth oldest = YearMonth.now().minusMonths(1);
+        int before = compiled.size();
+        compiled.values().removeIf(cached -> cached.month().isBefore(oldest));
+        log.info("Evicted {} compiled alert rules of budgets older than {}", before - compiled.size(), oldest);
+    }
+
+    private void evictAfterCommit(Long budgetId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    compiled.remove(budgetId);
+                }
+            });
+        } else {
+            compiled.remove(budgetId);
+        }
+    }
+
+    private BudgetAlertRuleDTO mapToDTO(BudgetAlertRule rule) {
+        return new BudgetAlertRuleDTO(rule.getId(), rule.getRuleType(), rule.getThreshold());
+    }
+
+    private record CompiledRules(YearMonth month, AlertRules rules) {
+    }
+}
@@ -0,0 +1,294 @@
+package com.booking.budgetservice.service.rules;
+
+import com.booking.budgetservice.model.AlertLevel;
+import com.booking.budgetservice.model.AlertRuleType;
+import com.booking.budgetservice.model.BudgetAlertRule;
+import com.booking.budgetservice.model.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The alert rules of one budget compiled against its amount.
+ * <p>
+ * Every spend condition is reduced to a trigger in minor units that spending must
+ * reach: 80% used of a 500.00 budget becomes 400.00, less than 50.00 remaining becomes
+ * 450.01. Triggers are kept sorted in primitive arrays, so checking all rules for a
+ * spend change is one scan that stops at the first trigger above the new total, with
+ * no division and no allocation. Fired rules are returned as a bit mask indexed by
+ * rule position.
+ */
+public final class AlertRules {
+
+    /**
+     * Maximum number of rules per budget, bounded by the width of the mask.
+     */
+    public static final int MAX_RULES = Long.SIZE;
+
+    private static final List<BudgetAlertRule> DEFAULTS = List.of(
+            rule(AlertRuleType.PERCENT_USED, AlertLevel.WARNING_THRESHOLD_BPS),
+            rule(AlertRuleType.PERCENT_USED, AlertLevel.CRITICAL_THRESHOLD_BPS),
+            BudgetAlertRule.builder().ruleType(AlertRuleType.REMAINING_BELOW).threshold(BigDecimal.ZERO).build(),
+            rule(AlertRuleType.PROJECTED_OVERRUN, Money.BASIS_POINTS));
+
+    private final long limit;
+    private final AlertRuleType[] types;
+    private final BigDecimal[] thresholds;
+    private final long[] triggers;
+    private final AlertLevel[] levels;
+
+    // Rule positions per kind, ordered by trigger
+    private final long[] spendTriggers;
+    private final int[] spendRules;
+    private final long[] expenseTriggers;
+    private final int[] expenseRules;
+    private final long[] projectedTriggers;
+    private final int[] projectedRules;
+
+    private AlertRules(long limit, List<BudgetAlertRule> rules) {
+        int size = rules.size();
+        this.limit = limit;
+        this.types = new AlertRuleType[size];
+        this.thresholds = new BigDecimal[size];
+        this.triggers = new long[size];
+        this.levels = new AlertLevel[size];
+
+        int spendCount = 0;
+        int expenseCount = 0;
+        int projectedCount = 0;
+        for (int i = 0; i < size; i++) {
+            BudgetAlertRule rule = rules.get(i);
+            types[i] = rule.getRuleType();
+            thresholds[i] = rule.getThreshold();
+            triggers[i] = triggerOf(rule.getRuleType(), rule.getThreshold(), limit);
+            levels[i] = AlertLevel.NONE;
+            switch (rule.getRuleType()) {
+                case PERCENT_USED, REMAINING_BELOW -> {
+                    levels[i] = AlertLevel.forSpending(triggers[i], limit);
+                    spendCount++;
+                }
+                case SINGLE_EXPENSE -> expenseCount++;
+                case PROJECTED_OVERRUN -> projectedCount++;
+            }
+        }
+
+        this.spendTriggers = new long[spendCount];
+        this.spendRules = new int[spendCount];
+        this.expenseTriggers = new long[expenseCount];
+        this.expenseRules = new int[expenseCount];
+        this.projectedTriggers = new long[projectedCount];
+        this.projectedRules = new int[projectedCount];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(triggers[a], triggers[b]));
+        spendCount = 0;
+        expenseCount = 0;
+        projectedCount = 0;
+        for (int i : order) {
+            switch (types[i]) {
+                case PERCENT_USED, REMAINING_BELOW -> {
+                    spendTriggers[spendCount] = triggers[i];
+                    spendRules[spendCount++] = i;
+                }
+                case SINGLE_EXPENSE -> {
+                    expenseTriggers[expenseCount] = triggers[i];
+                    expenseRules[expenseCount++] = i;
+                }
+                case PROJECTED_OVERRUN -> {
+                    projectedTriggers[projectedCount] = triggers[i];
+                    projectedRules[projectedCount++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Compile the rules of a budget.
+     *
+     * @param limitMinorUnits the budget amount in minor units, must be positive
+     * @param rules the rules, or an empty list for {@link #defaults()}
+     * @return the compiled rules
+     */
+    public static AlertRules compile(long limitMinorUnits, List<BudgetAlertRule> rules) {
+        if (limitMinorUnits <= 0) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        if (rules.size() > MAX_RULES) {
+            throw new IllegalArgumentException("A budget can have at most " + MAX_RULES + " alert rules");
+        }
+        return new AlertRules(limitMinorUnits, rules.isEmpty() ? DEFAULTS : rules);
+    }
+
+    /**
+     * Check that every spend rule can fire before the budget's amount is used up. A rule
+     * reached with nothing spent never crosses, and a remaining amount at or above the
+     * budget's amount is already undercut by the first expense.
+     *
+     * @return these rules
+     * @throws IllegalArgumentException if a rule can never fire
+     */
+    public AlertRules requireReachable() {
+        for (int i = 0; i < types.length; i++) {
+            boolean reachable = switch (types[i]) {
+                case PERCENT_USED -> triggers[i] > 0;
+                case REMAINING_BELOW -> Money.toMinorUnits(thresholds[i]) < limit;
+                case SINGLE_EXPENSE, PROJECTED_OVERRUN -> true;
+            };
+            if (!reachable) {
+                throw new IllegalArgumentException(types[i] + " rule with threshold " + thresholds[i]
+                        + " can never fire for a budget of " + Money.toBigDecimal(limit));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * The rules of a budget without rules of its own: warning at 80% and critical at
+     * 95% used, overspent, and a projected overrun of the budget.
+     *
+     * @return the default rules
+     */
+    public static List<BudgetAlertRule> defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Find the rules crossed by a spend change: spend rules whose trigger lies above the
+     * previous total and at or below the new one, and single-expense rules the change
+     * reaches on its own.
+     *
+     * @param previousSpentMinorUnits the spending before the change
+     * @param spentMinorUnits the spending after the change
+     * @return the mask of fired rules, 0 if none
+     */
+    public long crossed(long previousSpentMinorUnits, long spentMinorUnits) {
+        long fired = 0L;
+        for (int i = 0; i < spendTriggers.length; i++) {
+            long trigger = spendTriggers[i];
+            if (trigger > spentMinorUnits) {
+                break;
+            }
+            if (trigger > previousSpentMinorUnits) {
+                fired |= 1L << spendRules[i];
+            }
+        }
+        long expense = spentMinorUnits - previousSpentMinorUnits;
+        for (int i = 0; i < expenseTriggers.length; i++) {
+            if (expenseTriggers[i] > expense) {
+                break;
+            }
+            fired |= 1L << expenseRules[i];
+        }
+        return fired;
+    }
+
+    /**
+     * Find the spend rule with the highest trigger reached by a total.
+     *
+     * @param spentMinorUnits the spending
+     * @return the rule position, or -1 if no spend rule is reached
+     */
+    public int highestReached(long spentMinorUnits) {
+        int rule = -1;
+        for (int i = 0; i < spendTriggers.length && spendTriggers[i] <= spentMinorUnits; i++) {
+            rule = spendRules[i];
+        }
+        return rule;
+    }
+
+    /**
+     * Find the projected overrun rule with the highest trigger exceeded by a projection
+     * but not yet by actual spending.
+     *
+     * @param spentMinorUnits the spending so far
+     * @param projectedMinorUnits the projected month-end spending
+     * @return the rule position, or -1 if none applies
+     */
+    public int projected(long spentMinorUnits, long projectedMinorUnits) {
+        int rule = -1;
+        for (int i = 0; i < projectedTriggers.length && projectedTriggers[i] <= projectedMinorUnits; i++) {
+            if (projectedTriggers[i] > spentMinorUnits) {
+                rule = projectedRules[i];
+            }
+        }
+        return rule;
+    }
+
+    /**
+     * @param fired a mask of fired rules
+     * @return the highest alert level among the fired rules
+     */
+    public AlertLevel level(long fired) {
+        AlertLevel level = AlertLevel.NONE;
+        for (long mask = fired; mask != 0L; mask &= mask - 1) {
+            AlertLevel ruleLevel = levels[Long.numberOfTrailingZeros(mask)];
+            if (ruleLevel.isHigherThan(level)) {
+                level = ruleLevel;
+            }
+        }
+        return level;
+    }
+
+    /**
+     * @return the budget amount the rules were compiled against, in minor units
+     */
+    public long limit() {
+        return limit;
+    }
+
+    /**
+     * @param rule the rule position
+     * @return the rule type
+     */
+    public AlertRuleType type(int rule) {
+        return types[rule];
+    }
+
+    /**
+     * @param rule the rule position
+     * @return the threshold as defined by the user
+     */
+    public BigDecimal threshold(int rule) {
+        return thresholds[rule];
+    }
+
+    /**
+     * @param rule the rule position
+     * @return the amount in minor units that fires the rule
+     */
+    public long trigger(int rule) {
+        return triggers[rule];
+    }
+
+    /**
+     * @param rule the rule position
+     * @return the alert level spending at the rule's trigger corresponds to
+     */
+    public AlertLevel level(int rule) {
+        return levels[rule];
+    }
+
+    private static long triggerOf(AlertRuleType type, BigDecimal threshold, long limit) {
+        return switch (type) {
+            // Reached once spent * 10000 >= bps * limit
+            case PERCENT_USED -> (Math.multiplyExact(limit, percentToBps(threshold)) + Money.BASIS_POINTS - 1)
+                    / Money.BASIS_POINTS;
+            // An overrun exceeds the percentage rather than reaching it
+            case PROJECTED_OVERRUN -> Math.multiplyExact(limit, percentToBps(threshold)) / Money.BASIS_POINTS + 1;
+            case REMAINING_BELOW -> limit - Money.toMinorUnits(threshold) + 1;
+            case SINGLE_EXPENSE -> Math.max(1L, Money.toMinorUnits(threshold));
+        };
+    }
+
+    private static long percentToBps(BigDecimal percent) {
+        return percent.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static BudgetAlertRule rule(AlertRuleType type, long bps) {
+        return BudgetAlertRule.builder().ruleType(type).threshold(BigDecimal.valueOf(bps, 2)).build();
+    }
+}
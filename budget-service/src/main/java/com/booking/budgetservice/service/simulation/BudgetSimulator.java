@@ -0,0 +1,127 @@
+package com.booking.budgetservice.service.simulation;
+
+import com.booking.budgetservice.dto.BudgetSimulationRequest;
+import com.booking.budgetservice.dto.SimulatedBudgetDTO;
+import com.booking.budgetservice.dto.SimulatedBudgetStatusDTO;
+import com.booking.budgetservice.dto.SimulatedMonthDTO;
+import com.booking.budgetservice.model.Money;
+import com.booking.budgetservice.service.forecast.SpendForecaster;
+import com.booking.budgetservice.service.projection.SpendKey;
+import com.booking.budgetservice.service.projection.SpendReader;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs hypothetical budgets against a user's spending without saving anything.
+ * <p>
+ * Monthly totals are read from the spend projection into flat arrays, one row per
+ * category with the months contiguous, and the simulated budgets are applied to them
+ * in a single pass of plain loops over primitives, so neither budgets nor expenses are
+ * queried from the database. Past months are charged with what was spent, the current
+ * month with the forecast month-end spending and future months with the average of the
+ * last complete months.
+ */
+@Service
+@RequiredArgsConstructor
+public class BudgetSimulator {
+
+    private final SpendReader spendReader;
+    private final SpendForecaster spendForecaster;
+
+    @Value("${app.budget-simulation.baseline-months:3}")
+    private int baselineMonths;
+
+    /**
+     * Simulate hypothetical budgets over a range of months.
+     *
+     * @param request the user, month range and hypothetical budgets
+     * @return the simulated status per month, in month order
+     */
+    public List<SimulatedMonthDTO> simulate(BudgetSimulationRequest request) {
+        LocalDate today = LocalDate.now();
+        YearMonth current = YearMonth.from(today);
+        long userId = request.userId();
+        List<SimulatedBudgetDTO> budgets = request.budgets();
+        YearMonth fromMonth = request.fromMonth();
+        int categories = budgets.size();
+        int months = (int) ChronoUnit.MONTHS.between(fromMonth, request.toMonth()) + 1;
+
+        long[] limits = new long[categories];
+        long[] spent = new long[categories * months];
+        long[] projected = new long[categories * months];
+        for (int c = 0; c < categories; c++) {
+            SimulatedBudgetDTO budget = budgets.get(c);
+            limits[c] = Money.toMinorUnits(budget.amount());
+            int row = c * months;
+            long baseline = -1L;
+            for (int m = 0; m < months; m++) {
+                YearMonth month = fromMonth.plusMonths(m);
+                if (month.isAfter(current)) {
+                    if (baseline < 0L) {
+                        baseline = baselineOf(userId, budget.category(), current);
+                    }
+                    projected[row + m] = baseline;
+                    continue;
+                }
+                long total = spendReader.getSpent(userId, budget.category(), month);
+                spent[row + m] = total;
+                // Nothing is learned for a category that was never registered, so its spending stays as is
+                SpendKey key = month.equals(current) ? SpendKey.find(userId, budget.category(), month) : null;
+                projected[row + m] = key != null ? spendForecaster.forecast(key, total, today) : total;
+            }
+        }
+
+        long[] remaining = new long[categories * months];
+        long[] projectedRemaining = new long[categories * months];
+        for (int c = 0; c < categories; c++) {
+            long limit = limits[c];
+            int row = c * months;
+            for (int m = 0; m < months; m++) {
+                remaining[row + m] = limit - spent[row + m];
+                projectedRemaining[row + m] = limit - projected[row + m];
+            }
+        }
+
+        List<SimulatedMonthDTO> result = new ArrayList<>(months);
+        for (int m = 0; m < months; m++) {
+            List<SimulatedBudgetStatusDTO> statuses = new ArrayList<>(categories);
+            for (int c = 0; c < categories; c++) {
+                int i = c * months + m;
+                statuses.add(new SimulatedBudgetStatusDTO(
+                        budgets.get(c).category(),
+                        Money.toBigDecimal(limits[c]),
+                        Money.toBigDecimal(spent[i]),
+                        Money.toBigDecimal(projected[i]),
+                        Money.toBigDecimal(remaining[i]),
+                        Money.toBigDecimal(projectedRemaining[i]),
+                        remaining[i] < 0L,
+                        projectedRemaining[i] < 0L
+                ));
+            }
+            result.add(new SimulatedMonthDTO(fromMonth.plusMonths(m), statuses));
+        }
+        return result;
+    }
+
+    /**
+     * The average monthly spending of the last complete months, used for months that have
+     * not started yet.
+     */
+    private long baselineOf(long userId, String category, YearMonth current) {
+        if (baselineMonths <= 0) {
+            return 0L;
+        }
+        long total = 0L;
+        for (int i = 1; i <= baselineMonths; i++) {
+            total += spendReader.getSpent(userId, category, current.minusMonths(i));
+        }
+        return Math.max(0L, total / baselineMonths);
+    }
+}
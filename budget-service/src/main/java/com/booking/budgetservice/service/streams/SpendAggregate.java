@@ -0,0 +1,20 @@
+package com.booking.budgetservice.service.streams;
+
+/**
+ * Running spend total of one user, category and month in the streams state store.
+ * The total before the latest delta is kept so threshold crossings can be detected
+ * without a second store.
+ *
+ * @param spentMinorUnits the current total in minor units
+ * @param previousSpentMinorUnits the total before the latest delta
+ */
+public record SpendAggregate(long spentMinorUnits, long previousSpentMinorUnits) {
+
+    public static SpendAggregate empty() {
+        return new SpendAggregate(0L, 0L);
+    }
+
+    public SpendAggregate add(long deltaMinorUnits) {
+        return new SpendAggregate(spentMinorUnits + deltaMinorUnits, spentMinorUnits);
+    }
+}
@@ -0,0 +1,150 @@
+package com.booking.budgetservice.service.streams;
+
+import com.booking.budgetservice.event.BudgetAlertEvent;
+import com.booking.budgetservice.event.BudgetChangeEvent;
+import com.booking.budgetservice.event.ExpenseEvent;
+import com.booking.budgetservice.model.AlertLevel;
+import com.booking.budgetservice.model.Money;
+import com.booking.budgetservice.service.projection.SpendDelta;
+import com.booking.budgetservice.service.projection.SpendDeltas;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.utils.Bytes;
+import org.apache.kafka.streams.KeyValue;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.Grouped;
+import org.apache.kafka.streams.kstream.Joined;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.kstream.Produced;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.springframework.kafka.support.serializer.JsonSerde;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Kafka Streams topology that aggregates expense events into monthly spend totals and
+ * emits budget alerts when a total crosses a threshold of its budget.
+ * <p>
+ * Expense events are re-keyed to {@code userId|category|yyyy-MM} and summed into the
+ * RocksDB-backed {@link #SPEND_STORE}. The month comes from the expense date rather
+ * than a time window, because calendar months have no fixed length and late edits
+ * must land in the month of the expense. Changes of each total are joined with the
+ * compacted budgets changelog (same key, same partition count) and a record is sent
+ * to the alerts topic whenever the alert level rises with that change.
+ */
+public final class SpendAggregationTopology {
+
+    public static final String SPEND_STORE = "monthly-spend-store";
+    public static final String BUDGET_STORE = "budgets-store";
+
+    private static final BigDecimal BASIS_POINTS = BigDecimal.valueOf(Money.BASIS_POINTS);
+
+    private SpendAggregationTopology() {
+    }
+
+    /**
+     * Add the spend aggregation topology to a builder.
+     *
+     * @param builder the streams builder
+     * @param expensesTopic the expenses topic
+     * @param budgetsChangelogTopic the compacted budgets changelog topic
+     * @param budgetAlertsTopic the topic alerts are sent to
+     */
+    public static void build(StreamsBuilder builder, String expensesTopic,
+                             String budgetsChangelogTopic, String budgetAlertsTopic) {
+        JsonSerde<ExpenseEvent> expenseSerde = new JsonSerde<>(ExpenseEvent.class).ignoreTypeHeaders().noTypeInfo();
+        JsonSerde<BudgetChangeEvent> budgetSerde = new JsonSerde<>(BudgetChangeEvent.class).ignoreTypeHeaders().noTypeInfo();
+        JsonSerde<SpendAggregate> aggregateSerde = new JsonSerde<>(SpendAggregate.class).ignoreTypeHeaders().noTypeInfo();
+        JsonSerde<BudgetAlertEvent> alertSerde = new JsonSerde<>(BudgetAlertEvent.class);
+        // Same type id as KafkaProducerService so the Notification Service can map the payload
+        alertSerde.serializer().configure(Map.of(JsonSerializer.TYPE_MAPPINGS,
+                "budgetAlert:" + BudgetAlertEvent.class.getName()), false);
+
+        KTable<String, SpendAggregate> spend = builder
+                .stream(expensesTopic, Consumed.with(Serdes.String(), expenseSerde))
+                .flatMap((userKey, event) -> toKeyedDeltas(event))
+                .groupByKey(Grouped.with(Serdes.String(), Serdes.Long()))
+                .aggregate(SpendAggregate::empty,
+                        (key, delta, aggregate) -> aggregate.add(delta),
+                        Materialized.<String, SpendAggregate, KeyValueStore<Bytes, byte[]>>as(SPEND_STORE)
+                                .withKeySerde(Serdes.String())
+                                .withValueSerde(aggregateSerde)
+                                // Every intermediate total must reach the join or crossings could be skipped
+                                .withCachingDisabled());
+
+        KTable<String, BudgetChangeEvent> budgets = builder.table(budgetsChangelogTopic,
+                Consumed.with(Serdes.String(), budgetSerde),
+                Materialized.<String, BudgetChangeEvent, KeyValueStore<Bytes, byte[]>>as(BUDGET_STORE)
+                        .withKeySerde(Serdes.String())
+                        .withValueSerde(budgetSerde));
+
+        // Stream-table join: only spend changes trigger evaluation, budget edits alone do not
+        spend.toStream()
+                .join(budgets, SpendAggregationTopology::detectCrossing,
+                        Joined.with(Serdes.String(), aggregateSerde, budgetSerde))
+                .filter((key, alert) -> alert != null)
+                .selectKey((key, alert) -> alert.getUserId())
+                .to(budgetAlertsTopic, Produced.with(Serdes.String(), alertSerde));
+    }
+
+    private static List<KeyValue<String, Long>> toKeyedDeltas(ExpenseEvent event) {
+        List<SpendDelta> deltas = SpendDeltas.from(event);
+        List<KeyValue<String, Long>> keyed = new ArrayList<>(deltas.size());
+        for (SpendDelta delta : deltas) {
+            keyed.add(KeyValue.pair(delta.key().format(), delta.deltaMinorUnits()));
+        }
+        return keyed;
+    }
+
+    /**
+     * Build an alert if the latest delta moved the total to a higher alert level.
+     *
+     * @param aggregate the spend total after and before the latest delta
+     * @param budget the budget for the same user, category and month
+     * @return the alert, or null if no threshold was crossed
+     */
+    static BudgetAlertEvent detectCrossing(SpendAggregate aggregate, BudgetChangeEvent budget) {
+        if (aggregate == null || budget == null) {
+            return null;
+        }
+        long limit = Money.toMinorUnits(budget.getAmount());
+        if (limit <= 0) {
+            return null;
+        }
+        AlertLevel before = AlertLevel.forSpending(aggregate.previousSpentMinorUnits(), limit);
+        AlertLevel after = AlertLevel.forSpending(aggregate.spentMinorUnits(), limit);
+        if (!after.isHigherThan(before)) {
+            return null;
+        }
+
+        long usedBps = Money.basisPointsOf(aggregate.spentMinorUnits(), limit);
+        return BudgetAlertEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .userId(String.valueOf(budget.getUserId()))
+                .budgetId(String.valueOf(budget.getBudgetId()))
+                .budgetName(budget.getCategory() + " " + budget.getMonth())
+                .category(budget.getCategory())
+                .budgetLimit(budget.getAmount())
+                .currentSpending(Money.toBigDecimal(aggregate.spentMinorUnits()))
+                .thresholdPercentage(thresholdOf(after))
+                .alertMessage(after + ": You've used " + (usedBps + 50) / 100 + "% of your budget.")
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    private static BigDecimal thresholdOf(AlertLevel level) {
+        long bps = switch (level) {
+            case WARNING -> AlertLevel.WARNING_THRESHOLD_BPS;
+            case CRITICAL -> AlertLevel.CRITICAL_THRESHOLD_BPS;
+            default -> Money.BASIS_POINTS;
+        };
+        return BigDecimal.valueOf(bps).divide(BASIS_POINTS);
+    }
+}
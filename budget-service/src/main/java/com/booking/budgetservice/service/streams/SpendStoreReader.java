@@ -0,0 +1,226 @@
+package com.booking.budgetservice.service.streams;
+
+import com.booking.budgetservice.exception.SpendStoreUnavailableException;
+import com.booking.budgetservice.service.household.HouseholdMembership;
+import com.booking.budgetservice.service.projection.SpendKey;
+import com.booking.budgetservice.service.projection.SpendReader;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.errors.InvalidStateStoreException;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
+
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Reads spend totals from the Kafka Streams state store with interactive queries.
+ * Keys owned by this instance are read from the local RocksDB store; keys owned by
+ * another instance are fetched from it over HTTP, one request per instance for all of
+ * a household's members.
+ * <p>
+ * While the instances rebalance the store cannot be queried; reads wait for it up to
+ * the unavailable wait, then fail with {@link SpendStoreUnavailableException}.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "app.kafka-streams.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class SpendStoreReader implements SpendReader {
+
+    private static final long RETRY_INTERVAL_MILLIS = 50L;
+
+    private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+    private final HouseholdMembership householdMembership;
+
+    private RestClient restClient;
+
+    @Value("${app.kafka-streams.advertised-host:localhost}")
+    private String advertisedHost;
+
+    @Value("${server.port:8082}")
+    private int serverPort;
+
+    @Value("${app.kafka-streams.remote-connect-timeout-ms:500}")
+    private long connectTimeoutMillis;
+
+    @Value("${app.kafka-streams.remote-read-timeout-ms:2000}")
+    private long readTimeoutMillis;
+
+    @Value("${app.kafka-streams.unavailable-wait-ms:2000}")
+    private long unavailableWaitMillis;
+
+    @PostConstruct
+    void start() {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(connectTimeoutMillis));
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        restClient = RestClient.builder().requestFactory(requestFactory).build();
+    }
+
+    @Override
+    public long getSpent(Long userId, String category, YearMonth month) {
+        String key = SpendKey.format(userId, category, month);
+        return withRetry(() -> {
+            HostInfo owner = ownerOf(runningStreams(), key);
+            if (isLocal(owner)) {
+                return getLocalSpent(key);
+            }
+            return sum(fetchRemote(owner, List.of(key)));
+        });
+    }
+
+    /**
+     * Household totals are not aggregated by the topology, so they are summed from the
+     * members' totals on every read, with the members' keys grouped by their instance.
+     */
+    @Override
+    public long getHouseholdSpent(Long householdId, String category, YearMonth month) {
+        List<String> keys = new ArrayList<>();
+        for (Long member : householdMembership.membersOf(householdId)) {
+            keys.add(SpendKey.format(member, category, month));
+        }
+        if (keys.isEmpty()) {
+            return 0L;
+        }
+        return withRetry(() -> {
+            KafkaStreams streams = runningStreams();
+            Map<HostInfo, List<String>> keysByOwner = new HashMap<>();
+            for (String key : keys) {
+                keysByOwner.computeIfAbsent(ownerOf(streams, key), owner -> new ArrayList<>()).add(key);
+            }
+            long spent = 0L;
+            for (Map.Entry<HostInfo, List<String>> owned : keysByOwner.entrySet()) {
+                spent += isLocal(owned.getKey())
+                        ? sum(getLocalSpent(owned.getValue()))
+                        : sum(fetchRemote(owned.getKey(), owned.getValue()));
+            }
+            return spent;
+        });
+    }
+
+    /**
+     * Read a total from the local store only.
+     *
+     * @param key the formatted spend key
+     * @return the spending in minor units, 0 if unknown
+     */
+    public long getLocalSpent(String key) {
+        SpendAggregate aggregate = localStore().get(key);
+        return aggregate == null ? 0L : aggregate.spentMinorUnits();
+    }
+
+    /**
+     * Read totals from the local store only.
+     *
+     * @param keys the formatted spend keys
+     * @return the spending in minor units per key, in the order of the keys
+     */
+    public List<Long> getLocalSpent(List<String> keys) {
+        ReadOnlyKeyValueStore<String, SpendAggregate> store = localStore();
+        List<Long> spent = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            SpendAggregate aggregate = store.get(key);
+            spent.add(aggregate == null ? 0L : aggregate.spentMinorUnits());
+        }
+        return spent;
+    }
+
+    private ReadOnlyKeyValueStore<String, SpendAggregate> localStore() {
+        try {
+            return runningStreams().store(StoreQueryParameters.fromNameAndType(
+                    SpendAggregationTopology.SPEND_STORE, QueryableStoreTypes.keyValueStore()));
+        } catch (InvalidStateStoreException e) {
+            throw new SpendStoreUnavailableException("Spend store is not queryable: " + e.getMessage(), e);
+        }
+    }
+
+    private HostInfo ownerOf(KafkaStreams streams, String key) {
+        KeyQueryMetadata metadata = streams.queryMetadataForKey(
+                SpendAggregationTopology.SPEND_STORE, key, Serdes.String().serializer());
+        if (metadata == null || KeyQueryMetadata.NOT_AVAILABLE.equals(metadata)) {
+            throw new SpendStoreUnavailableException("Spend store metadata is not available for key " + key);
+        }
+        return metadata.activeHost();
+    }
+
+    private boolean isLocal(HostInfo host) {
+        return host.equals(new HostInfo(advertisedHost, serverPort));
+    }
+
+    private List<Long> fetchRemote(HostInfo owner, List<String> keys) {
+        try {
+            List<Long> spent = restClient.post()
+                    .uri("http://{host}:{port}/internal/spend", owner.host(), owner.port())
+                    .body(keys)
+                    .retrieve()
+                    .body(new ParameterizedTypeReference<List<Long>>() {
+                    });
+            return spent == null ? List.of() : spent;
+        } catch (RestClientException e) {
+            throw new SpendStoreUnavailableException("Spend store of " + owner + " is not available: "
+                    + e.getMessage(), e);
+        }
+    }
+
+    private static long sum(List<Long> spent) {
+        long total = 0L;
+        for (Long value : spent) {
+            total += value == null ? 0L : value;
+        }
+        return total;
+    }
+
+    /**
+     * Run a read, retrying it while the store is unavailable, up to the unavailable wait.
+     */
+    private long withRetry(LongSupplier read) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(unavailableWaitMillis);
+        while (true) {
+            try {
+                return read.getAsLong();
+            } catch (SpendStoreUnavailableException e) {
+                if (System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RETRY_INTERVAL_MILLIS) > deadline) {
+                    throw e;
+                }
+                log.debug("Retrying spend read: {}", e.getMessage());
+            }
+            try {
+                Thread.sleep(RETRY_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SpendStoreUnavailableException("Interrupted while waiting for the spend store", e);
+            }
+        }
+    }
+
+    private KafkaStreams runningStreams() {
+        KafkaStreams streams = streamsBuilderFactoryBean.getKafkaStreams();
+        if (streams == null || streams.state() != KafkaStreams.State.RUNNING) {
+            throw new SpendStoreUnavailableException("Spend store is not available yet");
+        }
+        return streams;
+    }
+}
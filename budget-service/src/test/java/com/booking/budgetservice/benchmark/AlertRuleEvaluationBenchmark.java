@@ -0,0 +1,121 @@
+package com.booking.budgetservice.benchmark;
+
+import com.booking.budgetservice.model.AlertRuleType;
+import com.booking.budgetservice.model.BudgetAlertRule;
+import com.booking.budgetservice.model.Money;
+import com.booking.budgetservice.service.rules.AlertRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-check {@link BigDecimal} threshold evaluation against compiled
+ * {@link AlertRules} for a stream of spend deltas on one budget.
+ * <p>
+ * Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.booking.budgetservice.benchmark.AlertRuleEvaluationBenchmark}.
+ * Scores are in evaluations per microsecond, one evaluation checking every rule of the
+ * budget for one delta; {@code gc.alloc.rate.norm} should be zero for the compiled rules.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AlertRuleEvaluationBenchmark {
+
+    private static final int DELTAS = 1024;
+
+    @Param({"4", "16"})
+    private int ruleCount;
+
+    private AlertRules rules;
+    private BigDecimal decimalLimit;
+    private BigDecimal[] decimalThresholds;
+    private long[] spentBefore;
+    private long[] spentAfter;
+    private BigDecimal[] decimalBefore;
+    private BigDecimal[] decimalAfter;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        long limit = 250_000L;
+        List<BudgetAlertRule> definitions = new ArrayList<>();
+        decimalThresholds = new BigDecimal[ruleCount];
+        for (int i = 0; i < ruleCount; i++) {
+            BigDecimal percent = BigDecimal.valueOf(50 + i * 60L / ruleCount);
+            decimalThresholds[i] = percent.movePointLeft(2);
+            definitions.add(BudgetAlertRule.builder()
+                    .ruleType(i % 4 == 3 ? AlertRuleType.SINGLE_EXPENSE : AlertRuleType.PERCENT_USED)
+                    .threshold(i % 4 == 3 ? BigDecimal.valueOf(200) : percent)
+                    .build());
+        }
+        rules = AlertRules.compile(limit, definitions);
+        decimalLimit = Money.toBigDecimal(limit);
+
+        spentBefore = new long[DELTAS];
+        spentAfter = new long[DELTAS];
+        decimalBefore = new BigDecimal[DELTAS];
+        decimalAfter = new BigDecimal[DELTAS];
+        for (int i = 0; i < DELTAS; i++) {
+            long before = random.nextInt((int) (limit * 12 / 10));
+            long after = before + 1 + random.nextInt(30_000);
+            spentBefore[i] = before;
+            spentAfter[i] = after;
+            decimalBefore[i] = Money.toBigDecimal(before);
+            decimalAfter[i] = Money.toBigDecimal(after);
+        }
+    }
+
+    @Benchmark
+    public void bigDecimalPerRule(Blackhole blackhole) {
+        for (int i = 0; i < DELTAS; i++) {
+            BigDecimal usedBefore = decimalBefore[i].divide(decimalLimit, 4, RoundingMode.HALF_UP);
+            BigDecimal usedAfter = decimalAfter[i].divide(decimalLimit, 4, RoundingMode.HALF_UP);
+            int fired = 0;
+            for (BigDecimal threshold : decimalThresholds) {
+                if (usedBefore.compareTo(threshold) < 0 && usedAfter.compareTo(threshold) >= 0) {
+                    fired++;
+                }
+            }
+            blackhole.consume(fired);
+        }
+    }
+
+    @Benchmark
+    public void compiledRules(Blackhole blackhole) {
+        for (int i = 0; i < DELTAS; i++) {
+            blackhole.consume(rules.crossed(spentBefore[i], spentAfter[i]));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AlertRuleEvaluationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
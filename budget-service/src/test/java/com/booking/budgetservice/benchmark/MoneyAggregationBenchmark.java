@@ -0,0 +1,111 @@
+package com.booking.budgetservice.benchmark;
+
+import com.booking.budgetservice.model.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link BigDecimal} against {@link Money} minor units on the
+ * aggregation and threshold-check paths used by budget status and alerts.
+ * <p>
+ * Run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.booking.budgetservice.benchmark.MoneyAggregationBenchmark}.
+ * The GC profiler is enabled so {@code gc.alloc.rate.norm} shows bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyAggregationBenchmark {
+
+    private static final BigDecimal WARNING_THRESHOLD = new BigDecimal("0.80");
+    private static final long WARNING_THRESHOLD_BPS = 8_000L;
+
+    @Param({"1000"})
+    private int size;
+
+    private BigDecimal[] decimalAmounts;
+    private long[] minorAmounts;
+    private BigDecimal decimalLimit;
+    private long minorLimit;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        decimalAmounts = new BigDecimal[size];
+        minorAmounts = new long[size];
+        for (int i = 0; i < size; i++) {
+            long cents = 1 + random.nextInt(50_000);
+            decimalAmounts[i] = BigDecimal.valueOf(cents, Money.SCALE);
+            minorAmounts[i] = cents;
+        }
+        decimalLimit = new BigDecimal("250000.00");
+        minorLimit = Money.toMinorUnits(decimalLimit);
+    }
+
+    @Benchmark
+    public BigDecimal sumBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : decimalAmounts) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long sumMinorUnits() {
+        long total = 0;
+        for (long amount : minorAmounts) {
+            total += amount;
+        }
+        return total;
+    }
+
+    @Benchmark
+    public void thresholdBigDecimal(Blackhole blackhole) {
+        BigDecimal running = BigDecimal.ZERO;
+        for (BigDecimal amount : decimalAmounts) {
+            running = running.add(amount);
+            BigDecimal used = running.divide(decimalLimit, 2, RoundingMode.HALF_UP);
+            blackhole.consume(used.compareTo(WARNING_THRESHOLD) >= 0);
+        }
+    }
+
+    @Benchmark
+    public void thresholdMinorUnits(Blackhole blackhole) {
+        long running = 0;
+        for (long amount : minorAmounts) {
+            running += amount;
+            blackhole.consume(Money.basisPointsOf(running, minorLimit) >= WARNING_THRESHOLD_BPS);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyAggregationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
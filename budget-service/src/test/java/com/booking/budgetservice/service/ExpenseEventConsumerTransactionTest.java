@@ -0,0 +1,241 @@
+package com.booking.budgetservice.service;
+
+import com.booking.budgetservice.config.KafkaConfig;
+import com.booking.budgetservice.event.BudgetAlertEvent;
+import com.booking.budgetservice.event.ExpenseEvent;
+import com.booking.budgetservice.model.Budget;
+import com.booking.budgetservice.model.Money;
+import com.booking.budgetservice.repository.BudgetAlertStateRepository;
+import com.booking.budgetservice.repository.BudgetRepository;
+import com.booking.budgetservice.service.forecast.SpendForecaster;
+import com.booking.budgetservice.service.household.HouseholdMembership;
+import com.booking.budgetservice.service.projection.SpendKey;
+import com.booking.budgetservice.service.projection.SpendProjection;
+import com.booking.budgetservice.service.projection.SpendProjectionCheckpointService;
+import com.booking.budgetservice.service.projection.SpendProjectionRecovery;
+import com.booking.budgetservice.service.rules.AlertRuleService;
+import com.booking.budgetservice.service.rules.AlertRules;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.KafkaMessageListenerContainer;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kills the expense consumer in the middle of a batch that already raised an alert
+ * and checks that a fresh instance ends up with the full spend total and each of the
+ * batch's alerts exactly once, and that a batch whose commit fails leaves no trace.
+ */
+@EmbeddedKafka(partitions = 1, topics = {ExpenseEventConsumerTransactionTest.EXPENSES,
+        ExpenseEventConsumerTransactionTest.ABORTED_EXPENSES, ExpenseEventConsumerTransactionTest.ALERTS},
+        brokerProperties = {"transaction.state.log.replication.factor=1", "transaction.state.log.min.isr=1"})
+class ExpenseEventConsumerTransactionTest {
+
+    static final String EXPENSES = "expenses-topic";
+    static final String ABORTED_EXPENSES = "aborted-expenses-topic";
+    static final String ALERTS = "budget-alerts";
+    private static final String GROUP = "budget-service-group";
+    private static final SpendKey KEY = SpendKey.of(1L, "FOOD", YearMonth.of(2025, 5));
+
+    @Test
+    void killedBatchIsRedeliveredWithoutLosingOrDuplicatingAlerts(EmbeddedKafkaBroker broker) {
+        sendExpenses(broker, EXPENSES, 10, "10.00");
+
+        // The first instance dies on the ninth event, after the 80% alert of its batch was raised
+        AtomicInteger lookups = new AtomicInteger();
+        Instance first = new Instance(broker, EXPENSES, "first-", () -> {
+            if (lookups.incrementAndGet() > 8) {
+                throw new IllegalStateException("consumer killed");
+            }
+        }, () -> { });
+        first.container.start();
+        await().atMost(Duration.ofSeconds(30)).until(() -> lookups.get() > 9);
+        first.container.stop();
+
+        Instance second = new Instance(broker, EXPENSES, "second-", () -> { }, () -> { });
+        second.container.start();
+        await().atMost(Duration.ofSeconds(30)).until(() -> second.projection.getSpent(KEY) == 10000L);
+        second.container.stop();
+
+        // The 80% and 95% crossings of the second batch are different rules, each alerted once
+        List<BudgetAlertEvent> alerts = readCommittedAlerts(broker);
+        assertEquals(2, alerts.size());
+        assertEquals(0, new BigDecimal("0.80").compareTo(alerts.get(0).getThresholdPercentage()));
+        assertEquals(0, new BigDecimal("80.00").compareTo(alerts.get(0).getCurrentSpending()));
+        assertEquals(0, new BigDecimal("0.95").compareTo(alerts.get(1).getThresholdPercentage()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(alerts.get(1).getCurrentSpending()));
+    }
+
+    @Test
+    void abortedBatchLeavesProjectionUnchanged(EmbeddedKafkaBroker broker) {
+        sendExpenses(broker, ABORTED_EXPENSES, 5, "20.00");
+
+        // Every batch is handled in full and then fails to commit
+        AtomicInteger attempts = new AtomicInteger();
+        Instance instance = new Instance(broker, ABORTED_EXPENSES, "aborted-", () -> { }, () -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("commit failed");
+        });
+        int alertsBefore = readCommittedAlerts(broker).size();
+        instance.container.start();
+        await().atMost(Duration.ofSeconds(30)).until(() -> attempts.get() > 1);
+        instance.container.stop();
+
+        // The alerts of the batch were rolled back with it, and its deltas never applied
+        assertEquals(0L, instance.projection.getSpent(KEY));
+        assertEquals(alertsBefore, readCommittedAlerts(broker).size());
+    }
+
+    private static void sendExpenses(EmbeddedKafkaBroker broker, String topic, int count, String amount) {
+        DefaultKafkaProducerFactory<String, ExpenseEvent> producerFactory = new DefaultKafkaProducerFactory<>(
+                KafkaTestUtils.producerProps(broker), new StringSerializer(), new JsonSerializer<>());
+        KafkaTemplate<String, ExpenseEvent> template = new KafkaTemplate<>(producerFactory);
+        for (int i = 0; i < count; i++) {
+            template.send(topic, "1", ExpenseEvent.builder()
+                    .eventId(UUID.randomUUID().toString())
+                    .eventType(ExpenseEvent.CREATED)
+                    .expenseId((long) i)
+                    .userId("1")
+                    .amount(new BigDecimal(amount))
+                    .category("FOOD")
+                    .date(LocalDate.of(2025, 5, 1 + i))
+                    .build());
+        }
+        template.flush();
+        producerFactory.destroy();
+    }
+
+    private static List<BudgetAlertEvent> readCommittedAlerts(EmbeddedKafkaBroker broker) {
+        Map<String, Object> props = KafkaTestUtils.consumerProps("alerts-reader", "false", broker);
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        TopicPartition partition = new TopicPartition(ALERTS, 0);
+        List<BudgetAlertEvent> alerts = new ArrayList<>();
+        try (Consumer<String, BudgetAlertEvent> consumer = new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new JsonDeserializer<>(BudgetAlertEvent.class, false)).createConsumer()) {
+            consumer.assign(List.of(partition));
+            consumer.seekToBeginning(List.of(partition));
+            long end = consumer.endOffsets(List.of(partition)).get(partition);
+            while (consumer.position(partition) < end) {
+                for (ConsumerRecord<String, BudgetAlertEvent> record : consumer.poll(Duration.ofMillis(500))) {
+                    alerts.add(record.value());
+                }
+            }
+        }
+        return alerts;
+    }
+
+    /**
+     * One budget-service instance with its own projection and transactional producer.
+     */
+    private static final class Instance {
+
+        final SpendProjection projection = new SpendProjection(new HouseholdMembership());
+        final KafkaMessageListenerContainer<String, ExpenseEvent> container;
+
+        Instance(EmbeddedKafkaBroker broker, String topic, String transactionIdPrefix, Runnable onBudgetLookup,
+                 Runnable afterBatch) {
+            Map<String, Object> consumerProps = KafkaTestUtils.consumerProps(GROUP, "false", broker);
+            consumerProps.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+            consumerProps.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5);
+            DefaultKafkaConsumerFactory<String, ExpenseEvent> consumerFactory = new DefaultKafkaConsumerFactory<>(
+                    consumerProps, new StringDeserializer(), new JsonDeserializer<>(ExpenseEvent.class, false));
+
+            DefaultKafkaProducerFactory<String, Object> producerFactory = new DefaultKafkaProducerFactory<>(
+                    KafkaTestUtils.producerProps(broker), new StringSerializer(), new JsonSerializer<>());
+            producerFactory.setTransactionIdPrefix(transactionIdPrefix);
+            KafkaTemplate<String, Object> kafkaTemplate = new KafkaTemplate<>(producerFactory);
+            KafkaProducerService kafkaProducerService = new KafkaProducerService(kafkaTemplate, new SimpleMeterRegistry());
+            ReflectionTestUtils.setField(kafkaProducerService, "budgetAlertsTopic", ALERTS);
+            ReflectionTestUtils.setField(kafkaProducerService, "queueCapacity", 100);
+            kafkaProducerService.start();
+            AlertRuleService alertRuleService = mock(AlertRuleService.class);
+            when(alertRuleService.rulesFor(any(Budget.class))).thenAnswer(invocation ->
+                    AlertRules.compile(Money.toMinorUnits(invocation.<Budget>getArgument(0).getAmount()), List.of()));
+            // No level recorded yet; escalations of the dying batch must not be written
+            BudgetAlertStateService alertStateService = new BudgetAlertStateService(
+                    mock(BudgetAlertStateRepository.class), mock(JdbcTemplate.class), mock(TransactionTemplate.class));
+            BudgetAlertService budgetAlertService = new BudgetAlertService(kafkaProducerService,
+                    alertStateService, alertRuleService, new HouseholdMembership());
+
+            Budget budget = Budget.builder().id(1L).userId(1L).category("FOOD")
+                    .amount(new BigDecimal("100.00")).month(KEY.month()).build();
+            BudgetRepository budgetRepository = mock(BudgetRepository.class);
+            when(budgetRepository.findByUserIdAndCategoryAndMonthAndHouseholdIdIsNull(anyLong(), anyString(), any(YearMonth.class)))
+                    .thenAnswer(invocation -> {
+                        onBudgetLookup.run();
+                        return budget;
+                    });
+
+            SpendProjectionCheckpointService checkpointService = mock(SpendProjectionCheckpointService.class);
+            when(checkpointService.loadPartition(anyInt())).thenReturn(null);
+            SpendForecaster spendForecaster = mock(SpendForecaster.class);
+            SpendProjectionRecovery recovery = new SpendProjectionRecovery(
+                    projection, checkpointService, consumerFactory, spendForecaster, List.of());
+            ExpenseEventConsumerService service = new ExpenseEventConsumerService(projection, checkpointService,
+                    recovery, budgetRepository, budgetAlertService, spendForecaster, List.of());
+
+            ContainerProperties containerProperties = new ContainerProperties(topic);
+            containerProperties.setKafkaAwareTransactionManager(KafkaConfig.expenseTransactionManager(producerFactory));
+            containerProperties.setMessageListener(new Listener(service, afterBatch));
+            container = new KafkaMessageListenerContainer<>(consumerFactory, containerProperties);
+        }
+    }
+
+    private record Listener(ExpenseEventConsumerService service, Runnable afterBatch)
+            implements BatchMessageListener<String, ExpenseEvent>, ConsumerSeekAware {
+
+        @Override
+        public void onMessage(List<ConsumerRecord<String, ExpenseEvent>> records) {
+            service.consumeExpenseEvents(records);
+            afterBatch.run();
+        }
+
+        @Override
+        public void onPartitionsAssigned(Map<TopicPartition, Long> assignments, ConsumerSeekCallback callback) {
+            service.onPartitionsAssigned(assignments, callback);
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            service.onPartitionsRevoked(partitions);
+        }
+    }
+}
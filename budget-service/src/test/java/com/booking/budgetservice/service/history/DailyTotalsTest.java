@@ -0,0 +1,75 @@
+package com.booking.budgetservice.service.history;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DailyTotalsTest {
+
+    @Test
+    void recordsFirstDay() {
+        assertEquals("500", DailyTotals.record("", 0, 1, 500L));
+    }
+
+    @Test
+    void carriesLastTotalOverSkippedDays() {
+        String encoded = DailyTotals.record("500", 1, 4, 700L);
+
+        assertEquals("500*3,700", encoded);
+        assertEquals(500L, DailyTotals.valueAt(encoded, 3));
+        assertEquals(700L, DailyTotals.valueAt(encoded, 4));
+    }
+
+    @Test
+    void carriesZeroBeforeTheFirstRecordedDay() {
+        String encoded = DailyTotals.record("", 0, 3, 200L);
+
+        assertEquals("0*2,200", encoded);
+        assertEquals(0L, DailyTotals.valueAt(encoded, 1));
+        assertEquals(200L, DailyTotals.valueAt(encoded, 3));
+    }
+
+    @Test
+    void extendsRunOfEqualTotals() {
+        assertEquals("500*2", DailyTotals.record("500", 1, 2, 500L));
+    }
+
+    @Test
+    void overwritesLastRecordedDay() {
+        assertEquals("600", DailyTotals.record("500", 1, 1, 600L));
+        assertEquals("500*3,900", DailyTotals.record("500*3,700", 4, 4, 900L));
+        // Overwriting with the total of the day before merges the runs
+        assertEquals("500*4", DailyTotals.record("500*3,700", 4, 4, 500L));
+        assertEquals("1*2", DailyTotals.record("1,2", 2, 2, 1L));
+    }
+
+    @Test
+    void ignoresDaysBeforeLastRecordedDay() {
+        assertEquals("500*3,700", DailyTotals.record("500*3,700", 4, 2, 1L));
+    }
+
+    @Test
+    void repeatsLastTotalPastRecordedDays() {
+        assertEquals(700L, DailyTotals.valueAt("500*3,700", 31));
+    }
+
+    @Test
+    void readsZeroOutsideRecordedMonth() {
+        assertEquals(0L, DailyTotals.valueAt(null, 5));
+        assertEquals(0L, DailyTotals.valueAt("", 5));
+        assertEquals(0L, DailyTotals.valueAt("500", 0));
+    }
+
+    @Test
+    void readsBackEveryRecordedDay() {
+        String encoded = "";
+        for (int day = 1; day <= 31; day++) {
+            encoded = DailyTotals.record(encoded, day - 1, day, day % 3 == 0 ? day * 100L : (day - 1) * 100L);
+        }
+
+        for (int day = 1; day <= 31; day++) {
+            long expected = day % 3 == 0 ? day * 100L : (day - 1) * 100L;
+            assertEquals(expected, DailyTotals.valueAt(encoded, day), "day " + day);
+        }
+    }
+}
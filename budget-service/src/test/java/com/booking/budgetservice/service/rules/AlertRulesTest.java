@@ -0,0 +1,144 @@
+package com.booking.budgetservice.service.rules;
+
+import com.booking.budgetservice.model.AlertLevel;
+import com.booking.budgetservice.model.AlertRuleType;
+import com.booking.budgetservice.model.BudgetAlertRule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AlertRulesTest {
+
+    // 500.00
+    private static final long LIMIT = 50_000L;
+
+    @Test
+    void compilesDefaultRulesToTriggers() {
+        AlertRules rules = AlertRules.compile(LIMIT, List.of());
+
+        assertEquals(40_000L, rules.trigger(0));
+        assertEquals(47_500L, rules.trigger(1));
+        assertEquals(50_001L, rules.trigger(2));
+        assertEquals(50_001L, rules.trigger(3));
+        assertEquals(AlertLevel.WARNING, rules.level(0));
+        assertEquals(AlertLevel.CRITICAL, rules.level(1));
+        assertEquals(AlertLevel.OVERSPENT, rules.level(2));
+        assertEquals(AlertLevel.NONE, rules.level(3));
+    }
+
+    @Test
+    void roundsPercentTriggersUpAndOverrunTriggersPastTheLimit() {
+        // 3.33: 80% is 2.664, first reached at 2.67
+        AlertRules rules = AlertRules.compile(333L, List.of(
+                rule(AlertRuleType.PERCENT_USED, "80"),
+                rule(AlertRuleType.PROJECTED_OVERRUN, "100")));
+
+        assertEquals(267L, rules.trigger(0));
+        assertEquals(AlertLevel.WARNING, rules.level(0));
+        assertEquals(0L, rules.crossed(0L, 266L));
+        assertEquals(334L, rules.trigger(1));
+    }
+
+    @Test
+    void roundsFractionalPercentagesToBasisPoints() {
+        AlertRules rules = AlertRules.compile(10_000L, List.of(
+                rule(AlertRuleType.PERCENT_USED, "33.333"),
+                rule(AlertRuleType.PERCENT_USED, "33.335")));
+
+        assertEquals(3_333L, rules.trigger(0));
+        assertEquals(3_334L, rules.trigger(1));
+    }
+
+    @Test
+    void compilesAmountRulesToTriggers() {
+        AlertRules rules = AlertRules.compile(LIMIT, List.of(
+                rule(AlertRuleType.REMAINING_BELOW, "50.00"),
+                rule(AlertRuleType.SINGLE_EXPENSE, "100.00"),
+                rule(AlertRuleType.SINGLE_EXPENSE, "0")));
+
+        assertEquals(45_001L, rules.trigger(0));
+        assertEquals(10_000L, rules.trigger(1));
+        assertEquals(1L, rules.trigger(2));
+    }
+
+    @Test
+    void firesSpendRulesOnlyWhenCrossed() {
+        AlertRules rules = AlertRules.compile(LIMIT, List.of());
+
+        assertEquals(0L, rules.crossed(0L, 39_999L));
+        assertEquals(0b1L, rules.crossed(39_999L, 40_000L));
+        assertEquals(0L, rules.crossed(40_000L, 45_000L));
+        assertEquals(0b111L, rules.crossed(0L, 50_001L));
+        assertEquals(AlertLevel.OVERSPENT, rules.level(rules.crossed(0L, 50_001L)));
+        // A refund never fires
+        assertEquals(0L, rules.crossed(50_001L, 30_000L));
+    }
+
+    @Test
+    void reportsFiredRulesByPositionRegardlessOfTriggerOrder() {
+        AlertRules rules = AlertRules.compile(LIMIT, List.of(
+                rule(AlertRuleType.PERCENT_USED, "95"),
+                rule(AlertRuleType.PERCENT_USED, "50")));
+
+        assertEquals(0b10L, rules.crossed(0L, 30_000L));
+        assertEquals(0b01L, rules.crossed(30_000L, 48_000L));
+        assertEquals(AlertLevel.NONE, rules.level(0b10L));
+        assertEquals(AlertLevel.CRITICAL, rules.level(0b11L));
+    }
+
+    @Test
+    void firesSingleExpenseRulesOnTheChangeAlone() {
+        AlertRules rules = AlertRules.compile(LIMIT, List.of(rule(AlertRuleType.SINGLE_EXPENSE, "100.00")));
+
+        assertEquals(0L, rules.crossed(20_000L, 29_999L));
+        assertEquals(0b1L, rules.crossed(20_000L, 30_000L));
+    }
+
+    @Test
+    void findsHighestReachedSpendRule() {
+        AlertRules rules = AlertRules.compile(LIMIT, List.of());
+
+        assertEquals(-1, rules.highestReached(39_999L));
+        assertEquals(0, rules.highestReached(45_000L));
+        assertEquals(1, rules.highestReached(47_500L));
+        assertEquals(2, rules.highestReached(60_000L));
+    }
+
+    @Test
+    void projectsOverrunsNotYetReached() {
+        AlertRules rules = AlertRules.compile(LIMIT, List.of());
+
+        assertEquals(-1, rules.projected(30_000L, 50_000L));
+        assertEquals(3, rules.projected(30_000L, 50_001L));
+        assertEquals(-1, rules.projected(50_001L, 60_000L));
+    }
+
+    @Test
+    void rejectsRulesThatCanNeverFire() {
+        AlertRules reachable = AlertRules.compile(LIMIT, List.of(rule(AlertRuleType.REMAINING_BELOW, "499.99")));
+
+        assertSame(reachable, reachable.requireReachable());
+        assertThrows(IllegalArgumentException.class, () -> AlertRules.compile(LIMIT,
+                List.of(rule(AlertRuleType.PERCENT_USED, "0"))).requireReachable());
+        assertThrows(IllegalArgumentException.class, () -> AlertRules.compile(LIMIT,
+                List.of(rule(AlertRuleType.REMAINING_BELOW, "500.00"))).requireReachable());
+    }
+
+    @Test
+    void rejectsInvalidBudgets() {
+        assertThrows(IllegalArgumentException.class, () -> AlertRules.compile(0L, List.of()));
+        List<BudgetAlertRule> tooMany = Collections.nCopies(AlertRules.MAX_RULES + 1,
+                rule(AlertRuleType.PERCENT_USED, "50"));
+        assertThrows(IllegalArgumentException.class, () -> AlertRules.compile(LIMIT, tooMany));
+    }
+
+    private static BudgetAlertRule rule(AlertRuleType type, String threshold) {
+        return BudgetAlertRule.builder().ruleType(type).threshold(new BigDecimal(threshold)).build();
+    }
+}
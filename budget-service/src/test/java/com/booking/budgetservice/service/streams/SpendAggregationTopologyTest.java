@@ -0,0 +1,142 @@
+package com.booking.budgetservice.service.streams;
+
+import com.booking.budgetservice.event.BudgetAlertEvent;
+import com.booking.budgetservice.event.BudgetChangeEvent;
+import com.booking.budgetservice.event.ExpenseEvent;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TestOutputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.apache.kafka.streams.state.KeyValueStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerde;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpendAggregationTopologyTest {
+
+    private static final String EXPENSES = "expenses-topic";
+    private static final String BUDGETS = "budgets-changelog";
+    private static final String ALERTS = "budget-alerts";
+
+    private TopologyTestDriver driver;
+    private TestInputTopic<String, ExpenseEvent> expenses;
+    private TestInputTopic<String, BudgetChangeEvent> budgets;
+    private TestOutputTopic<String, BudgetAlertEvent> alerts;
+
+    @BeforeEach
+    void setUp() {
+        StreamsBuilder builder = new StreamsBuilder();
+        SpendAggregationTopology.build(builder, EXPENSES, BUDGETS, ALERTS);
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "spend-aggregation-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "dummy:9092");
+        driver = new TopologyTestDriver(builder.build(), props);
+
+        expenses = driver.createInputTopic(EXPENSES, Serdes.String().serializer(),
+                new JsonSerde<>(ExpenseEvent.class).noTypeInfo().serializer());
+        budgets = driver.createInputTopic(BUDGETS, Serdes.String().serializer(),
+                new JsonSerde<>(BudgetChangeEvent.class).noTypeInfo().serializer());
+        alerts = driver.createOutputTopic(ALERTS, Serdes.String().deserializer(),
+                new JsonSerde<>(BudgetAlertEvent.class).ignoreTypeHeaders().deserializer());
+    }
+
+    @AfterEach
+    void tearDown() {
+        driver.close();
+    }
+
+    @Test
+    void sumsExpensesPerUserCategoryAndMonth() {
+        expenses.pipeInput("1", created("10.00", "FOOD", LocalDate.of(2025, 5, 3)));
+        expenses.pipeInput("1", created("2.50", "FOOD", LocalDate.of(2025, 5, 31)));
+        expenses.pipeInput("1", created("7.00", "FOOD", LocalDate.of(2025, 6, 1)));
+
+        KeyValueStore<String, SpendAggregate> store = driver.getKeyValueStore(SpendAggregationTopology.SPEND_STORE);
+        assertEquals(1250L, store.get("1|FOOD|2025-05").spentMinorUnits());
+        assertEquals(700L, store.get("1|FOOD|2025-06").spentMinorUnits());
+    }
+
+    @Test
+    void updateMovesSpendToNewCategory() {
+        expenses.pipeInput("1", created("10.00", "FOOD", LocalDate.of(2025, 5, 3)));
+        ExpenseEvent update = created("12.00", "TRAVEL", LocalDate.of(2025, 5, 3));
+        update.setEventType(ExpenseEvent.UPDATED);
+        update.setPreviousAmount(new BigDecimal("10.00"));
+        update.setPreviousCategory("FOOD");
+        update.setPreviousDate(LocalDate.of(2025, 5, 3));
+        expenses.pipeInput("1", update);
+
+        KeyValueStore<String, SpendAggregate> store = driver.getKeyValueStore(SpendAggregationTopology.SPEND_STORE);
+        assertEquals(0L, store.get("1|FOOD|2025-05").spentMinorUnits());
+        assertEquals(1200L, store.get("1|TRAVEL|2025-05").spentMinorUnits());
+    }
+
+    @Test
+    void emitsOneAlertPerThresholdCrossing() {
+        budgets.pipeInput("1|FOOD|2025-05", budget("100.00"));
+
+        expenses.pipeInput("1", created("50.00", "FOOD", LocalDate.of(2025, 5, 3)));
+        assertTrue(alerts.isEmpty());
+
+        expenses.pipeInput("1", created("31.00", "FOOD", LocalDate.of(2025, 5, 4)));
+        expenses.pipeInput("1", created("1.00", "FOOD", LocalDate.of(2025, 5, 5)));
+        expenses.pipeInput("1", created("20.00", "FOOD", LocalDate.of(2025, 5, 6)));
+
+        List<BudgetAlertEvent> emitted = alerts.readValuesToList();
+        assertEquals(2, emitted.size());
+        assertEquals("1", emitted.get(0).getUserId());
+        assertEquals(0, new BigDecimal("0.8").compareTo(emitted.get(0).getThresholdPercentage()));
+        assertEquals(0, new BigDecimal("102.00").compareTo(emitted.get(1).getCurrentSpending()));
+        assertTrue(emitted.get(1).getAlertMessage().startsWith("OVERSPENT"));
+    }
+
+    @Test
+    void noAlertWithoutBudget() {
+        expenses.pipeInput("1", created("500.00", "FOOD", LocalDate.of(2025, 5, 3)));
+
+        assertTrue(alerts.isEmpty());
+    }
+
+    @Test
+    void detectCrossingIgnoresDecreases() {
+        SpendAggregate aggregate = new SpendAggregate(8500L, 9600L);
+
+        assertNull(SpendAggregationTopology.detectCrossing(aggregate, budget("100.00")));
+    }
+
+    private static ExpenseEvent created(String amount, String category, LocalDate date) {
+        return ExpenseEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(ExpenseEvent.CREATED)
+                .expenseId(1L)
+                .userId("1")
+                .amount(new BigDecimal(amount))
+                .category(category)
+                .date(date)
+                .build();
+    }
+
+    private static BudgetChangeEvent budget(String amount) {
+        return BudgetChangeEvent.builder()
+                .budgetId(7L)
+                .userId(1L)
+                .category("FOOD")
+                .month("2025-05")
+                .amount(new BigDecimal(amount))
+                .build();
+    }
+}
@@ -1,16 +1,5 @@
 package com.booking.expenseservice;
-package com.booking.expenseservice;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
 
-@SpringBootApplication
-public class ExpenseServiceApplication {
-
-    public static void main(String[] args) {
-        SpringApplication.run(ExpenseServiceApplication.class, args);
-    }
-}
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
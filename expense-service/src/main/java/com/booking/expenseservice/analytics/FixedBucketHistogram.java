@@ -0,0 +1,96 @@
+package com.booking.expenseservice.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Histogram with fixed, caller-supplied bucket boundaries in minor units.
+ * <p>
+ * Bucket {@code i} covers {@code [bounds[i-1], bounds[i])}; the first bucket
+ * starts at zero and the last one is open ended. Histograms with identical
+ * bounds can be merged by adding their counts.
+ */
+public class FixedBucketHistogram {
+
+    private final long[] upperBounds;
+    private final long[] counts;
+    private final long[] sums;
+
+    public FixedBucketHistogram(long[] upperBounds) {
+        for (int i = 1; i < upperBounds.length; i++) {
+            if (upperBounds[i] <= upperBounds[i - 1]) {
+                throw new IllegalArgumentException("Histogram bounds must be strictly increasing");
+            }
+        }
+        this.upperBounds = upperBounds.clone();
+        this.counts = new long[upperBounds.length + 1];
+        this.sums = new long[upperBounds.length + 1];
+    }
+
+    /**
+     * Record a value.
+     *
+     * @param minorUnits the amount in minor units
+     */
+    public void add(long minorUnits) {
+        int bucket = bucketFor(minorUnits);
+        counts[bucket]++;
+        sums[bucket] += minorUnits;
+    }
+
+    /**
+     * Merge another histogram into this one.
+     *
+     * @param other a histogram with the same bounds
+     */
+    public void merge(FixedBucketHistogram other) {
+        if (!Arrays.equals(upperBounds, other.upperBounds)) {
+            throw new IllegalArgumentException("Cannot merge histograms with different bounds");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+            sums[i] += other.sums[i];
+        }
+    }
+
+    public int getBucketCount() {
+        return counts.length;
+    }
+
+    /**
+     * @param bucket the bucket index
+     * @return the inclusive lower bound of the bucket in minor units
+     */
+    public long getLowerBound(int bucket) {
+        return bucket == 0 ? 0 : upperBounds[bucket - 1];
+    }
+
+    /**
+     * @param bucket the bucket index
+     * @return the exclusive upper bound in minor units, or {@code null} for the open-ended bucket
+     */
+    public Long getUpperBound(int bucket) {
+        return bucket < upperBounds.length ? upperBounds[bucket] : null;
+    }
+
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    public long getSum(int bucket) {
+        return sums[bucket];
+    }
+
+    private int bucketFor(long minorUnits) {
+        int low = 0;
+        int high = upperBounds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (minorUnits < upperBounds[mid]) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+}
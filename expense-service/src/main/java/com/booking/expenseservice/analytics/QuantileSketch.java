@@ -0,0 +1,100 @@
+package com.booking.expenseservice.analytics;
+
+/**
+ * Fixed-size, mergeable quantile sketch over positive amounts in minor units.
+ * <p>
+ * Values are mapped to logarithmically spaced buckets so that every reported
+ * quantile is within {@code relativeAccuracy} of the true value. The bucket
+ * array is allocated once, so memory is constant regardless of how many values
+ * are added, and two sketches with the same accuracy can be merged by adding
+ * their counts.
+ */
+public class QuantileSketch {
+
+    // 10^11 minor units (one billion in major units) is far beyond any single expense
+    private static final double MAX_TRACKED_VALUE = 1e11;
+
+    private final double relativeAccuracy;
+    private final double logGamma;
+    private final long[] counts;
+    private long count;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        double gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.counts = new long[(int) Math.ceil(Math.log(MAX_TRACKED_VALUE) / logGamma) + 1];
+    }
+
+    /**
+     * Add a value to the sketch.
+     *
+     * @param minorUnits the amount in minor units, must be positive
+     */
+    public void add(long minorUnits) {
+        if (minorUnits <= 0) {
+            throw new IllegalArgumentException("Sketch only accepts positive amounts");
+        }
+        counts[bucketIndex(minorUnits)]++;
+        count++;
+        min = Math.min(min, minorUnits);
+        max = Math.max(max, minorUnits);
+    }
+
+    /**
+     * Merge another sketch into this one.
+     *
+     * @param other a sketch created with the same relative accuracy
+     */
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Estimate the value at the given quantile.
+     *
+     * @param quantile the quantile between 0 and 1
+     * @return the estimated value in minor units, or 0 if the sketch is empty
+     */
+    public long quantile(double quantile) {
+        if (quantile < 0 || quantile > 1) {
+            throw new IllegalArgumentException("Quantile must be between 0 and 1");
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(quantile * (count - 1));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen > rank) {
+                // Clamp to observed bounds so extreme quantiles never overshoot the data
+                long estimate = Math.round(2 * Math.exp(i * logGamma) / (1 + Math.exp(logGamma)));
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    private int bucketIndex(long minorUnits) {
+        int index = (int) Math.ceil(Math.log(minorUnits) / logGamma);
+        return Math.min(index, counts.length - 1);
+    }
+}
@@ -0,0 +1,100 @@
+package com.booking.expenseservice.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+/**
+ * Single-pass accumulator for per-user spending analytics.
+ * <p>
+ * Every structure inside has a fixed size, so a full scan over any number of
+ * expenses runs in constant memory. Amounts are tracked as minor units
+ * (cents) to keep the per-row work free of {@link BigDecimal} arithmetic.
+ */
+public class SpendingAnalyticsAccumulator {
+
+    public static final int AMOUNT_SCALE = 2;
+
+    // Histogram bucket edges in minor units: 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000
+    private static final long[] DEFAULT_HISTOGRAM_BOUNDS = {
+            500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000
+    };
+
+    private static final double SKETCH_RELATIVE_ACCURACY = 0.01;
+
+    private final QuantileSketch quantiles = new QuantileSketch(SKETCH_RELATIVE_ACCURACY);
+    private final FixedBucketHistogram histogram = new FixedBucketHistogram(DEFAULT_HISTOGRAM_BOUNDS);
+    private final long[] dayOfWeekCounts = new long[7];
+    private final long[] dayOfWeekSums = new long[7];
+    private long count;
+    private long total;
+
+    /**
+     * Add one expense to the running aggregates.
+     *
+     * @param amount the expense amount
+     * @param date the expense date
+     */
+    public void add(BigDecimal amount, LocalDate date) {
+        long minorUnits = toMinorUnits(amount);
+        if (minorUnits <= 0) {
+            return;
+        }
+        quantiles.add(minorUnits);
+        histogram.add(minorUnits);
+        int day = date.getDayOfWeek().getValue() - 1;
+        dayOfWeekCounts[day]++;
+        dayOfWeekSums[day] += minorUnits;
+        count++;
+        total += minorUnits;
+    }
+
+    /**
+     * Merge a partial result, e.g. one computed for another shard of the data.
+     *
+     * @param other the accumulator to merge
+     */
+    public void merge(SpendingAnalyticsAccumulator other) {
+        quantiles.merge(other.quantiles);
+        histogram.merge(other.histogram);
+        for (int i = 0; i < 7; i++) {
+            dayOfWeekCounts[i] += other.dayOfWeekCounts[i];
+            dayOfWeekSums[i] += other.dayOfWeekSums[i];
+        }
+        count += other.count;
+        total += other.total;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getQuantile(double quantile) {
+        return quantiles.quantile(quantile);
+    }
+
+    public FixedBucketHistogram getHistogram() {
+        return histogram;
+    }
+
+    public long getDayOfWeekCount(DayOfWeek day) {
+        return dayOfWeekCounts[day.getValue() - 1];
+    }
+
+    public long getDayOfWeekSum(DayOfWeek day) {
+        return dayOfWeekSums[day.getValue() - 1];
+    }
+
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(AMOUNT_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, AMOUNT_SCALE);
+    }
+}
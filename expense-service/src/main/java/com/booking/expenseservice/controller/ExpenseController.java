@@ -1,7 +1,9 @@
 package com.booking.expenseservice.controller;
 
 import com.booking.expenseservice.dto.ExpenseDTO;
+import com.booking.expenseservice.dto.SpendingAnalyticsDTO;
 import com.booking.expenseservice.model.Category;
+import com.booking.expenseservice.service.ExpenseAnalyticsService;
 import com.booking.expenseservice.service.ExpenseService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -20,6 +22,7 @@ import java.util.List;
 public class ExpenseController {
 
     private final ExpenseService expenseService;
+    private final ExpenseAnalyticsService expenseAnalyticsService;
 
     @GetMapping
     public ResponseEntity<List<ExpenseDTO>> getAllExpenses(@RequestHeader("X-User-ID") String userId) {
@@ -78,6 +81,14 @@ public class ExpenseController {
         return ResponseEntity.ok(expenseService.getTotalExpensesByCategoryAndDateRange(userId, category, startDate, endDate));
     }
 
+    @GetMapping("/analytics")
+    public ResponseEntity<SpendingAnalyticsDTO> getSpendingAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestHeader("X-User-ID") String userId) {
+        return ResponseEntity.ok(expenseAnalyticsService.getSpendingAnalytics(userId, startDate, endDate));
+    }
+
     @PostMapping
     public ResponseEntity<ExpenseDTO> createExpense(
             @Valid @RequestBody ExpenseDTO expenseDTO) {
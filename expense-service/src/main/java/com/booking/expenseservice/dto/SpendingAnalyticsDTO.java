@@ -0,0 +1,60 @@
+package com.booking.expenseservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SpendingAnalyticsDTO {
+
+    private String userId;
+
+    private LocalDate startDate;
+
+    private LocalDate endDate;
+
+    private long transactionCount;
+
+    private BigDecimal totalAmount;
+
+    private BigDecimal averageAmount;
+
+    // Quantiles are estimates with ~1% relative error
+    private BigDecimal medianAmount;
+
+    private BigDecimal p90Amount;
+
+    private List<HistogramBucket> amountHistogram;
+
+    private Map<DayOfWeek, DaySpend> spendByDayOfWeek;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class HistogramBucket {
+        private BigDecimal lowerBound;
+        private BigDecimal upperBound; // null for the open-ended bucket
+        private long count;
+        private BigDecimal totalAmount;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class DaySpend {
+        private long count;
+        private BigDecimal totalAmount;
+    }
+}
@@ -23,4 +23,9 @@ public class ExpenseEvent {
     private Category category;
     private LocalDate date;
     private String description;
+    
+    // Values before the change, only set for UPDATED so consumers can apply exact deltas
+    private BigDecimal previousAmount;
+    private Category previousCategory;
+    private LocalDate previousDate;
 }
@@ -0,0 +1,16 @@
+package com.booking.expenseservice.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Narrow read-only projection of an expense used for analytics scans.
+ * Only the columns needed for aggregation are selected, and projections are
+ * not tracked by the persistence context, so streaming them keeps memory flat.
+ */
+public interface ExpenseAmountView {
+
+    BigDecimal getAmount();
+
+    LocalDate getDate();
+}
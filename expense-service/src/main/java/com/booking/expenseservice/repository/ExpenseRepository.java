@@ -2,13 +2,20 @@ package com.booking.expenseservice.repository;
 
 import com.booking.expenseservice.model.Category;
 import com.booking.expenseservice.model.Expense;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface ExpenseRepository extends JpaRepository<Expense, Long> {
@@ -30,4 +37,12 @@ public interface ExpenseRepository extends JpaRepository<Expense, Long> {
     
     @Query("SELECT SUM(e.amount) FROM Expense e WHERE e.userId = :userId AND e.category = :category AND e.date BETWEEN :startDate AND :endDate")
     BigDecimal sumExpensesByUserIdAndCategoryAndDateRange(@Param("userId") String userId, @Param("category") Category category, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+    
+    // Streams amount/date pairs with a server-side cursor; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e.amount AS amount, e.date AS date FROM Expense e WHERE e.userId = :userId AND e.date BETWEEN :startDate AND :endDate")
+    Stream<ExpenseAmountView> streamAmountsByUserIdAndDateRange(@Param("userId") String userId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 }
@@ -0,0 +1,86 @@
+package com.booking.expenseservice.service;
+
+import com.booking.expenseservice.analytics.FixedBucketHistogram;
+import com.booking.expenseservice.analytics.SpendingAnalyticsAccumulator;
+import com.booking.expenseservice.dto.SpendingAnalyticsDTO;
+import com.booking.expenseservice.repository.ExpenseAmountView;
+import com.booking.expenseservice.repository.ExpenseRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static com.booking.expenseservice.analytics.SpendingAnalyticsAccumulator.AMOUNT_SCALE;
+import static com.booking.expenseservice.analytics.SpendingAnalyticsAccumulator.toAmount;
+
+@Service
+@RequiredArgsConstructor
+public class ExpenseAnalyticsService {
+
+    private final ExpenseRepository expenseRepository;
+
+    @Transactional(readOnly = true)
+    public SpendingAnalyticsDTO getSpendingAnalytics(String userId, LocalDate startDate, LocalDate endDate) {
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("End date must not be before start date");
+        }
+
+        // One scan over a server-side cursor; the accumulator has a fixed footprint
+        SpendingAnalyticsAccumulator accumulator = new SpendingAnalyticsAccumulator();
+        try (Stream<ExpenseAmountView> rows =
+                     expenseRepository.streamAmountsByUserIdAndDateRange(userId, startDate, endDate)) {
+            rows.forEach(row -> accumulator.add(row.getAmount(), row.getDate()));
+        }
+
+        return convertToDTO(userId, startDate, endDate, accumulator);
+    }
+
+    private SpendingAnalyticsDTO convertToDTO(String userId, LocalDate startDate, LocalDate endDate,
+                                              SpendingAnalyticsAccumulator accumulator) {
+        long count = accumulator.getCount();
+        BigDecimal average = count == 0
+                ? BigDecimal.ZERO.setScale(AMOUNT_SCALE)
+                : toAmount(accumulator.getTotal()).divide(BigDecimal.valueOf(count), AMOUNT_SCALE, RoundingMode.HALF_UP);
+
+        FixedBucketHistogram histogram = accumulator.getHistogram();
+        List<SpendingAnalyticsDTO.HistogramBucket> buckets = new ArrayList<>(histogram.getBucketCount());
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            Long upperBound = histogram.getUpperBound(i);
+            buckets.add(SpendingAnalyticsDTO.HistogramBucket.builder()
+                    .lowerBound(toAmount(histogram.getLowerBound(i)))
+                    .upperBound(upperBound == null ? null : toAmount(upperBound))
+                    .count(histogram.getCount(i))
+                    .totalAmount(toAmount(histogram.getSum(i)))
+                    .build());
+        }
+
+        Map<DayOfWeek, SpendingAnalyticsDTO.DaySpend> byDay = new EnumMap<>(DayOfWeek.class);
+        for (DayOfWeek day : DayOfWeek.values()) {
+            byDay.put(day, new SpendingAnalyticsDTO.DaySpend(
+                    accumulator.getDayOfWeekCount(day),
+                    toAmount(accumulator.getDayOfWeekSum(day))));
+        }
+
+        return SpendingAnalyticsDTO.builder()
+                .userId(userId)
+                .startDate(startDate)
+                .endDate(endDate)
+                .transactionCount(count)
+                .totalAmount(toAmount(accumulator.getTotal()))
+                .averageAmount(average)
+                .medianAmount(toAmount(accumulator.getQuantile(0.5)))
+                .p90Amount(toAmount(accumulator.getQuantile(0.9)))
+                .amountHistogram(buckets)
+                .spendByDayOfWeek(byDay)
+                .build();
+    }
+}
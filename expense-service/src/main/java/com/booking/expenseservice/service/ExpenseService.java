@@ -91,6 +91,11 @@ public class ExpenseService {
             throw new ResourceNotFoundException("Expense not found with id: " + id);
         }
         
+        // Capture the old values so downstream projections can reverse them
+        BigDecimal previousAmount = existingExpense.getAmount();
+        Category previousCategory = existingExpense.getCategory();
+        LocalDate previousDate = existingExpense.getDate();
+        
         // Update the fields
         existingExpense.setAmount(expenseDTO.getAmount());
         existingExpense.setDescription(expenseDTO.getDescription());
@@ -103,7 +108,7 @@ public class ExpenseService {
         Expense updatedExpense = expenseRepository.save(existingExpense);
         
         // Publish event to Kafka
-        publishExpenseUpdatedEvent(updatedExpense);
+        publishExpenseUpdatedEvent(updatedExpense, previousAmount, previousCategory, previousDate);
         
         return convertToDTO(updatedExpense);
     }
@@ -172,8 +177,12 @@ public class ExpenseService {
         kafkaProducerService.publishExpenseEvent(event);
     }
     
-    private void publishExpenseUpdatedEvent(Expense expense) {
+    private void publishExpenseUpdatedEvent(Expense expense, BigDecimal previousAmount,
+                                            Category previousCategory, LocalDate previousDate) {
         ExpenseEvent event = createExpenseEvent(expense, "UPDATED");
+        event.setPreviousAmount(previousAmount);
+        event.setPreviousCategory(previousCategory);
+        event.setPreviousDate(previousDate);
         kafkaProducerService.publishExpenseEvent(event);
     }
     
@@ -0,0 +1,66 @@
+package com.booking.expenseservice.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class FixedBucketHistogramTest {
+
+    private static final long[] BOUNDS = {1_000, 5_000, 10_000};
+
+    @Test
+    void countsValuesIntoHalfOpenBuckets() {
+        FixedBucketHistogram histogram = new FixedBucketHistogram(BOUNDS);
+        histogram.add(0);
+        histogram.add(999);
+        histogram.add(1_000);
+        histogram.add(4_999);
+        histogram.add(10_000);
+        histogram.add(250_000);
+
+        assertEquals(4, histogram.getBucketCount());
+        assertEquals(2, histogram.getCount(0));
+        assertEquals(999, histogram.getSum(0));
+        assertEquals(2, histogram.getCount(1));
+        assertEquals(5_999, histogram.getSum(1));
+        assertEquals(0, histogram.getCount(2));
+        assertEquals(2, histogram.getCount(3));
+        assertEquals(260_000, histogram.getSum(3));
+    }
+
+    @Test
+    void reportsBucketBounds() {
+        FixedBucketHistogram histogram = new FixedBucketHistogram(BOUNDS);
+
+        assertEquals(0, histogram.getLowerBound(0));
+        assertEquals(1_000L, histogram.getUpperBound(0));
+        assertEquals(5_000, histogram.getLowerBound(2));
+        assertEquals(10_000L, histogram.getUpperBound(2));
+        assertEquals(10_000, histogram.getLowerBound(3));
+        assertNull(histogram.getUpperBound(3));
+    }
+
+    @Test
+    void mergesHistogramsWithSameBounds() {
+        FixedBucketHistogram first = new FixedBucketHistogram(BOUNDS);
+        FixedBucketHistogram second = new FixedBucketHistogram(BOUNDS.clone());
+        first.add(500);
+        second.add(700);
+        second.add(20_000);
+
+        first.merge(second);
+
+        assertEquals(2, first.getCount(0));
+        assertEquals(1_200, first.getSum(0));
+        assertEquals(1, first.getCount(3));
+    }
+
+    @Test
+    void rejectsInvalidBounds() {
+        assertThrows(IllegalArgumentException.class, () -> new FixedBucketHistogram(new long[]{1_000, 1_000}));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FixedBucketHistogram(BOUNDS).merge(new FixedBucketHistogram(new long[]{1_000})));
+    }
+}
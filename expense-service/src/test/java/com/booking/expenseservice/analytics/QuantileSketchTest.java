@@ -0,0 +1,74 @@
+package com.booking.expenseservice.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double ACCURACY = 0.01;
+
+    @Test
+    void estimatesQuantilesWithinRelativeAccuracy() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        for (long value = 1; value <= 10_000; value++) {
+            sketch.add(value * 100);
+        }
+
+        assertEquals(10_000, sketch.getCount());
+        assertWithinAccuracy(500_000, sketch.quantile(0.5));
+        assertWithinAccuracy(900_000, sketch.quantile(0.9));
+        assertWithinAccuracy(990_000, sketch.quantile(0.99));
+    }
+
+    @Test
+    void clampsExtremeQuantilesToObservedValues() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+        sketch.add(1_234);
+        sketch.add(5_678);
+        sketch.add(98_765);
+
+        assertEquals(1_234, sketch.quantile(0));
+        assertEquals(98_765, sketch.quantile(1));
+    }
+
+    @Test
+    void returnsZeroWhenEmpty() {
+        assertEquals(0, new QuantileSketch(ACCURACY).quantile(0.5));
+    }
+
+    @Test
+    void mergesCountsAndBounds() {
+        QuantileSketch low = new QuantileSketch(ACCURACY);
+        QuantileSketch high = new QuantileSketch(ACCURACY);
+        for (long value = 1; value <= 100; value++) {
+            low.add(value * 100);
+            high.add(value * 10_000);
+        }
+
+        low.merge(high);
+
+        assertEquals(200, low.getCount());
+        assertEquals(100, low.quantile(0));
+        assertWithinAccuracy(1_000_000, low.quantile(1));
+        assertWithinAccuracy(5_000, low.quantile(0.25));
+    }
+
+    @Test
+    void rejectsInvalidInput() {
+        QuantileSketch sketch = new QuantileSketch(ACCURACY);
+
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(0));
+        assertThrows(IllegalArgumentException.class, () -> new QuantileSketch(1));
+        assertThrows(IllegalArgumentException.class, () -> sketch.add(0));
+        assertThrows(IllegalArgumentException.class, () -> sketch.quantile(1.5));
+        assertThrows(IllegalArgumentException.class, () -> sketch.merge(new QuantileSketch(0.02)));
+    }
+
+    private static void assertWithinAccuracy(long expected, long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * ACCURACY,
+                () -> "expected " + expected + " within " + ACCURACY + " but was " + actual);
+    }
+}
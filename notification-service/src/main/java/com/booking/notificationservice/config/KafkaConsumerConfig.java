@@ -1,6 +1,8 @@
 package com.booking.notificationservice.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.RoundRobinAssignor;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -9,6 +11,8 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
 
 import java.util.HashMap;
@@ -17,6 +21,14 @@ import java.util.Map;
 /**
  * Kafka consumer configuration for the Notification Service.
  * Sets up Kafka consumer for budget alerts and expense events.
+ * <p>
+ * Listeners receive each poll as a batch. The container runs one consumer thread per
+ * partition of the budget alerts topic, so the concurrency should match its partition
+ * count: more threads sit idle, fewer leave partitions sharing a thread.
+ * <p>
+ * Retry and dead-letter topics are consumed one record at a time with manual
+ * acknowledgment, by one thread per retry topic so a long delay in one tier never holds
+ * up another.
  */
 @Configuration
 @EnableKafka
@@ -28,6 +40,21 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id:notification-service-group}")
     private String groupId;
 
+    @Value("${app.budget-alerts.listener.concurrency:3}")
+    private int concurrency;
+
+    @Value("${app.budget-alerts.listener.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${app.budget-alerts.retry.attempts:3}")
+    private int retryAttempts;
+
+    private final MeterRegistry meterRegistry;
+
+    public KafkaConsumerConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * Configure Kafka consumer properties.
      *
@@ -41,22 +68,28 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        // Budget alerts are produced in transactions; skip those that were aborted
+        props.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
         props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.booking.*");
         return props;
     }
 
     /**
-     * Create Kafka consumer factory.
+     * Create Kafka consumer factory. The client metrics of its consumers, consumer lag
+     * among them, are published to the meter registry.
      *
      * @return ConsumerFactory for Kafka
      */
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
-        return new DefaultKafkaConsumerFactory<>(consumerConfigs());
+        DefaultKafkaConsumerFactory<String, Object> factory = new DefaultKafkaConsumerFactory<>(consumerConfigs());
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     /**
-     * Create Kafka listener container factory.
+     * Create Kafka listener container factory for batch listeners.
      *
      * @return ConcurrentKafkaListenerContainerFactory
      */
@@ -65,6 +98,31 @@ public class KafkaConsumerConfig {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        factory.setBatchListener(true);
+        factory.setConcurrency(concurrency);
+        return factory;
+    }
+
+    /**
+     * Create Kafka listener container factory for record listeners that acknowledge
+     * manually, used for the retry and dead-letter topics. Partitions are assigned round
+     * robin across topics, so each single-partition retry topic gets its own thread.
+     *
+     * @return ConcurrentKafkaListenerContainerFactory
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> recordListenerContainerFactory() {
+        Map<String, Object> props = new HashMap<>(consumerConfigs());
+        props.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, RoundRobinAssignor.class.getName());
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        DefaultKafkaConsumerFactory<String, Object> consumerFactory = new DefaultKafkaConsumerFactory<>(props);
+        consumerFactory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.setConcurrency(retryAttempts);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
         return factory;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,96 @@
+package com.booking.notificationservice.config;
+
+import com.booking.notificationservice.service.BudgetAlertRetryPublisher;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Kafka producer configuration for the Notification Service.
+ * Sets up the producer and topics used to retry failed budget alerts and to park those
+ * that failed every retry in the dead-letter topic.
+ */
+@Configuration
+public class KafkaProducerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.topic.budget-alerts:budget-alerts}")
+    private String budgetAlertsTopic;
+
+    @Value("${app.budget-alerts.retry.attempts:3}")
+    private int retryAttempts;
+
+    /**
+     * Configure Kafka producer properties.
+     *
+     * @return Map of producer properties
+     */
+    @Bean
+    public Map<String, Object> producerConfigs() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        return props;
+    }
+
+    /**
+     * Create Kafka producer factory.
+     *
+     * @return ProducerFactory for Kafka
+     */
+    @Bean
+    public ProducerFactory<String, Object> producerFactory() {
+        return new DefaultKafkaProducerFactory<>(producerConfigs());
+    }
+
+    /**
+     * Create Kafka template for sending messages.
+     *
+     * @return KafkaTemplate
+     */
+    @Bean
+    public KafkaTemplate<String, Object> kafkaTemplate() {
+        return new KafkaTemplate<>(producerFactory());
+    }
+
+    /**
+     * Create the retry topics, one per attempt, and the dead-letter topic if they don't exist.
+     * Retry topics have a single partition so each is consumed by its own listener thread.
+     *
+     * @return the topics
+     */
+    @Bean
+    public KafkaAdmin.NewTopics budgetAlertRetryTopics() {
+        List<NewTopic> topics = new ArrayList<>();
+        for (int attempt = 0; attempt < retryAttempts; attempt++) {
+            topics.add(TopicBuilder.name(BudgetAlertRetryPublisher.retryTopicOf(budgetAlertsTopic, attempt))
+                    .partitions(1)
+                    .replicas(1)
+                    .build());
+        }
+        topics.add(TopicBuilder.name(BudgetAlertRetryPublisher.deadLetterTopicOf(budgetAlertsTopic))
+                .partitions(1)
+                .replicas(1)
+                .build());
+        return new KafkaAdmin.NewTopics(topics.toArray(NewTopic[]::new));
+    }
+}
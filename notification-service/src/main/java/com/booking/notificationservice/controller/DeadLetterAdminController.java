@@ -0,0 +1,152 @@
+package com.booking.notificationservice.controller;
+
+import com.booking.notificationservice.dto.ApiResponse;
+import com.booking.notificationservice.dto.DeadLetterAlertDTO;
+import com.booking.notificationservice.service.DeadLetterService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Admin REST controller to inspect and replay budget alerts that failed every retry.
+ */
+@RestController
+@RequestMapping("/api/admin/dead-letters")
+public class DeadLetterAdminController {
+
+    @Autowired
+    private DeadLetterService deadLetterService;
+
+    /**
+     * List dead-lettered alerts, oldest first.
+     *
+     * @param userId only list the alerts of this user; if absent, only alerts not replayed yet
+     * @param page the page number
+     * @param size the page size
+     * @return ResponseEntity with the alerts
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<DeadLetterAlertDTO>>> getDeadLetters(
+            @RequestParam(required = false) String userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            List<DeadLetterAlertDTO> deadLetters = deadLetterService.getDeadLetters(userId, page, size);
+
+            ApiResponse<List<DeadLetterAlertDTO>> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Dead letters retrieved successfully",
+                    deadLetters
+            );
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Get a dead-lettered alert.
+     *
+     * @param id the dead letter ID
+     * @return ResponseEntity with the alert
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ApiResponse<DeadLetterAlertDTO>> getDeadLetter(@PathVariable Long id) {
+        try {
+            DeadLetterAlertDTO deadLetter = deadLetterService.getDeadLetter(id);
+
+            ApiResponse<DeadLetterAlertDTO> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Dead letter retrieved successfully",
+                    deadLetter
+            );
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Replay a dead-lettered alert through the retry tiers.
+     *
+     * @param id the dead letter ID
+     * @return ResponseEntity with the replayed alert
+     */
+    @PostMapping("/{id}/replay")
+    public ResponseEntity<ApiResponse<DeadLetterAlertDTO>> replay(@PathVariable Long id) {
+        try {
+            DeadLetterAlertDTO deadLetter = deadLetterService.replay(id);
+
+            ApiResponse<DeadLetterAlertDTO> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Dead letter replayed successfully",
+                    deadLetter
+            );
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Replay the oldest dead-lettered alerts not replayed yet.
+     *
+     * @param limit the most alerts to replay
+     * @return ResponseEntity with the replayed alerts
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<ApiResponse<List<DeadLetterAlertDTO>>> replayPending(
+            @RequestParam(defaultValue = "100") int limit) {
+        try {
+            List<DeadLetterAlertDTO> replayed = deadLetterService.replayPending(limit);
+
+            ApiResponse<List<DeadLetterAlertDTO>> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Replayed " + replayed.size() + " dead letters",
+                    replayed
+            );
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Discard a dead-lettered alert.
+     *
+     * @param id the dead letter ID
+     * @return ResponseEntity with success message
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ApiResponse<Void>> delete(@PathVariable Long id) {
+        try {
+            deadLetterService.delete(id);
+
+            ApiResponse<Void> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Dead letter deleted successfully",
+                    null
+            );
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.booking.notificationservice.controller;
+
+import com.booking.notificationservice.dto.ApiResponse;
+import com.booking.notificationservice.dto.InboxNotificationDTO;
+import com.booking.notificationservice.dto.InboxPageDTO;
+import com.booking.notificationservice.dto.MarkReadRequest;
+import com.booking.notificationservice.service.InboxService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+/**
+ * REST controller for users' in-app notification inboxes.
+ */
+@RestController
+@RequestMapping("/api/notifications")
+public class InboxController {
+
+    @Autowired
+    private InboxService inboxService;
+
+    /**
+     * Get a page of a user's inbox, newest first.
+     *
+     * @param userId the user ID
+     * @param before the next cursor of the previous page; absent for the first page
+     * @param size the page size
+     * @return ResponseEntity with the page and the unread count
+     */
+    @GetMapping
+    public ResponseEntity<ApiResponse<InboxPageDTO>> getInbox(
+            @RequestParam String userId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            InboxPageDTO page = inboxService.getInbox(userId, before, size);
+
+            ApiResponse<InboxPageDTO> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Notifications retrieved successfully",
+                    page
+            );
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Get the number of unread notifications of a user.
+     *
+     * @param userId the user ID
+     * @return ResponseEntity with the unread count
+     */
+    @GetMapping("/unread-count")
+    public ResponseEntity<ApiResponse<Long>> getUnreadCount(@RequestParam String userId) {
+        try {
+            long unreadCount = inboxService.getUnreadCount(userId);
+
+            ApiResponse<Long> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Unread count retrieved successfully",
+                    unreadCount
+            );
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+
+    /**
+     * Stream a user's new notifications as server-sent events, each a "notification" event
+     * whose ID is the notification ID. A client reconnecting with the Last-Event-ID header
+     * first receives the notifications it missed, or, if it missed more than can be
+     * replayed, a "reset" event with the newest notification, after which it should
+     * reload its inbox.
+     *
+     * @param userId the user ID
+     * @param lastEventId the ID of the last notification the client received
+     * @return the event stream
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<InboxNotificationDTO>> streamNotifications(
+            @RequestParam String userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return inboxService.stream(userId, lastEventId);
+    }
+
+    /**
+     * Mark notifications of a user as read, either those listed or all up to an ID.
+     *
+     * @param request the user and the notifications to mark
+     * @return ResponseEntity with the unread count afterwards
+     */
+    @PostMapping("/read")
+    public ResponseEntity<ApiResponse<Long>> markRead(@RequestBody MarkReadRequest request) {
+        try {
+            long unreadCount = inboxService.markRead(request);
+
+            ApiResponse<Long> response = new ApiResponse<>(
+                    "SUCCESS",
+                    "Notifications marked as read",
+                    unreadCount
+            );
+
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(
+                    new ApiResponse<>("ERROR", e.getMessage(), null)
+            );
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.booking.notificationservice.dto;
+
+import com.booking.notificationservice.event.BudgetAlertEvent;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for a dead-lettered budget alert.
+ */
+public record DeadLetterAlertDTO(
+    Long id,
+    BudgetAlertEvent event,
+    String errorMessage,
+    int attempts,
+    LocalDateTime failedAt,
+    LocalDateTime replayedAt
+) {
+}
@@ -0,0 +1,17 @@
+package com.booking.notificationservice.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for a notification in a user's inbox.
+ */
+public record InboxNotificationDTO(
+    Long id,
+    String userId,
+    String title,
+    String content,
+    String type,
+    LocalDateTime createdAt,
+    LocalDateTime readAt
+) {
+}
@@ -0,0 +1,17 @@
+package com.booking.notificationservice.dto;
+
+import java.util.List;
+
+/**
+ * One page of a user's inbox, newest first.
+ *
+ * @param notifications the notifications of the page
+ * @param nextCursor pass as {@code before} to read the next page; null on the last page
+ * @param unreadCount the unread notifications in the whole inbox
+ */
+public record InboxPageDTO(
+    List<InboxNotificationDTO> notifications,
+    Long nextCursor,
+    long unreadCount
+) {
+}
@@ -0,0 +1,28 @@
+package com.booking.notificationservice.dto;
+
+import java.util.List;
+
+/**
+ * Request to mark notifications of a user as read. Either lists the notifications, or
+ * gives the newest one to mark along with everything older.
+ */
+public record MarkReadRequest(
+    String userId,
+    List<Long> ids,
+    Long upTo
+) {
+    public static final int MAX_IDS = 1_000;
+
+    // Compact canonical constructor for validation
+    public MarkReadRequest {
+        if (userId == null || userId.isBlank()) {
+            throw new IllegalArgumentException("User ID cannot be null or empty");
+        }
+        if ((ids == null || ids.isEmpty()) == (upTo == null)) {
+            throw new IllegalArgumentException("Either notification IDs or upTo must be given");
+        }
+        if (ids != null && ids.size() > MAX_IDS) {
+            throw new IllegalArgumentException("At most " + MAX_IDS + " notifications can be marked at once");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.booking.notificationservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A budget alert that failed every delivery attempt, as read from the dead-letter topic.
+ */
+@Entity
+@Table(name = "dead_letter_alerts",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"kafka_partition", "kafka_offset"}),
+        indexes = {
+        @Index(name = "idx_dead_letter_alerts_replayed", columnList = "replayed_at, id"),
+        @Index(name = "idx_dead_letter_alerts_user", columnList = "user_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeadLetterAlert {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "event_id")
+    private String eventId;
+
+    @Column(name = "user_id")
+    private String userId;
+
+    @Column(name = "budget_id")
+    private String budgetId;
+
+    // The alert as JSON, replayed as is
+    @Column(nullable = false, columnDefinition = "text")
+    private String payload;
+
+    @Column(name = "error_message", columnDefinition = "text")
+    private String errorMessage;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    // Position in the dead-letter topic, so a redelivered record is stored once
+    @Column(name = "kafka_partition", nullable = false)
+    private int kafkaPartition;
+
+    @Column(name = "kafka_offset", nullable = false)
+    private long kafkaOffset;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+
+    @Column(name = "replayed_at")
+    private LocalDateTime replayedAt;
+}
@@ -0,0 +1,29 @@
+package com.booking.notificationservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A budget alert event that was delivered, kept for the deduplication window.
+ */
+@Entity
+@Table(name = "delivered_alerts",
+        indexes = @Index(name = "idx_delivered_alerts_delivered_at", columnList = "delivered_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeliveredAlert {
+
+    @Id
+    @Column(name = "event_id")
+    private String eventId;
+
+    @Column(name = "delivered_at", nullable = false)
+    private LocalDateTime deliveredAt;
+}
@@ -0,0 +1,27 @@
+package com.booking.notificationservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The number of unread notifications in a user's inbox, kept up to date as notifications
+ * are stored and read so it never has to be counted.
+ */
+@Entity
+@Table(name = "inbox_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InboxCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private String userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+}
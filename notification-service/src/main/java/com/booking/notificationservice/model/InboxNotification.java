@@ -0,0 +1,51 @@
+package com.booking.notificationservice.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * An in-app notification in a user's inbox. IDs grow with creation time, so a user's
+ * inbox is paged newest first by ID alone. A notification raised by an event is stored
+ * once per event ID, however often the event is delivered.
+ */
+@Entity
+@Table(name = "inbox_notifications",
+        indexes = @Index(name = "idx_inbox_notifications_user", columnList = "user_id, id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_inbox_notifications_event", columnNames = "event_id"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InboxNotification {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private String userId;
+
+    // ID of the event that raised the notification, null if it was not raised by one
+    @Column(name = "event_id")
+    private String eventId;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false, columnDefinition = "text")
+    private String content;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "read_at")
+    private LocalDateTime readAt;
+}
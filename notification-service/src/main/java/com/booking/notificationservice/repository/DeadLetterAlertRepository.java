@@ -0,0 +1,39 @@
+package com.booking.notificationservice.repository;
+
+import com.booking.notificationservice.model.DeadLetterAlert;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for dead-lettered budget alerts.
+ */
+@Repository
+public interface DeadLetterAlertRepository extends JpaRepository<DeadLetterAlert, Long> {
+
+    /**
+     * Find dead-lettered alerts not replayed yet, oldest first.
+     *
+     * @param pageable the page to read
+     * @return the alerts
+     */
+    List<DeadLetterAlert> findByReplayedAtIsNullOrderByIdAsc(Pageable pageable);
+
+    /**
+     * Find the dead-lettered alerts of a user, oldest first.
+     *
+     * @param userId the user ID
+     * @param pageable the page to read
+     * @return the alerts
+     */
+    List<DeadLetterAlert> findByUserIdOrderByIdAsc(String userId, Pageable pageable);
+
+    /**
+     * @param kafkaPartition the dead-letter topic partition
+     * @param kafkaOffset the record offset
+     * @return true if the record was already stored
+     */
+    boolean existsByKafkaPartitionAndKafkaOffset(int kafkaPartition, long kafkaOffset);
+}
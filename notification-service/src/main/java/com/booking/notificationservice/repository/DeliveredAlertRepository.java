@@ -0,0 +1,12 @@
+package com.booking.notificationservice.repository;
+
+import com.booking.notificationservice.model.DeliveredAlert;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for delivered budget alert events.
+ */
+@Repository
+public interface DeliveredAlertRepository extends JpaRepository<DeliveredAlert, String> {
+}
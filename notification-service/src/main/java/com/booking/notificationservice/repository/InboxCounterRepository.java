@@ -0,0 +1,26 @@
+package com.booking.notificationservice.repository;
+
+import com.booking.notificationservice.model.InboxCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for the unread counters of inboxes.
+ */
+@Repository
+public interface InboxCounterRepository extends JpaRepository<InboxCounter, String> {
+
+    /**
+     * Take read notifications off a user's unread count.
+     *
+     * @param userId the user ID
+     * @param read the number of notifications read
+     * @return the number of counters updated
+     */
+    @Modifying
+    @Query("UPDATE InboxCounter c SET c.unreadCount = GREATEST(c.unreadCount - :read, 0) WHERE c.userId = :userId")
+    int decrement(@Param("userId") String userId, @Param("read") long read);
+}
@@ -0,0 +1,77 @@
+package com.booking.notificationservice.repository;
+
+import com.booking.notificationservice.model.InboxNotification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for inbox notifications.
+ */
+@Repository
+public interface InboxNotificationRepository extends JpaRepository<InboxNotification, Long> {
+
+    /**
+     * Find the newest notifications of a user.
+     *
+     * @param userId the user ID
+     * @param pageable the number of notifications to read
+     * @return the notifications, newest first
+     */
+    List<InboxNotification> findByUserIdOrderByIdDesc(String userId, Pageable pageable);
+
+    /**
+     * Find the notifications of a user older than a cursor.
+     *
+     * @param userId the user ID
+     * @param before the ID of the last notification already read
+     * @param pageable the number of notifications to read
+     * @return the notifications, newest first
+     */
+    List<InboxNotification> findByUserIdAndIdLessThanOrderByIdDesc(String userId, Long before, Pageable pageable);
+
+    /**
+     * Find the notifications of a user newer than a cursor.
+     *
+     * @param userId the user ID
+     * @param after the ID of the last notification already seen
+     * @param pageable the number of notifications to read
+     * @return the notifications, oldest first
+     */
+    List<InboxNotification> findByUserIdAndIdGreaterThanOrderByIdAsc(String userId, Long after, Pageable pageable);
+
+    /**
+     * Mark notifications of a user as read.
+     *
+     * @param userId the user ID
+     * @param ids the notification IDs
+     * @param readAt the time they were read
+     * @return the number of notifications that were unread
+     */
+    @Modifying
+    @Query("UPDATE InboxNotification n SET n.readAt = :readAt " +
+           "WHERE n.userId = :userId AND n.id IN :ids AND n.readAt IS NULL")
+    int markRead(@Param("userId") String userId, @Param("ids") Collection<Long> ids,
+                 @Param("readAt") LocalDateTime readAt);
+
+    /**
+     * Mark all notifications of a user up to an ID as read.
+     *
+     * @param userId the user ID
+     * @param upTo the ID of the newest notification to mark
+     * @param readAt the time they were read
+     * @return the number of notifications that were unread
+     */
+    @Modifying
+    @Query("UPDATE InboxNotification n SET n.readAt = :readAt " +
+           "WHERE n.userId = :userId AND n.id <= :upTo AND n.readAt IS NULL")
+    int markAllRead(@Param("userId") String userId, @Param("upTo") Long upTo,
+                    @Param("readAt") LocalDateTime readAt);
+}
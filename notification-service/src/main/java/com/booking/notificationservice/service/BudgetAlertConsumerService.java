@@ -1,14 +1,56 @@
 package com.booking.notificationservice.service;
 
 import com.booking.notificationservice.event.BudgetAlertEvent;
+import com.booking.notificationservice.service.dedup.AlertDeduplicator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Service responsible for consuming budget alert events from Kafka
  * and processing them to send notifications to users.
+ * <p>
+ * Each poll arrives as a batch. Its records are grouped by key, which is the user ID,
+ * and the groups are processed in parallel on a bounded executor, each group in offset
+ * order, so one user's alerts are never reordered. The batch only returns, and its
+ * offsets are only committed, once every group is done. When the executor's queue is
+ * full the listener thread processes the group itself, which slows polling down rather
+ * than buffering without limit.
+ * <p>
+ * An alert that fails is handed to the retry tiers right away instead of being retried
+ * in place, so a failing channel never holds up the main partitions; the batch waits only
+ * until the broker has the retry. Retry topics are consumed one record at a time, each
+ * record waiting, with its consumer paused, until it is due.
+ * <p>
+ * Events already delivered within the deduplication window are skipped, so a redelivered
+ * record does not notify the user twice.
  */
 @Service
 @RequiredArgsConstructor
@@ -16,39 +58,203 @@ import org.springframework.stereotype.Service;
 public class BudgetAlertConsumerService {
 
     private final NotificationService notificationService;
-    
+    private final BudgetAlertRetryPublisher retryPublisher;
+    private final AlertDeduplicator alertDeduplicator;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.budget-alerts.processing.threads:8}")
+    private int processingThreads;
+
+    @Value("${app.budget-alerts.processing.queue-capacity:1000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+
+    // Records behind the end of each partition assigned to a consumer, as of its last poll
+    private final ConcurrentHashMap<Consumer<?, ?>, Map<TopicPartition, Long>> lagByConsumer = new ConcurrentHashMap<>();
+
+    private Counter processedAlerts;
+    private Counter failedAlerts;
+    private Counter retriedAlerts;
+    private DistributionSummary batchSizes;
+    private Timer batchTimer;
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(processingThreads, processingThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "budget-alert-worker-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+
+        processedAlerts = Counter.builder("notifications.budget-alerts.processed")
+                .description("Budget alerts processed")
+                .register(meterRegistry);
+        failedAlerts = Counter.builder("notifications.budget-alerts.failed")
+                .description("Delivery attempts of budget alerts that failed")
+                .register(meterRegistry);
+        retriedAlerts = Counter.builder("notifications.budget-alerts.retried")
+                .description("Budget alerts delivered by a retry")
+                .register(meterRegistry);
+        batchSizes = DistributionSummary.builder("notifications.budget-alerts.batch.size")
+                .description("Records per polled batch")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("notifications.budget-alerts.batch.duration")
+                .description("Time to process a polled batch")
+                .register(meterRegistry);
+        Gauge.builder("notifications.budget-alerts.lag", lagByConsumer,
+                        lags -> lags.values().stream()
+                                .flatMap(partitions -> partitions.values().stream())
+                                .mapToLong(Long::longValue)
+                                .sum())
+                .description("Records not yet consumed across assigned partitions")
+                .register(meterRegistry);
+        Gauge.builder("notifications.budget-alerts.executor.queue", executor, e -> e.getQueue().size())
+                .description("Record groups waiting for a worker")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+
     /**
-     * Listens for budget alert events from the budget-alerts topic.
-     * 
-     * @param budgetAlertEvent the budget alert event received from Kafka
+     * Listens for batches of budget alert events from the budget-alerts topic.
+     *
+     * @param records the records of one poll
+     * @param consumer the consumer that polled them, only used on the listener thread
      */
-    @KafkaListener(topics = "${spring.kafka.topic.budget-alerts:budget-alerts}", 
+    @KafkaListener(id = "budget-alerts",
+                  topics = "${spring.kafka.topic.budget-alerts:budget-alerts}",
                   groupId = "${spring.kafka.consumer.group-id:notification-service-group}")
-    public void consumeBudgetAlertEvent(BudgetAlertEvent budgetAlertEvent) {
-        log.info("Received budget alert event: {}", budgetAlertEvent);
-        
+    public void consumeBudgetAlertEvents(List<ConsumerRecord<String, Object>> records, Consumer<?, ?> consumer) {
+        log.debug("Received {} budget alert events", records.size());
+        batchSizes.record(records.size());
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        Map<String, List<BudgetAlertEvent>> byKey = new LinkedHashMap<>();
+        for (ConsumerRecord<String, Object> record : records) {
+            if (!(record.value() instanceof BudgetAlertEvent event)) {
+                log.warn("Skipping record at {}-{}@{} that is not a budget alert",
+                        record.topic(), record.partition(), record.offset());
+                continue;
+            }
+            String key = record.key() != null ? record.key() : event.getUserId();
+            byKey.computeIfAbsent(key, k -> new ArrayList<>()).add(event);
+        }
+
+        ConcurrentLinkedQueue<CompletableFuture<?>> retries = new ConcurrentLinkedQueue<>();
+        List<CompletableFuture<Void>> groups = new ArrayList<>(byKey.size());
+        for (List<BudgetAlertEvent> events : byKey.values()) {
+            groups.add(CompletableFuture.runAsync(() -> {
+                for (BudgetAlertEvent event : events) {
+                    try {
+                        processBudgetAlert(event);
+                        processedAlerts.increment();
+                    } catch (Exception e) {
+                        failedAlerts.increment();
+                        log.warn("Error processing budget alert event {}, retrying: {}", event.getEventId(), e.getMessage());
+                        retries.add(retryPublisher.retry(event, 0, e));
+                    }
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(groups.toArray(CompletableFuture[]::new)).join();
+        // Offsets may only move past failed alerts once their retry is safely stored
+        CompletableFuture.allOf(retries.toArray(CompletableFuture[]::new)).join();
+
+        sample.stop(batchTimer);
+        recordLag(consumer);
+    }
+
+    /**
+     * Listens for budget alert events due for another delivery attempt.
+     *
+     * @param record the retry record
+     * @param acknowledgment acknowledges the record once it was delivered or passed on
+     */
+    @KafkaListener(id = "budget-alert-retries",
+                  topics = "#{@budgetAlertRetryPublisher.retryTopics}",
+                  groupId = "${spring.kafka.consumer.group-id:notification-service-group}-retry",
+                  containerFactory = "recordListenerContainerFactory")
+    public void consumeRetry(ConsumerRecord<String, Object> record, Acknowledgment acknowledgment) {
+        if (!(record.value() instanceof BudgetAlertEvent event)) {
+            acknowledgment.acknowledge();
+            return;
+        }
+        long wait = BudgetAlertRetryPublisher.longHeader(record.headers(), BudgetAlertRetryPublisher.DUE_AT_HEADER, 0L)
+                - System.currentTimeMillis();
+        if (wait > 0) {
+            // Redelivered once due; later records of the topic are due no earlier
+            acknowledgment.nack(Duration.ofMillis(wait));
+            return;
+        }
+
+        int attempt = (int) BudgetAlertRetryPublisher.longHeader(record.headers(),
+                BudgetAlertRetryPublisher.ATTEMPT_HEADER, 1L);
         try {
-            // Create a notification from the budget alert event
-            String notificationContent = String.format(
-                    "%s - Budget: %s, Category: %s, Current Spending: %.2f, Limit: %.2f",
-                    budgetAlertEvent.getAlertMessage(),
-                    budgetAlertEvent.getBudgetName(),
-                    budgetAlertEvent.getCategory(),
-                    budgetAlertEvent.getCurrentSpending(),
-                    budgetAlertEvent.getBudgetLimit()
-            );
-            
-            // Send the notification to the user
-            notificationService.sendNotification(
-                    budgetAlertEvent.getUserId(),
-                    "Budget Alert",
-                    notificationContent,
-                    "BUDGET_ALERT"
-            );
-            
-            log.info("Successfully processed budget alert for user: {}", budgetAlertEvent.getUserId());
+            processBudgetAlert(event);
+            retriedAlerts.increment();
         } catch (Exception e) {
-            log.error("Error processing budget alert event: {}", e.getMessage(), e);
+            failedAlerts.increment();
+            log.warn("Retry {} of budget alert event {} failed: {}", attempt, event.getEventId(), e.getMessage());
+            retryPublisher.retry(event, attempt, e).join();
+        }
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * Send the notification of one budget alert event.
+     *
+     * @param budgetAlertEvent the budget alert event received from Kafka
+     * @throws IllegalStateException if the notification was not sent
+     */
+    private void processBudgetAlert(BudgetAlertEvent budgetAlertEvent) {
+        if (alertDeduplicator.isDuplicate(budgetAlertEvent.getEventId())) {
+            log.debug("Skipping budget alert {} that was already delivered", budgetAlertEvent.getEventId());
+            return;
+        }
+
+        // Create a notification from the budget alert event
+        String notificationContent = String.format(
+                "%s - Budget: %s, Category: %s, Current Spending: %.2f, Limit: %.2f",
+                budgetAlertEvent.getAlertMessage(),
+                budgetAlertEvent.getBudgetName(),
+                budgetAlertEvent.getCategory(),
+                budgetAlertEvent.getCurrentSpending(),
+                budgetAlertEvent.getBudgetLimit()
+        );
+
+        // Send the notification to the user
+        boolean sent = notificationService.sendNotification(
+                budgetAlertEvent.getUserId(),
+                "Budget Alert",
+                notificationContent,
+                "BUDGET_ALERT",
+                budgetAlertEvent.getEventId()
+        );
+        if (!sent) {
+            throw new IllegalStateException("Notification for user " + budgetAlertEvent.getUserId() + " was not sent");
+        }
+        alertDeduplicator.markDelivered(budgetAlertEvent.getEventId());
+
+        log.debug("Successfully processed budget alert for user: {}", budgetAlertEvent.getUserId());
+    }
+
+    private void recordLag(Consumer<?, ?> consumer) {
+        Map<TopicPartition, Long> lags = new LinkedHashMap<>();
+        for (TopicPartition partition : consumer.assignment()) {
+            OptionalLong lag = consumer.currentLag(partition);
+            if (lag.isPresent()) {
+                lags.put(partition, lag.getAsLong());
+            }
         }
+        lagByConsumer.put(consumer, lags);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package com.booking.notificationservice.service;
+
+import com.booking.notificationservice.event.BudgetAlertEvent;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Moves budget alerts that could not be delivered off the main topic.
+ * <p>
+ * Attempt n of a retry is sent to the retry topic of tier n, whose delay grows by a
+ * constant factor per tier. The time the attempt is due is carried in a header, so the
+ * retry listener can wait for it without holding up the main topic. An alert that failed
+ * its last attempt goes to the dead-letter topic.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BudgetAlertRetryPublisher {
+
+    public static final String ATTEMPT_HEADER = "x-alert-attempt";
+    public static final String DUE_AT_HEADER = "x-alert-due-at";
+    public static final String ERROR_HEADER = "x-alert-error";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Value("${spring.kafka.topic.budget-alerts:budget-alerts}")
+    private String budgetAlertsTopic;
+
+    @Value("${app.budget-alerts.retry.attempts:3}")
+    private int attempts;
+
+    @Value("${app.budget-alerts.retry.initial-delay-ms:1000}")
+    private long initialDelayMillis;
+
+    @Value("${app.budget-alerts.retry.multiplier:5}")
+    private int multiplier;
+
+    private String[] retryTopics;
+
+    @PostConstruct
+    void start() {
+        retryTopics = new String[attempts];
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            retryTopics[attempt] = retryTopicOf(budgetAlertsTopic, attempt);
+        }
+    }
+
+    /**
+     * @return the retry topics, in attempt order
+     */
+    public String[] getRetryTopics() {
+        return retryTopics.clone();
+    }
+
+    /**
+     * @return the dead-letter topic
+     */
+    public String getDeadLetterTopic() {
+        return deadLetterTopicOf(budgetAlertsTopic);
+    }
+
+    /**
+     * Send an alert to its next retry tier, or to the dead-letter topic after the last one.
+     *
+     * @param event the alert that failed
+     * @param attempt the attempt that failed, 0 for the first delivery from the main topic
+     * @param error the failure
+     * @return completes once the broker has the alert
+     */
+    public CompletableFuture<SendResult<String, Object>> retry(BudgetAlertEvent event, int attempt, Exception error) {
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        if (attempt >= attempts) {
+            log.warn("Budget alert {} for user {} failed {} retries, moving it to the dead-letter topic",
+                    event.getEventId(), event.getUserId(), attempts);
+            return send(getDeadLetterTopic(), event, attempt, System.currentTimeMillis(), message);
+        }
+        long delay = delayOf(attempt);
+        log.debug("Retrying budget alert {} for user {} in {} ms", event.getEventId(), event.getUserId(), delay);
+        return send(retryTopics[attempt], event, attempt + 1, System.currentTimeMillis() + delay, message);
+    }
+
+    /**
+     * Send a dead-lettered alert back through the retry tiers, starting with the first.
+     *
+     * @param event the alert to replay
+     * @return completes once the broker has the alert
+     */
+    public CompletableFuture<SendResult<String, Object>> replay(BudgetAlertEvent event) {
+        return send(retryTopics[0], event, 1, System.currentTimeMillis(), null);
+    }
+
+    /**
+     * Read a numeric header written by this publisher.
+     *
+     * @param headers the record headers
+     * @param name the header name
+     * @param defaultValue the value if the header is absent
+     * @return the header value
+     */
+    public static long longHeader(Headers headers, String name, long defaultValue) {
+        Header header = headers.lastHeader(name);
+        return header == null ? defaultValue : Long.parseLong(new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read a text header written by this publisher.
+     *
+     * @param headers the record headers
+     * @param name the header name
+     * @return the header value, or null if absent
+     */
+    public static String stringHeader(Headers headers, String name) {
+        Header header = headers.lastHeader(name);
+        return header == null ? null : new String(header.value(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param budgetAlertsTopic the budget alerts topic
+     * @param attempt the failed attempt
+     * @return the retry topic of the attempt
+     */
+    public static String retryTopicOf(String budgetAlertsTopic, int attempt) {
+        return budgetAlertsTopic + "-retry-" + attempt;
+    }
+
+    /**
+     * @param budgetAlertsTopic the budget alerts topic
+     * @return the dead-letter topic
+     */
+    public static String deadLetterTopicOf(String budgetAlertsTopic) {
+        return budgetAlertsTopic + "-dlt";
+    }
+
+    private long delayOf(int attempt) {
+        long delay = initialDelayMillis;
+        for (int i = 0; i < attempt; i++) {
+            delay *= multiplier;
+        }
+        return delay;
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(String topic, BudgetAlertEvent event, int attempt,
+                                                              long dueAt, String error) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, event.getUserId(), event);
+        record.headers().add(ATTEMPT_HEADER, Integer.toString(attempt).getBytes(StandardCharsets.UTF_8));
+        record.headers().add(DUE_AT_HEADER, Long.toString(dueAt).getBytes(StandardCharsets.UTF_8));
+        if (error != null) {
+            record.headers().add(ERROR_HEADER, error.getBytes(StandardCharsets.UTF_8));
+        }
+        return kafkaTemplate.send(record);
+    }
+}
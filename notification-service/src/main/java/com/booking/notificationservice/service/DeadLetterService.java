@@ -0,0 +1,175 @@
+package com.booking.notificationservice.service;
+
+import com.booking.notificationservice.dto.DeadLetterAlertDTO;
+import com.booking.notificationservice.event.BudgetAlertEvent;
+import com.booking.notificationservice.model.DeadLetterAlert;
+import com.booking.notificationservice.repository.DeadLetterAlertRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the budget alerts of the dead-letter topic where they can be inspected and
+ * replayed. Each record is stored once, keyed by its position in the topic; replaying
+ * sends the alert through the retry tiers again and marks it as replayed.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DeadLetterService {
+
+    // Upper bound of one listing or bulk replay
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private final DeadLetterAlertRepository deadLetterAlertRepository;
+    private final BudgetAlertRetryPublisher retryPublisher;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Store a budget alert from the dead-letter topic.
+     *
+     * @param record the dead-lettered record
+     * @param acknowledgment acknowledges the record once it is stored
+     */
+    @KafkaListener(topics = "#{@budgetAlertRetryPublisher.deadLetterTopic}",
+                  groupId = "${spring.kafka.consumer.group-id:notification-service-group}-dlt",
+                  containerFactory = "recordListenerContainerFactory",
+                  concurrency = "1")
+    public void consumeDeadLetter(ConsumerRecord<String, Object> record, Acknowledgment acknowledgment) {
+        if (record.value() instanceof BudgetAlertEvent event
+                && !deadLetterAlertRepository.existsByKafkaPartitionAndKafkaOffset(record.partition(), record.offset())) {
+            deadLetterAlertRepository.save(DeadLetterAlert.builder()
+                    .eventId(event.getEventId())
+                    .userId(event.getUserId())
+                    .budgetId(event.getBudgetId())
+                    .payload(toJson(event))
+                    .errorMessage(BudgetAlertRetryPublisher.stringHeader(record.headers(),
+                            BudgetAlertRetryPublisher.ERROR_HEADER))
+                    .attempts((int) BudgetAlertRetryPublisher.longHeader(record.headers(),
+                            BudgetAlertRetryPublisher.ATTEMPT_HEADER, 0L))
+                    .kafkaPartition(record.partition())
+                    .kafkaOffset(record.offset())
+                    .failedAt(LocalDateTime.now())
+                    .build());
+            log.warn("Stored dead-lettered budget alert {} for user {}", event.getEventId(), event.getUserId());
+        }
+        acknowledgment.acknowledge();
+    }
+
+    /**
+     * List dead-lettered alerts, oldest first.
+     *
+     * @param userId only list the alerts of this user, or null for alerts not replayed yet
+     * @param page the page number
+     * @param size the page size
+     * @return the alerts
+     */
+    @Transactional(readOnly = true)
+    public List<DeadLetterAlertDTO> getDeadLetters(String userId, int page, int size) {
+        PageRequest pageRequest = PageRequest.of(page, Math.min(size, MAX_PAGE_SIZE));
+        List<DeadLetterAlert> alerts = userId == null
+                ? deadLetterAlertRepository.findByReplayedAtIsNullOrderByIdAsc(pageRequest)
+                : deadLetterAlertRepository.findByUserIdOrderByIdAsc(userId, pageRequest);
+        return alerts.stream().map(this::mapToDTO).toList();
+    }
+
+    /**
+     * Get a dead-lettered alert.
+     *
+     * @param id the dead letter ID
+     * @return the alert
+     */
+    @Transactional(readOnly = true)
+    public DeadLetterAlertDTO getDeadLetter(Long id) {
+        return mapToDTO(find(id));
+    }
+
+    /**
+     * Send a dead-lettered alert through the retry tiers again.
+     *
+     * @param id the dead letter ID
+     * @return the replayed alert
+     */
+    @Transactional
+    public DeadLetterAlertDTO replay(Long id) {
+        DeadLetterAlert alert = find(id);
+        retryPublisher.replay(fromJson(alert.getPayload())).join();
+        alert.setReplayedAt(LocalDateTime.now());
+        return mapToDTO(deadLetterAlertRepository.save(alert));
+    }
+
+    /**
+     * Send the oldest dead-lettered alerts not replayed yet through the retry tiers again.
+     *
+     * @param limit the most alerts to replay
+     * @return the replayed alerts
+     */
+    @Transactional
+    public List<DeadLetterAlertDTO> replayPending(int limit) {
+        List<DeadLetterAlert> alerts = deadLetterAlertRepository.findByReplayedAtIsNullOrderByIdAsc(
+                PageRequest.of(0, Math.min(limit, MAX_PAGE_SIZE)));
+        List<DeadLetterAlertDTO> replayed = new ArrayList<>(alerts.size());
+        for (DeadLetterAlert alert : alerts) {
+            retryPublisher.replay(fromJson(alert.getPayload())).join();
+            alert.setReplayedAt(LocalDateTime.now());
+            replayed.add(mapToDTO(alert));
+        }
+        deadLetterAlertRepository.saveAll(alerts);
+        log.info("Replayed {} dead-lettered budget alerts", replayed.size());
+        return replayed;
+    }
+
+    /**
+     * Discard a dead-lettered alert.
+     *
+     * @param id the dead letter ID
+     */
+    @Transactional
+    public void delete(Long id) {
+        deadLetterAlertRepository.delete(find(id));
+    }
+
+    private DeadLetterAlert find(Long id) {
+        return deadLetterAlertRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Dead letter not found with id: " + id));
+    }
+
+    private DeadLetterAlertDTO mapToDTO(DeadLetterAlert alert) {
+        return new DeadLetterAlertDTO(
+                alert.getId(),
+                fromJson(alert.getPayload()),
+                alert.getErrorMessage(),
+                alert.getAttempts(),
+                alert.getFailedAt(),
+                alert.getReplayedAt()
+        );
+    }
+
+    private String toJson(BudgetAlertEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private BudgetAlertEvent fromJson(String payload) {
+        try {
+            return objectMapper.readValue(payload, BudgetAlertEvent.class);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.booking.notificationservice.service;
+
+import com.booking.notificationservice.dto.InboxNotificationDTO;
+import com.booking.notificationservice.dto.InboxPageDTO;
+import com.booking.notificationservice.dto.MarkReadRequest;
+import com.booking.notificationservice.model.InboxCounter;
+import com.booking.notificationservice.model.InboxNotification;
+import com.booking.notificationservice.repository.InboxCounterRepository;
+import com.booking.notificationservice.repository.InboxNotificationRepository;
+import com.booking.notificationservice.service.push.NotificationPushHub;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Reads users' inboxes and marks their notifications as read.
+ * <p>
+ * Pages are read by keyset: each page continues below the smallest ID of the previous
+ * one, so reading deep into a large inbox costs the same as reading its first page.
+ * Unread counts come from a counter per user that is updated along with the
+ * notifications, never from counting them. New notifications are also pushed to the
+ * user's open event streams.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class InboxService {
+
+    // Upper bound of one page
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final InboxNotificationRepository inboxNotificationRepository;
+    private final InboxCounterRepository inboxCounterRepository;
+    private final NotificationPushHub notificationPushHub;
+
+    @Value("${app.notification-push.replay-limit:100}")
+    private int replayLimit;
+
+    /**
+     * Get a page of a user's inbox, newest first.
+     *
+     * @param userId the user ID
+     * @param before the cursor returned with the previous page, or null for the first page
+     * @param size the page size
+     * @return the page
+     */
+    @Transactional(readOnly = true)
+    public InboxPageDTO getInbox(String userId, Long before, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // One extra row tells whether another page follows
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+        List<InboxNotification> notifications = before == null
+                ? inboxNotificationRepository.findByUserIdOrderByIdDesc(userId, limit)
+                : inboxNotificationRepository.findByUserIdAndIdLessThanOrderByIdDesc(userId, before, limit);
+
+        Long nextCursor = null;
+        if (notifications.size() > pageSize) {
+            notifications = notifications.subList(0, pageSize);
+            nextCursor = notifications.get(pageSize - 1).getId();
+        }
+        return new InboxPageDTO(
+                notifications.stream().map(this::mapToDTO).toList(),
+                nextCursor,
+                getUnreadCount(userId)
+        );
+    }
+
+    /**
+     * Get the number of unread notifications in a user's inbox.
+     *
+     * @param userId the user ID
+     * @return the unread count
+     */
+    @Transactional(readOnly = true)
+    public long getUnreadCount(String userId) {
+        return inboxCounterRepository.findById(userId)
+                .map(InboxCounter::getUnreadCount)
+                .orElse(0L);
+    }
+
+    /**
+     * Open a stream of a user's new notifications as server-sent events. A client that
+     * reconnects with the ID of the last event it received first gets the notifications
+     * it missed. If it missed more than the replay limit, it gets a reset event with the
+     * newest notification instead, and reloads its inbox.
+     *
+     * @param userId the user ID
+     * @param lastEventId the ID of the last notification the client received, or null
+     * @return the event stream
+     */
+    public Flux<ServerSentEvent<InboxNotificationDTO>> stream(String userId, Long lastEventId) {
+        return notificationPushHub.subscribe(userId, () -> catchUp(userId, lastEventId));
+    }
+
+    /**
+     * Mark notifications of a user as read, either those listed or all up to an ID.
+     *
+     * @param request the user and the notifications to mark
+     * @return the unread count afterwards
+     */
+    @Transactional
+    public long markRead(MarkReadRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        int marked = request.upTo() != null
+                ? inboxNotificationRepository.markAllRead(request.userId(), request.upTo(), now)
+                : inboxNotificationRepository.markRead(request.userId(), request.ids(), now);
+        if (marked > 0) {
+            inboxCounterRepository.decrement(request.userId(), marked);
+            log.debug("Marked {} notifications of user {} as read", marked, request.userId());
+        }
+        return getUnreadCount(request.userId());
+    }
+
+    private NotificationPushHub.CatchUp catchUp(String userId, Long lastEventId) {
+        if (lastEventId == null) {
+            return NotificationPushHub.CatchUp.of(List.of());
+        }
+        // One extra row tells whether the gap is larger than the replay limit
+        List<InboxNotification> missed = inboxNotificationRepository.findByUserIdAndIdGreaterThanOrderByIdAsc(
+                userId, lastEventId, PageRequest.of(0, replayLimit + 1));
+        if (missed.size() > replayLimit) {
+            InboxNotification newest = inboxNotificationRepository
+                    .findByUserIdOrderByIdDesc(userId, PageRequest.of(0, 1)).get(0);
+            return NotificationPushHub.CatchUp.reset(mapToDTO(newest));
+        }
+        return NotificationPushHub.CatchUp.of(missed.stream().map(this::mapToDTO).toList());
+    }
+
+    private InboxNotificationDTO mapToDTO(InboxNotification notification) {
+        return new InboxNotificationDTO(
+                notification.getId(),
+                notification.getUserId(),
+                notification.getTitle(),
+                notification.getContent(),
+                notification.getType(),
+                notification.getCreatedAt(),
+                notification.getReadAt()
+        );
+    }
+}
@@ -12,9 +12,11 @@ public interface NotificationService {
      * @param title the title of the notification
      * @param content the content of the notification
      * @param type the type of notification (e.g., BUDGET_ALERT, EXPENSE_CREATED)
+     * @param eventId the ID of the event the notification is sent for, so a redelivered
+     *                event is stored once; null if it is not sent for an event
      * @return true if the notification was sent successfully, false otherwise
      */
-    boolean sendNotification(String userId, String title, String content, String type);
+    boolean sendNotification(String userId, String title, String content, String type, String eventId);
     
     /**
      * Sends an email notification to a user.
@@ -0,0 +1,224 @@
+package com.booking.notificationservice.service.dedup;
+
+import com.booking.notificationservice.repository.DeliveredAlertRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which budget alert events were delivered within the deduplication window,
+ * so redelivered events, after a rebalance or a retry that raced a late success, do not
+ * notify the user twice.
+ * <p>
+ * The window is split into time buckets, each with its own Bloom filter, so memory stays
+ * fixed however many events arrive and whole buckets expire at once. A miss in every
+ * filter is certain; a hit is confirmed against the delivered events, which are written
+ * to the database in batches and pruned when their bucket expires. Filters are rebuilt
+ * from the database on startup.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AlertDeduplicator {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO delivered_alerts (event_id, delivered_at) VALUES (?, ?) ON CONFLICT (event_id) DO NOTHING";
+    private static final String DELETE_EXPIRED_SQL = "DELETE FROM delivered_alerts WHERE delivered_at < ?";
+    private static final String SELECT_SINCE_SQL =
+            "SELECT event_id, delivered_at FROM delivered_alerts WHERE delivered_at >= ?";
+
+    private final DeliveredAlertRepository deliveredAlertRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.notification-dedup.window-hours:24}")
+    private int windowHours;
+
+    @Value("${app.notification-dedup.buckets:24}")
+    private int bucketCount;
+
+    @Value("${app.notification-dedup.expected-events:5000000}")
+    private long expectedEvents;
+
+    @Value("${app.notification-dedup.false-positive-rate:0.001}")
+    private double falsePositiveRate;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    private long bucketMillis;
+
+    // Newest bucket last; replaced, never modified, when a bucket is added or expires
+    private volatile Bucket[] buckets = new Bucket[0];
+
+    // Delivered events not yet written to the database
+    private final ConcurrentHashMap<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    private Counter duplicates;
+    private Counter falsePositives;
+
+    @PostConstruct
+    void start() {
+        bucketMillis = Math.max(1L, windowHours * 3_600_000L / bucketCount);
+
+        duplicates = Counter.builder("notifications.budget-alerts.duplicates")
+                .description("Budget alerts skipped because they were already delivered")
+                .register(meterRegistry);
+        falsePositives = Counter.builder("notifications.budget-alerts.dedup.false-positives")
+                .description("Bloom filter hits for budget alerts that were not delivered")
+                .register(meterRegistry);
+        Gauge.builder("notifications.budget-alerts.dedup.bytes", this,
+                        d -> Arrays.stream(d.buckets).mapToLong(b -> b.filter().sizeInBytes()).sum())
+                .description("Memory held by the deduplication filters")
+                .register(meterRegistry);
+
+        rebuild();
+    }
+
+    /**
+     * Check whether a budget alert event was already delivered within the window.
+     *
+     * @param eventId the event ID, or null if the producer did not set one
+     * @return true if the event was delivered; never true for a null ID
+     */
+    public boolean isDuplicate(String eventId) {
+        if (eventId == null) {
+            return false;
+        }
+        boolean hit = false;
+        for (Bucket bucket : buckets) {
+            if (bucket.filter().mightContain(eventId)) {
+                hit = true;
+                break;
+            }
+        }
+        if (!hit) {
+            return false;
+        }
+        if (pending.containsKey(eventId) || deliveredAlertRepository.existsById(eventId)) {
+            duplicates.increment();
+            return true;
+        }
+        falsePositives.increment();
+        return false;
+    }
+
+    /**
+     * Record that a budget alert event was delivered.
+     *
+     * @param eventId the event ID; ignored if null
+     */
+    public void markDelivered(String eventId) {
+        if (eventId == null) {
+            return;
+        }
+        long now = clock.millis();
+        bucketFor(now).filter().put(eventId);
+        pending.put(eventId, toLocalDateTime(now));
+    }
+
+    /**
+     * Write the delivered events recorded since the last flush to the database.
+     */
+    @Scheduled(fixedDelayString = "${app.notification-dedup.flush-interval-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, LocalDateTime>> entries = new ArrayList<>(pending.entrySet());
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, 1000, (ps, entry) -> {
+            ps.setString(1, entry.getKey());
+            ps.setTimestamp(2, Timestamp.valueOf(entry.getValue()));
+        });
+        // Only forget the entries that were written; newer ones stay for the next flush
+        entries.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+    }
+
+    /**
+     * Drop the buckets that fell out of the window, along with their delivered events.
+     */
+    @Scheduled(fixedDelayString = "${app.notification-dedup.rotate-interval-ms:60000}",
+               initialDelayString = "${app.notification-dedup.rotate-interval-ms:60000}")
+    public void rotate() {
+        long oldestStart = bucketStartOf(clock.millis()) - (long) (bucketCount - 1) * bucketMillis;
+        synchronized (this) {
+            Bucket[] current = buckets;
+            Bucket[] kept = Arrays.stream(current)
+                    .filter(bucket -> bucket.start() >= oldestStart)
+                    .toArray(Bucket[]::new);
+            if (kept.length != current.length) {
+                buckets = kept;
+            }
+        }
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED_SQL, Timestamp.valueOf(toLocalDateTime(oldestStart)));
+        if (deleted > 0) {
+            log.debug("Pruned {} delivered budget alerts older than the deduplication window", deleted);
+        }
+    }
+
+    private void rebuild() {
+        long oldestStart = bucketStartOf(clock.millis()) - (long) (bucketCount - 1) * bucketMillis;
+        int[] restored = new int[1];
+        jdbcTemplate.query(SELECT_SINCE_SQL, rs -> {
+            long deliveredAt = rs.getTimestamp("delivered_at").toLocalDateTime()
+                    .atZone(clock.getZone()).toInstant().toEpochMilli();
+            bucketFor(deliveredAt).filter().put(rs.getString("event_id"));
+            restored[0]++;
+        }, Timestamp.valueOf(toLocalDateTime(oldestStart)));
+        log.info("Restored {} delivered budget alerts into {} deduplication buckets", restored[0], buckets.length);
+    }
+
+    private Bucket bucketFor(long millis) {
+        long start = bucketStartOf(millis);
+        Bucket[] current = buckets;
+        for (int i = current.length - 1; i >= 0; i--) {
+            if (current[i].start() == start) {
+                return current[i];
+            }
+        }
+        synchronized (this) {
+            current = buckets;
+            for (Bucket bucket : current) {
+                if (bucket.start() == start) {
+                    return bucket;
+                }
+            }
+            // Each bucket gets its share of the events and of the false positive rate,
+            // since a lookup consults every bucket of the window
+            Bucket bucket = new Bucket(start, new BloomFilter(
+                    Math.max(1L, expectedEvents / bucketCount), falsePositiveRate / bucketCount));
+            Bucket[] grown = Arrays.copyOf(current, current.length + 1);
+            grown[current.length] = bucket;
+            Arrays.sort(grown, (a, b) -> Long.compare(a.start(), b.start()));
+            buckets = grown;
+            return bucket;
+        }
+    }
+
+    private long bucketStartOf(long millis) {
+        return millis - Math.floorMod(millis, bucketMillis);
+    }
+
+    private LocalDateTime toLocalDateTime(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), clock.getZone());
+    }
+
+    private record Bucket(long start, BloomFilter filter) {
+    }
+}
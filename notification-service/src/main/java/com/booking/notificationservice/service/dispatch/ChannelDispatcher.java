@@ -0,0 +1,121 @@
+package com.booking.notificationservice.service.dispatch;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Delivers the notifications of one channel on its own workers, from its own bounded
+ * queue. A delivery that runs longer than the channel's timeout is interrupted and fails.
+ * Submitting to a full queue waits up to the enqueue timeout for room, then fails.
+ */
+final class ChannelDispatcher {
+
+    private final NotificationChannel channel;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timeouts;
+    private final long timeoutMillis;
+    private final int queueCapacity;
+
+    ChannelDispatcher(NotificationChannel channel, int threads, int queueCapacity, long timeoutMillis,
+                      long enqueueTimeoutMillis, ScheduledExecutorService timeouts) {
+        this.channel = channel;
+        this.timeouts = timeouts;
+        this.timeoutMillis = timeoutMillis;
+        this.queueCapacity = queueCapacity;
+
+        String prefix = "notify-" + channel.name().toLowerCase(Locale.ROOT).replace('_', '-') + "-";
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> {
+                    try {
+                        if (pool.isShutdown()
+                                || !pool.getQueue().offer(runnable, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                            throw new RejectedExecutionException(channel + " delivery queue is full");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(channel + " delivery was interrupted", e);
+                    }
+                });
+    }
+
+    /**
+     * Queue a delivery.
+     *
+     * @param delivery delivers the notification, returning whether it was sent
+     * @return completes with the result of the delivery, or exceptionally if it failed or timed out
+     * @throws RejectedExecutionException if the queue stayed full for the enqueue timeout
+     */
+    CompletableFuture<Boolean> submit(BooleanSupplier delivery) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        AtomicReference<Future<?>> running = new AtomicReference<>();
+        running.set(executor.submit(() -> {
+            // The timeout starts when a worker picks the delivery up, not while it is queued
+            ScheduledFuture<?> timer = timeouts.schedule(() -> {
+                if (result.completeExceptionally(new TimeoutException(
+                        channel + " delivery timed out after " + timeoutMillis + " ms"))) {
+                    Future<?> future = running.get();
+                    if (future != null) {
+                        future.cancel(true);
+                    }
+                }
+            }, timeoutMillis, TimeUnit.MILLISECONDS);
+            try {
+                result.complete(delivery.getAsBoolean());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } finally {
+                timer.cancel(false);
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * @return the channel delivered by this dispatcher
+     */
+    NotificationChannel channel() {
+        return channel;
+    }
+
+    /**
+     * @return deliveries waiting for a worker
+     */
+    int queued() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return the share of the queue in use, from 0 to 1
+     */
+    double fill() {
+        return (double) executor.getQueue().size() / queueCapacity;
+    }
+
+    /**
+     * Stop taking deliveries and wait for the queued ones.
+     *
+     * @param waitMillis the longest time to wait
+     */
+    void shutdown(long waitMillis) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(waitMillis, TimeUnit.MILLISECONDS);
+    }
+}
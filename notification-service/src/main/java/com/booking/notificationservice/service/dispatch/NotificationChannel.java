@@ -0,0 +1,10 @@
+package com.booking.notificationservice.service.dispatch;
+
+/**
+ * Channels a notification is delivered through, each dispatched independently.
+ */
+public enum NotificationChannel {
+    IN_APP,
+    EMAIL,
+    PUSH
+}
@@ -0,0 +1,187 @@
+package com.booking.notificationservice.service.dispatch;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Dispatches notification deliveries to one {@link ChannelDispatcher} per channel, so a
+ * slow channel only fills its own queue and never delays the others.
+ * <p>
+ * When any channel's queue fills past the pause threshold, the budget alert listeners are
+ * paused, so the consumers stop polling instead of queueing more work; they resume once
+ * every queue has drained below the resume threshold. Deliveries already polled still
+ * wait for room in a full queue, up to the enqueue timeout, before they fail and go to
+ * the retry tiers.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationDispatcher {
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.notification-dispatch.in-app.threads:4}")
+    private int inAppThreads;
+
+    @Value("${app.notification-dispatch.in-app.queue-capacity:1000}")
+    private int inAppQueueCapacity;
+
+    @Value("${app.notification-dispatch.in-app.timeout-ms:2000}")
+    private long inAppTimeoutMillis;
+
+    @Value("${app.notification-dispatch.email.threads:4}")
+    private int emailThreads;
+
+    @Value("${app.notification-dispatch.email.queue-capacity:1000}")
+    private int emailQueueCapacity;
+
+    @Value("${app.notification-dispatch.email.timeout-ms:10000}")
+    private long emailTimeoutMillis;
+
+    @Value("${app.notification-dispatch.push.threads:4}")
+    private int pushThreads;
+
+    @Value("${app.notification-dispatch.push.queue-capacity:1000}")
+    private int pushQueueCapacity;
+
+    @Value("${app.notification-dispatch.push.timeout-ms:5000}")
+    private long pushTimeoutMillis;
+
+    @Value("${app.notification-dispatch.enqueue-timeout-ms:5000}")
+    private long enqueueTimeoutMillis;
+
+    @Value("${app.notification-dispatch.pause-threshold:0.8}")
+    private double pauseThreshold;
+
+    @Value("${app.notification-dispatch.resume-threshold:0.5}")
+    private double resumeThreshold;
+
+    @Value("${app.notification-dispatch.paused-listeners:budget-alerts,budget-alert-retries}")
+    private List<String> pausedListeners;
+
+    private final Map<NotificationChannel, ChannelDispatcher> dispatchers = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Counter> timedOut = new EnumMap<>(NotificationChannel.class);
+    private final Map<NotificationChannel, Counter> rejected = new EnumMap<>(NotificationChannel.class);
+    private ScheduledExecutorService timeouts;
+    private volatile boolean paused;
+
+    @PostConstruct
+    void start() {
+        timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notify-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dispatchers.put(NotificationChannel.IN_APP, new ChannelDispatcher(NotificationChannel.IN_APP,
+                inAppThreads, inAppQueueCapacity, inAppTimeoutMillis, enqueueTimeoutMillis, timeouts));
+        dispatchers.put(NotificationChannel.EMAIL, new ChannelDispatcher(NotificationChannel.EMAIL,
+                emailThreads, emailQueueCapacity, emailTimeoutMillis, enqueueTimeoutMillis, timeouts));
+        dispatchers.put(NotificationChannel.PUSH, new ChannelDispatcher(NotificationChannel.PUSH,
+                pushThreads, pushQueueCapacity, pushTimeoutMillis, enqueueTimeoutMillis, timeouts));
+
+        for (ChannelDispatcher dispatcher : dispatchers.values()) {
+            String channel = dispatcher.channel().name();
+            Gauge.builder("notifications.dispatch.queue", dispatcher, ChannelDispatcher::queued)
+                    .tag("channel", channel)
+                    .description("Deliveries waiting for a worker")
+                    .register(meterRegistry);
+            timedOut.put(dispatcher.channel(), Counter.builder("notifications.dispatch.timeouts")
+                    .tag("channel", channel)
+                    .description("Deliveries interrupted after the channel timeout")
+                    .register(meterRegistry));
+            rejected.put(dispatcher.channel(), Counter.builder("notifications.dispatch.rejected")
+                    .tag("channel", channel)
+                    .description("Deliveries that found the channel queue full")
+                    .register(meterRegistry));
+        }
+        Gauge.builder("notifications.dispatch.paused", this, d -> d.paused ? 1 : 0)
+                .description("Whether the budget alert listeners are paused for backpressure")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        for (ChannelDispatcher dispatcher : dispatchers.values()) {
+            dispatcher.shutdown(10_000L);
+        }
+        timeouts.shutdownNow();
+    }
+
+    /**
+     * Queue a delivery on its channel.
+     *
+     * @param channel the channel to deliver through
+     * @param delivery delivers the notification, returning whether it was sent
+     * @return completes with the result of the delivery, or exceptionally if it failed or timed out
+     * @throws RejectedExecutionException if the channel queue stayed full for the enqueue timeout
+     */
+    public CompletableFuture<Boolean> dispatch(NotificationChannel channel, BooleanSupplier delivery) {
+        CompletableFuture<Boolean> result;
+        try {
+            result = dispatchers.get(channel).submit(delivery);
+        } catch (RejectedExecutionException e) {
+            rejected.get(channel).increment();
+            throw e;
+        } finally {
+            applyBackpressure();
+        }
+        return result.whenComplete((sent, error) -> {
+            if (error instanceof TimeoutException) {
+                timedOut.get(channel).increment();
+            }
+            applyBackpressure();
+        });
+    }
+
+    /**
+     * Pause the listeners when a queue is nearly full, and resume them once all have drained.
+     */
+    private void applyBackpressure() {
+        double fill = dispatchers.values().stream().mapToDouble(ChannelDispatcher::fill).max().orElse(0);
+        if (!paused && fill >= pauseThreshold) {
+            setPaused(true, fill);
+        } else if (paused && fill <= resumeThreshold) {
+            setPaused(false, fill);
+        }
+    }
+
+    private synchronized void setPaused(boolean pause, double fill) {
+        if (paused == pause) {
+            return;
+        }
+        paused = pause;
+        for (String id : pausedListeners) {
+            MessageListenerContainer container = listenerRegistry.getListenerContainer(id);
+            if (container == null) {
+                continue;
+            }
+            if (pause) {
+                container.pause();
+            } else {
+                container.resume();
+            }
+        }
+        log.info("{} budget alert listeners, fullest delivery queue at {}%",
+                pause ? "Paused" : "Resumed", Math.round(fill * 100));
+    }
+}
@@ -1,52 +1,69 @@
 package com.booking.notificationservice.service.impl;
 
+import com.booking.notificationservice.dto.InboxNotificationDTO;
 import com.booking.notificationservice.service.NotificationService;
+import com.booking.notificationservice.service.dispatch.NotificationChannel;
+import com.booking.notificationservice.service.dispatch.NotificationDispatcher;
+import com.booking.notificationservice.service.inbox.InboxWriter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+
 /**
  * Implementation of the NotificationService interface.
- * Handles sending notifications to users through various channels.
+ * Handles sending notifications to users through various channels, each delivered
+ * asynchronously by its own dispatcher.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationServiceImpl implements NotificationService {
 
+    private final NotificationDispatcher notificationDispatcher;
+    private final InboxWriter inboxWriter;
+
+    @Value("${app.notification-dispatch.in-app.timeout-ms:2000}")
+    private long inAppTimeoutMillis;
+
     // TODO: Inject email service, push notification service, etc.
-    
+
+    /**
+     * Delivers the notification in-app and waits for it, then queues it for email and push.
+     * Email and push are delivered in the background and their failures are only logged,
+     * so a slow SMTP server or push gateway never holds up the caller. They are only
+     * queued once the in-app delivery succeeded, so a caller retrying a failed
+     * notification never sends them twice. An in-app delivery that timed out may still be
+     * stored; its retry is stored once per event ID, so the inbox holds it only once.
+     *
+     * @throws java.util.concurrent.RejectedExecutionException if the in-app queue stayed full
+     * @throws java.util.concurrent.CompletionException if the in-app delivery failed or timed out
+     */
     @Override
-    public boolean sendNotification(String userId, String title, String content, String type) {
+    public boolean sendNotification(String userId, String title, String content, String type, String eventId) {
         log.info("Sending notification to user {}: {} - {}", userId, title, content);
-        
-        // For now, we'll just log the notification
-        // In a real implementation, this would store the notification in a database
-        // and potentially trigger other notification methods based on user preferences
-        
-        // Simulate sending in-app notification
-        log.info("In-app notification sent to user {}", userId);
-        
-        // Try to send email notification if applicable
-        try {
-            // In a real implementation, we would look up the user's email address
-            String userEmail = getUserEmail(userId);
-            if (userEmail != null) {
-                sendEmailNotification(userEmail, title, content);
-            }
-        } catch (Exception e) {
-            log.warn("Failed to send email notification to user {}: {}", userId, e.getMessage());
-            // Continue execution - don't fail if email fails
+
+        boolean delivered = notificationDispatcher.dispatch(NotificationChannel.IN_APP,
+                () -> sendInAppNotification(userId, title, content, type, eventId)).join();
+        if (!delivered) {
+            return false;
         }
-        
-        // Try to send push notification if applicable
-        try {
-            sendPushNotification(userId, title, content, null);
-        } catch (Exception e) {
-            log.warn("Failed to send push notification to user {}: {}", userId, e.getMessage());
-            // Continue execution - don't fail if push notification fails
+
+        // In a real implementation, we would look up the user's email address
+        String userEmail = getUserEmail(userId);
+        if (userEmail != null) {
+            dispatchInBackground(NotificationChannel.EMAIL, userId,
+                    () -> sendEmailNotification(userEmail, title, content));
         }
-        
+        dispatchInBackground(NotificationChannel.PUSH, userId,
+                () -> sendPushNotification(userId, title, content, null));
         return true;
     }
 
@@ -72,6 +89,55 @@ public class NotificationServiceImpl implements NotificationService {
         return true;
     }
     
+    /**
+     * Helper method to deliver an in-app notification by storing it in the user's inbox.
+     * Waits for the batch it is written in to be committed, interruptibly, so the
+     * dispatcher's timeout can stop the wait.
+     *
+     * @param userId the ID of the user
+     * @param title the title of the notification
+     * @param content the content of the notification
+     * @param type the type of notification
+     * @param eventId the ID of the event the notification is sent for, or null
+     * @return true if the notification was stored
+     */
+    private boolean sendInAppNotification(String userId, String title, String content, String type,
+                                          String eventId) {
+        InboxNotificationDTO notification;
+        try {
+            notification = inboxWriter.append(userId, title, content, type, eventId)
+                    .get(inAppTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new CompletionException(e);
+        }
+        log.info("In-app notification {} sent to user {}", notification.id(), userId);
+        return true;
+    }
+
+    /**
+     * Helper method to queue a delivery whose failure, including a full queue, is only logged.
+     *
+     * @param channel the channel
+     * @param userId the ID of the user
+     * @param delivery delivers the notification
+     */
+    private void dispatchInBackground(NotificationChannel channel, String userId, BooleanSupplier delivery) {
+        try {
+            notificationDispatcher.dispatch(channel, delivery)
+                    .exceptionally(e -> {
+                        log.warn("Failed to send {} notification to user {}: {}", channel, userId, e.getMessage());
+                        return false;
+                    });
+        } catch (RejectedExecutionException e) {
+            log.warn("Failed to send {} notification to user {}: {}", channel, userId, e.getMessage());
+        }
+    }
+
     /**
      * Helper method to get a user's email address.
      * In a real implementation, this would call the user service or database.
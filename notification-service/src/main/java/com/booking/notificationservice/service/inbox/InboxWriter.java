@@ -0,0 +1,223 @@
+package com.booking.notificationservice.service.inbox;
+
+import com.booking.notificationservice.dto.InboxNotificationDTO;
+import com.booking.notificationservice.service.push.NotificationPushHub;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stores in-app notifications in batches. Notifications appended from any thread are
+ * collected by one writer thread, which waits up to the linger time for a batch to fill,
+ * then inserts it and adds it to the unread counters of its users in one transaction.
+ * An appended notification completes once its batch is committed, and is then pushed to
+ * the open event streams of its user. A notification for an event that is already in the
+ * inbox, such as a retry of a delivery that timed out but was stored, is not stored,
+ * counted or pushed again; it completes with the stored notification.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InboxWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO inbox_notifications (user_id, event_id, title, content, type, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (event_id) DO NOTHING";
+    private static final String SELECT_BY_EVENT_SQL =
+            "SELECT id, created_at FROM inbox_notifications WHERE event_id = ?";
+    private static final String COUNTER_SQL =
+            "INSERT INTO inbox_counters (user_id, unread_count) VALUES (?, ?) " +
+            "ON CONFLICT (user_id) DO UPDATE SET unread_count = inbox_counters.unread_count + EXCLUDED.unread_count";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationPushHub notificationPushHub;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.inbox.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.inbox.linger-ms:5}")
+    private long lingerMillis;
+
+    @Value("${app.inbox.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<PendingNotification> queue;
+    private Thread writer;
+    private volatile boolean running;
+    private DistributionSummary batchSizes;
+
+    @PostConstruct
+    void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        batchSizes = DistributionSummary.builder("notifications.inbox.batch.size")
+                .description("Notifications per inbox insert")
+                .register(meterRegistry);
+        running = true;
+        writer = new Thread(this::run, "inbox-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        writer.interrupt();
+        writer.join(10_000L);
+    }
+
+    /**
+     * Queue a notification for the next batch.
+     *
+     * @param userId the ID of the user
+     * @param title the title of the notification
+     * @param content the content of the notification
+     * @param type the type of notification
+     * @param eventId the ID of the event the notification is sent for, or null
+     * @return completes with the stored notification once its batch is committed
+     */
+    public CompletableFuture<InboxNotificationDTO> append(String userId, String title, String content, String type,
+                                                          String eventId) {
+        PendingNotification pending = new PendingNotification(userId, eventId, title, content, type,
+                LocalDateTime.now(), new CompletableFuture<>());
+        if (!running || !queue.offer(pending)) {
+            pending.result().completeExceptionally(new RejectedExecutionException("Inbox write queue is full"));
+        }
+        return pending.result();
+    }
+
+    private void run() {
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                // Stopping: write whatever is still queued without waiting for more
+                queue.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collect(List<PendingNotification> batch) throws InterruptedException {
+        batch.add(queue.take());
+        queue.drainTo(batch, batchSize - batch.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+        while (batch.size() < batchSize) {
+            long wait = deadline - System.nanoTime();
+            PendingNotification next = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+    }
+
+    private void write(List<PendingNotification> batch) {
+        GeneratedKeyHolder keyHolder = new GeneratedKeyHolder();
+        InboxNotificationDTO[] stored = new InboxNotificationDTO[batch.size()];
+        boolean[] inserted = new boolean[batch.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                int[] counts = jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_SQL, new String[]{"id"}),
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                                PendingNotification pending = batch.get(i);
+                                ps.setString(1, pending.userId());
+                                ps.setString(2, pending.eventId());
+                                ps.setString(3, pending.title());
+                                ps.setString(4, pending.content());
+                                ps.setString(5, pending.type());
+                                ps.setTimestamp(6, Timestamp.valueOf(pending.createdAt()));
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return batch.size();
+                            }
+                        },
+                        keyHolder);
+
+                // Keys are only returned for inserted rows, in batch order
+                List<Map<String, Object>> keys = keyHolder.getKeyList();
+                int key = 0;
+                // Sorted so concurrent transactions lock counters in the same order
+                Map<String, Long> unreadByUser = new TreeMap<>();
+                for (int i = 0; i < batch.size(); i++) {
+                    PendingNotification pending = batch.get(i);
+                    if (counts[i] == 0) {
+                        stored[i] = storedFor(pending);
+                        continue;
+                    }
+                    Long id = ((Number) keys.get(key++).get("id")).longValue();
+                    stored[i] = new InboxNotificationDTO(id, pending.userId(), pending.title(),
+                            pending.content(), pending.type(), pending.createdAt(), null);
+                    inserted[i] = true;
+                    unreadByUser.merge(pending.userId(), 1L, Long::sum);
+                }
+                if (!unreadByUser.isEmpty()) {
+                    List<Map.Entry<String, Long>> counters = new ArrayList<>(unreadByUser.entrySet());
+                    jdbcTemplate.batchUpdate(COUNTER_SQL, counters, counters.size(), (ps, entry) -> {
+                        ps.setString(1, entry.getKey());
+                        ps.setLong(2, entry.getValue());
+                    });
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("Failed to store {} inbox notifications: {}", batch.size(), e.getMessage());
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+            return;
+        }
+
+        batchSizes.record(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (inserted[i]) {
+                notificationPushHub.publish(stored[i]);
+            }
+            batch.get(i).result().complete(stored[i]);
+        }
+    }
+
+    /**
+     * Read the notification an earlier delivery of the same event stored.
+     */
+    private InboxNotificationDTO storedFor(PendingNotification pending) {
+        log.debug("Inbox notification for event {} is already stored", pending.eventId());
+        return jdbcTemplate.queryForObject(SELECT_BY_EVENT_SQL, (rs, rowNum) -> new InboxNotificationDTO(
+                rs.getLong("id"), pending.userId(), pending.title(), pending.content(), pending.type(),
+                rs.getTimestamp("created_at").toLocalDateTime(), null), pending.eventId());
+    }
+
+    private record PendingNotification(String userId, String eventId, String title, String content, String type,
+                                       LocalDateTime createdAt, CompletableFuture<InboxNotificationDTO> result) {
+    }
+}
@@ -0,0 +1,238 @@
+package com.booking.notificationservice.service.push;
+
+import com.booking.notificationservice.dto.InboxNotificationDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pushes new inbox notifications to the open event streams of their users.
+ * <p>
+ * Every connection is a unicast sink with a bounded buffer. Publishing only offers the
+ * event to the buffer and never waits on a client, so a new notification costs the
+ * storing thread one non-blocking offer per open connection of its user. A client that
+ * reads too slowly fills its buffer and is evicted: its stream ends, and on reconnecting
+ * with its last event ID it catches up from the inbox. A client that missed more than
+ * can be replayed gets a "reset" event with the newest notification instead, and
+ * reloads its inbox. Idle streams cost no thread.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPushHub {
+
+    static final String NOTIFICATION_EVENT = "notification";
+    static final String RESET_EVENT = "reset";
+
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    @Value("${app.notification-push.max-connections:100000}")
+    private int maxConnections;
+
+    @Value("${app.notification-push.max-connections-per-user:10}")
+    private int maxConnectionsPerUser;
+
+    @Value("${app.notification-push.buffer-size:64}")
+    private int bufferSize;
+
+    private Counter evictions;
+
+    @PostConstruct
+    void start() {
+        Gauge.builder("notifications.push.connections", connectionCount, AtomicInteger::get)
+                .description("Open notification streams")
+                .register(meterRegistry);
+        evictions = Counter.builder("notifications.push.evictions")
+                .description("Notification streams closed because the client fell behind")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        connections.values().forEach(set -> set.forEach(connection -> connection.sink().tryEmitComplete()));
+    }
+
+    /**
+     * Open a stream of a user's new notifications. Notifications missed since the last
+     * event the client saw are sent first, or a reset event if there are too many. The
+     * connection is only registered once the stream is subscribed, so a stream that is
+     * never subscribed holds nothing.
+     *
+     * @param userId the user ID
+     * @param missed reads what the client missed since its last event
+     * @return the event stream, failing with IllegalStateException if the node or the
+     *         user has too many open streams
+     */
+    public Flux<ServerSentEvent<InboxNotificationDTO>> subscribe(String userId,
+                                                             Supplier<CatchUp> missed) {
+        return Flux.defer(() -> {
+            // Registered before the missed notifications are read, so none falls in between
+            Connection connection = register(userId);
+            CatchUp catchUp;
+            try {
+                catchUp = missed.get();
+            } catch (RuntimeException e) {
+                remove(connection);
+                throw e;
+            }
+
+            // A notification stored while reading is both missed and live; send it once
+            long lastMissed = catchUp.lastId();
+            Flux<ServerSentEvent<InboxNotificationDTO>> live = connection.sink().asFlux()
+                    .filter(event -> event.data() == null || event.data().id() > lastMissed);
+            Flux<ServerSentEvent<InboxNotificationDTO>> first = catchUp.resetTo() != null
+                    ? Flux.just(toEvent(catchUp.resetTo(), RESET_EVENT))
+                    : Flux.fromIterable(catchUp.notifications()).map(NotificationPushHub::toEvent);
+            return first
+                    .concatWith(live)
+                    // Ends the stream at once, without draining the buffer of an evicted client
+                    .takeUntilOther(connection.evicted().asMono())
+                    .doFinally(signal -> remove(connection));
+        });
+    }
+
+    /**
+     * Push a newly stored notification to the open streams of its user.
+     *
+     * @param notification the stored notification
+     */
+    public void publish(InboxNotificationDTO notification) {
+        Set<Connection> subscribed = connections.get(notification.userId());
+        if (subscribed != null) {
+            ServerSentEvent<InboxNotificationDTO> event = toEvent(notification);
+            subscribed.forEach(connection -> offer(connection, event));
+        }
+    }
+
+    /**
+     * Send a comment to every stream so idle streams are kept open by proxies and
+     * clients that stopped reading are evicted.
+     */
+    @Scheduled(fixedDelayString = "${app.notification-push.heartbeat-ms:15000}")
+    public void heartbeat() {
+        ServerSentEvent<InboxNotificationDTO> heartbeat = ServerSentEvent.<InboxNotificationDTO>builder()
+                .comment("heartbeat")
+                .build();
+        connections.values().forEach(set -> set.forEach(connection -> offer(connection, heartbeat)));
+    }
+
+    private void offer(Connection connection, ServerSentEvent<InboxNotificationDTO> event) {
+        Sinks.EmitResult result;
+        // Emissions to one sink must not overlap; a publish and a heartbeat may race briefly
+        while ((result = connection.sink().tryEmitNext(event)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+        if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+            log.debug("Evicting notification stream of user {} that fell {} events behind",
+                    connection.userId(), bufferSize);
+            evictions.increment();
+            connection.evicted().tryEmitEmpty();
+        }
+    }
+
+    /**
+     * Add a connection for a user within the node and per-user limits. The per-user check,
+     * the add and {@link #remove} all run inside {@code compute} on the user's entry, so
+     * concurrent subscribes cannot pass the limit together and a connection is never
+     * added to a set that was just dropped from the map.
+     */
+    private Connection register(String userId) {
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            throw new IllegalStateException("Too many open notification streams");
+        }
+        Connection connection = new Connection(userId,
+                Sinks.many().unicast().onBackpressureBuffer(
+                        Queues.<ServerSentEvent<InboxNotificationDTO>>get(bufferSize).get()),
+                Sinks.empty());
+        boolean[] added = new boolean[1];
+        connections.compute(userId, (key, set) -> {
+            Set<Connection> userConnections = set != null ? set : ConcurrentHashMap.newKeySet();
+            if (userConnections.size() < maxConnectionsPerUser) {
+                added[0] = userConnections.add(connection);
+            }
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+        if (!added[0]) {
+            connectionCount.decrementAndGet();
+            throw new IllegalStateException("Too many open notification streams for user " + userId);
+        }
+        return connection;
+    }
+
+    private void remove(Connection connection) {
+        boolean[] removed = new boolean[1];
+        connections.compute(connection.userId(), (key, set) -> {
+            if (set == null) {
+                return null;
+            }
+            removed[0] = set.remove(connection);
+            return set.isEmpty() ? null : set;
+        });
+        if (removed[0]) {
+            connectionCount.decrementAndGet();
+        }
+    }
+
+    private static ServerSentEvent<InboxNotificationDTO> toEvent(InboxNotificationDTO notification) {
+        return toEvent(notification, NOTIFICATION_EVENT);
+    }
+
+    private static ServerSentEvent<InboxNotificationDTO> toEvent(InboxNotificationDTO notification, String name) {
+        return ServerSentEvent.<InboxNotificationDTO>builder()
+                .id(Long.toString(notification.id()))
+                .event(name)
+                .data(notification)
+                .build();
+    }
+
+    /**
+     * What a reconnecting client missed: the notifications stored after its last event,
+     * oldest first, or the newest notification when there are more than can be replayed.
+     */
+    public record CatchUp(List<InboxNotificationDTO> notifications, InboxNotificationDTO resetTo) {
+
+        public static CatchUp of(List<InboxNotificationDTO> notifications) {
+            return new CatchUp(notifications, null);
+        }
+
+        public static CatchUp reset(InboxNotificationDTO newest) {
+            return new CatchUp(List.of(), newest);
+        }
+
+        long lastId() {
+            if (resetTo != null) {
+                return resetTo.id();
+            }
+            return notifications.isEmpty() ? Long.MIN_VALUE : notifications.get(notifications.size() - 1).id();
+        }
+    }
+
+    /**
+     * One open stream: its buffered events and the signal that evicts it.
+     */
+    private record Connection(String userId,
+                              Sinks.Many<ServerSentEvent<InboxNotificationDTO>> sink,
+                              Sinks.Empty<Void> evicted) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.booking.notificationservice.service.dedup;
+
+import com.booking.notificationservice.repository.DeliveredAlertRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AlertDeduplicatorTest {
+
+    // Half past midnight, half way into the first of 24 hourly buckets
+    private static final Instant START = Instant.parse("2026-10-19T00:30:00Z");
+
+    private DeliveredAlertRepository repository;
+    private JdbcTemplate jdbcTemplate;
+    private AlertDeduplicator deduplicator;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(DeliveredAlertRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        deduplicator = new AlertDeduplicator(repository, jdbcTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(deduplicator, "windowHours", 24);
+        ReflectionTestUtils.setField(deduplicator, "bucketCount", 24);
+        ReflectionTestUtils.setField(deduplicator, "expectedEvents", 10_000L);
+        ReflectionTestUtils.setField(deduplicator, "falsePositiveRate", 0.001);
+        setTime(START);
+        deduplicator.start();
+    }
+
+    @Test
+    void detectsEventDeliveredButNotYetFlushed() {
+        deduplicator.markDelivered("event-1");
+
+        assertTrue(deduplicator.isDuplicate("event-1"));
+        assertFalse(deduplicator.isDuplicate("event-2"));
+        assertFalse(deduplicator.isDuplicate(null));
+        verify(repository, never()).existsById(anyString());
+    }
+
+    @Test
+    void confirmsFlushedEventAgainstDatabase() {
+        deduplicator.markDelivered("event-1");
+        deduplicator.flush();
+        when(repository.existsById("event-1")).thenReturn(true);
+
+        assertTrue(deduplicator.isDuplicate("event-1"));
+        verify(repository).existsById("event-1");
+    }
+
+    @Test
+    void keepsBucketUntilItLeavesTheWindow() {
+        deduplicator.markDelivered("event-1");
+
+        setTime(START.plus(Duration.ofHours(23)));
+        deduplicator.rotate();
+        assertTrue(deduplicator.isDuplicate("event-1"));
+
+        setTime(START.plus(Duration.ofHours(24)));
+        deduplicator.rotate();
+        assertFalse(deduplicator.isDuplicate("event-1"));
+    }
+
+    @Test
+    void expiresOnlyBucketsOutsideTheWindow() {
+        deduplicator.markDelivered("event-1");
+        setTime(START.plus(Duration.ofHours(5)));
+        deduplicator.markDelivered("event-2");
+
+        setTime(START.plus(Duration.ofHours(24)));
+        deduplicator.rotate();
+
+        assertFalse(deduplicator.isDuplicate("event-1"));
+        assertTrue(deduplicator.isDuplicate("event-2"));
+    }
+
+    @Test
+    void prunesDeliveredEventsOlderThanTheWindow() {
+        setTime(START.plus(Duration.ofHours(24)));
+        deduplicator.rotate();
+
+        // The oldest bucket kept starts at 01:00 on the first day
+        Timestamp oldestKept = Timestamp.valueOf(LocalDateTime.of(2026, 10, 19, 1, 0));
+        verify(jdbcTemplate).update(any(String.class), eq(oldestKept));
+    }
+
+    private void setTime(Instant now) {
+        ReflectionTestUtils.setField(deduplicator, "clock", Clock.fixed(now, ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,50 @@
+package com.booking.notificationservice.service.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void neverMissesAddedValues() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("event-" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain("event-" + i), "event-" + i);
+        }
+    }
+
+    @Test
+    void keepsFalsePositivesNearConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("event-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, falsePositives + " false positives");
+    }
+
+    @Test
+    void isEmptyWhenCreated() {
+        assertFalse(new BloomFilter(100, 0.001).mightContain("event"));
+    }
+
+    @Test
+    void sizesBitsForExpectedValues() {
+        // 10,000 values at 1% need about 95,851 bits
+        long size = new BloomFilter(10_000, 0.01).sizeInBytes();
+
+        assertTrue(size >= 11_981 && size <= 11_989, size + " bytes");
+    }
+}